@@ -0,0 +1,35 @@
+package com.example.demo.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+/**
+ * Request details of a JWT-authenticated request, plus the id of the user the token was issued
+ * to, so that handlers needing the id don't have to look it up by email.
+ */
+public class JwtAuthenticationDetails extends WebAuthenticationDetails {
+
+    private final Long userId;
+
+    public JwtAuthenticationDetails(HttpServletRequest request, Long userId) {
+        super(request);
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Id of the user authenticated for the current request.
+     */
+    public static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getDetails() instanceof JwtAuthenticationDetails details)) {
+            throw new IllegalStateException("Authentication does not carry a user id");
+        }
+        return details.getUserId();
+    }
+}
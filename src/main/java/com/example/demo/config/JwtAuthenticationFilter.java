@@ -1,14 +1,16 @@
 package com.example.demo.config;
 
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.TokenDenylist;
 import com.example.demo.util.JwtUtil;
+import com.example.demo.util.VerifiedToken;
+import io.jsonwebtoken.JwtException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -17,6 +19,8 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -27,58 +31,53 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private UserRepository userRepository;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        logger.info("Processing request - URI: {}, ContextPath: {}", request.getRequestURI(), request.getContextPath());
-
-        String requestURI = request.getRequestURI();
-        String contextPath = request.getContextPath();
-        String normalizedURI = requestURI.startsWith(contextPath) ? requestURI.substring(contextPath.length()) : requestURI;
-
-        logger.info("shouldNotFilter - URI: {}, ContextPath: {}, Normalized URI: {}, Skip: {}", requestURI, contextPath, normalizedURI, shouldNotFilter(request));
-
         if (shouldNotFilter(request)) {
             filterChain.doFilter(request, response);
             return;
         }
 
         final String authorizationHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwt = null;
+        VerifiedToken token = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            logger.info("Extracted JWT token: {}", jwt);
             try {
-                username = jwtUtil.extractUsername(jwt);
-                logger.info("Extracted username from token: {}", username);
-            } catch (Exception e) {
-                logger.error("Error extracting username from token: {}", e.getMessage(), e);
+                token = jwtUtil.verify(authorizationHeader.substring(7));
+                logger.debug("Verified JWT token for subject: {}", token.getSubject());
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.warn("Rejected JWT token: {}", e.getMessage());
             }
         } else {
-            logger.warn("No JWT token found in Authorization header");
+            logger.debug("No JWT token found in Authorization header");
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            logger.info("Loading user details for username: {}", username);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            logger.info("User details loaded: {}, class: {}, authorities: {}", userDetails.getUsername(), userDetails.getClass().getName(), userDetails.getAuthorities());
-
-            if (jwtUtil.validateToken(jwt, userDetails)) {
-                logger.info("JWT token validated successfully for user: {}", username);
+        // Everything needed comes from the verified claims; no user lookup per request
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (token.getUserId() == null) {
+                // Issued before the uid claim; looked up by email until such tokens have all expired
+                token = userRepository.findIdByEmail(token.getSubject()).map(token::withUserId).orElse(null);
+            }
+            if (token == null) {
+                logger.warn("Rejected JWT token of an unknown user");
+            } else if (tokenDenylist.isDenied(token)) {
+                logger.warn("Rejected revoked JWT token for user: {}", token.getSubject());
+            } else {
+                List<SimpleGrantedAuthority> authorities = token.getRoles().stream()
+                        .map(SimpleGrantedAuthority::new)
+                        .collect(Collectors.toList());
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        username, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        token.getSubject(), null, authorities);
+                authentication.setDetails(new JwtAuthenticationDetails(request, token.getUserId()));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.info("Authentication set for user: {}, principal class: {}, principal value: {}", username, authentication.getPrincipal().getClass().getName(), authentication.getPrincipal());
-            } else {
-                logger.warn("JWT token validation failed for user: {}", username);
+                logger.debug("Authentication set for user: {}", token.getSubject());
             }
-        } else if (username == null && jwt != null) {
-            logger.warn("No username extracted from JWT token");
         }
 
         filterChain.doFilter(request, response);
@@ -90,7 +89,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String contextPath = request.getContextPath();
         String normalizedPath = path.startsWith(contextPath) ? path.substring(contextPath.length()) : path;
         boolean skip = normalizedPath.startsWith("/api/auth") || normalizedPath.equals("/error");
-        logger.info("shouldNotFilter - URI: {}, ContextPath: {}, Normalized URI: {}, Skip: {}", path, contextPath, normalizedPath, skip);
+        logger.debug("shouldNotFilter - URI: {}, ContextPath: {}, Normalized URI: {}, Skip: {}", path, contextPath, normalizedPath, skip);
         return skip;
     }
 }
\ No newline at end of file
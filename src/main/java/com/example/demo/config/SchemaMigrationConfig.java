@@ -0,0 +1,16 @@
+package com.example.demo.config;
+
+import com.example.demo.service.SchemaMigrations;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SchemaMigrationConfig {
+
+    // Migrations the schema update depends on, e.g. removing rows a new unique key would reject, run before Hibernate starts
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor schemaMigrationsBeforeJpa() {
+        return new EntityManagerFactoryDependsOnPostProcessor(SchemaMigrations.class);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.controller;
+
+import com.example.demo.config.JwtAuthenticationDetails;
+import com.example.demo.dto.NotificationDTO;
+import com.example.demo.entity.Notification;
+import com.example.demo.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/notifications")
+public class NotificationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationController.class);
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    /**
+     * The user's notifications, newest first. Pass the last id of a page as beforeId to get the next one.
+     */
+    @GetMapping
+    public ResponseEntity<?> getNotifications(@RequestParam(required = false) Long beforeId,
+                                              @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            logger.info("Fetching notifications - beforeId: {}, limit: {}", beforeId, limit);
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                return ResponseEntity.status(400).body("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (!(principal instanceof String)) {
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            Long userId = JwtAuthenticationDetails.currentUserId();
+            List<NotificationDTO> notifications = notificationRepository
+                    .findPageByUserId(userId, beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, limit))
+                    .stream()
+                    .map(NotificationController::toDTO)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(notifications);
+        } catch (RuntimeException e) {
+            logger.error("Error fetching notifications: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error fetching notifications: " + e.getMessage());
+        }
+    }
+
+    private static NotificationDTO toDTO(Notification notification) {
+        return new NotificationDTO(
+                notification.getId(),
+                notification.getType().name(),
+                notification.getProductId(),
+                notification.getOldPrice(),
+                notification.getNewPrice(),
+                notification.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+        );
+    }
+}
@@ -1,19 +1,32 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.JwtAuthenticationDetails;
+import com.example.demo.dto.IncomingOrderDTO;
+import com.example.demo.dto.IncomingOrderPageDTO;
 import com.example.demo.dto.OrderDTO;
+import com.example.demo.dto.OrderEventDTO;
+import com.example.demo.dto.OrderEventPageDTO;
 import com.example.demo.entity.Order;
 import com.example.demo.entity.Order.OrderStatus;
-import com.example.demo.entity.Product;
-import com.example.demo.entity.User;
+import com.example.demo.entity.OrderEvent;
 import com.example.demo.repository.OrderRepository;
-import com.example.demo.repository.ProductRepository;
-import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.SellerOrderListing;
+import com.example.demo.service.IdempotencyService;
+import com.example.demo.service.OrderService;
+import com.example.demo.service.OrderStreamHub;
+import com.example.demo.service.ProductDetailCache;
+import com.example.demo.service.ProductFacetService;
+import com.example.demo.util.CatalogCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -25,18 +38,57 @@ import java.util.stream.Collectors;
 public class OrderController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_EVENT_PAGE_SIZE = 100;
+    private static final int MAX_EVENT_PAGE_SIZE = 1000;
 
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private OrderService orderService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductDetailCache productDetailCache;
 
     @Autowired
-    private UserRepository userRepository;
+    private OrderStreamHub orderStreamHub;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    /**
+     * Places an order. With an Idempotency-Key header, retries of the same request are answered
+     * with the first response instead of ordering again.
+     */
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<?> createOrder(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                         @RequestBody OrderRequest orderRequest) {
+        if (idempotencyKey == null) {
+            return placeOrder(orderRequest);
+        }
+        try {
+            String owner = String.valueOf(SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+            return idempotencyService.execute(owner, "POST /api/orders", idempotencyKey,
+                    IdempotencyService.fingerprint(String.valueOf(orderRequest.getProductId())),
+                    () -> placeOrder(orderRequest)).toResponseEntity();
+        } catch (IllegalArgumentException e) {
+            logger.error("Rejected idempotent order request: {}", e.getMessage());
+            if (e.getMessage().equals(IdempotencyService.KEY_REUSED)) {
+                return ResponseEntity.status(422).body(e.getMessage());
+            }
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.info("Idempotent order request refused: {}", e.getMessage());
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> placeOrder(OrderRequest orderRequest) {
         try {
             logger.info("Creating order for product ID: {}", orderRequest.getProductId());
 
@@ -48,37 +100,32 @@ public class OrderController {
 
             String email = (String) principal;
 
-            User authenticatedUser = userRepository.findByEmail(email)
-                    .orElseThrow(() -> {
-                        logger.error("User not found with email: {}", email);
-                        return new RuntimeException("Authenticated user not found");
-                    });
-
-            Product product = productRepository.findById(orderRequest.getProductId())
-                    .orElseThrow(() -> {
-                        logger.error("Product not found with ID: {}", orderRequest.getProductId());
-                        return new RuntimeException("Product not found");
-                    });
-
-            boolean alreadyOrdered = orderRepository.existsByProduct_Id(product.getId());
-            if (alreadyOrdered) {
-                logger.error("Product with ID {} is already ordered", product.getId());
-                return ResponseEntity.status(400).body("Product is already ordered");
-            }
+            Long buyerId = JwtAuthenticationDetails.currentUserId();
 
-            Order order = new Order(product, authenticatedUser); // Status defaults to PENDING
-            Order savedOrder = orderRepository.save(order);
+            Order savedOrder = orderService.placeOrder(buyerId, email, orderRequest.getProductId()); // Status defaults to PENDING
+            productFacetService.markOrdered(orderRequest.getProductId());
+            productDetailCache.invalidate(orderRequest.getProductId());
             logger.info("Order created successfully: {}", savedOrder.getId());
 
             OrderDTO orderDTO = new OrderDTO(
                     savedOrder.getId(),
                     savedOrder.getProduct().getId(),
-                    savedOrder.getBuyer().getEmail(),
+                    email,
                     savedOrder.getOrderDate().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
                     savedOrder.getStatus().name()
             );
 
             return ResponseEntity.ok(orderDTO);
+        } catch (RuntimeException e) {
+            if (e.getMessage().equals("Product not found")) {
+                return ResponseEntity.status(404).body("Product not found");
+            }
+            if (e.getMessage().equals("Product is no longer available")) {
+                logger.info("Order for product ID {} refused: already taken", orderRequest.getProductId());
+                return ResponseEntity.status(409).body("Product is no longer available");
+            }
+            logger.error("Error creating order: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error creating order: " + e.getMessage());
         } catch (Exception e) {
             logger.error("Error creating order: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body("Error creating order: " + e.getMessage());
@@ -95,10 +142,7 @@ public class OrderController {
                 return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
             }
             String email = (String) principal;
-            User buyer = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("Authenticated user not found"));
-
-            List<Order> orders = orderRepository.findByBuyer_Id(buyer.getId());
+            List<Order> orders = orderRepository.findByBuyer_Id(JwtAuthenticationDetails.currentUserId());
             if (orders.isEmpty()) {
                 return ResponseEntity.ok("No orders found for this user");
             }
@@ -121,6 +165,61 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/incoming")
+    public ResponseEntity<?> getIncomingOrders(@RequestParam(required = false) String status,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            logger.info("Fetching incoming orders - status: {}, cursor: {}, limit: {}", status, cursor, limit);
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                return ResponseEntity.status(400).body("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            OrderStatus statusFilter = null;
+            if (status != null) {
+                try {
+                    statusFilter = OrderStatus.valueOf(status.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid status value. Must be one of: PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED");
+                }
+            }
+            CatalogCursor after = cursor != null ? CatalogCursor.decode(cursor) : null;
+
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (!(principal instanceof String)) {
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            // Fetch one extra row to learn whether another page follows
+            List<SellerOrderListing> orders = orderService.getIncomingOrders(JwtAuthenticationDetails.currentUserId(), statusFilter,
+                    after != null ? after.getCreatedAt() : null, after != null ? after.getId() : null, limit + 1);
+            String next = null;
+            if (orders.size() > limit) {
+                orders = orders.subList(0, limit);
+                SellerOrderListing last = orders.get(limit - 1);
+                next = new CatalogCursor(last.getOrderDate(), last.getId()).encode();
+            }
+
+            List<IncomingOrderDTO> orderDTOs = orders.stream()
+                    .map(order -> new IncomingOrderDTO(
+                            order.getId(),
+                            order.getOrderDate().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                            order.getStatus().name(),
+                            order.getProductId(),
+                            order.getProductTitle(),
+                            order.getProductPrice(),
+                            order.getBuyerEmail(),
+                            order.getBuyerPhone()
+                    ))
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(new IncomingOrderPageDTO(orderDTOs, next));
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid incoming orders request: {}", e.getMessage());
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error fetching incoming orders: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error fetching incoming orders: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}/status")
     public ResponseEntity<?> updateOrderStatus(@PathVariable Long id, @RequestBody OrderStatusUpdateRequest statusUpdateRequest) {
         try {
@@ -141,8 +240,7 @@ public class OrderController {
                 return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
             }
             String email = (String) principal;
-            User buyer = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("Authenticated user not found"));
+            Long buyerId = JwtAuthenticationDetails.currentUserId();
 
             // Fetch the order
             Order order = orderRepository.findById(id)
@@ -152,21 +250,17 @@ public class OrderController {
                     });
 
             // Check if the authenticated user is the buyer of the order
-            if (!order.getBuyer().getId().equals(buyer.getId())) {
+            if (!order.getBuyer().getId().equals(buyerId)) {
                 logger.error("Unauthorized attempt to update order status for order {} by user {}", id, email);
                 return ResponseEntity.status(403).body("You are not authorized to update this order");
             }
 
-            // Validate status transition
-            OrderStatus currentStatus = order.getStatus();
-            if (!isValidStatusTransition(currentStatus, newStatus)) {
-                logger.error("Invalid status transition from {} to {} for order ID: {}", currentStatus, newStatus, id);
-                return ResponseEntity.status(400).body("Invalid status transition: Cannot move from " + currentStatus + " to " + newStatus);
+            // Validate against the order state machine, update the status and log the event
+            Order updatedOrder = orderService.updateStatus(order, newStatus, email);
+            if (newStatus == OrderStatus.CANCELLED) {
+                productFacetService.markAvailable(updatedOrder.getProduct().getId());
+                productDetailCache.invalidate(updatedOrder.getProduct().getId());
             }
-
-            // Update the status
-            order.setStatus(newStatus);
-            Order updatedOrder = orderRepository.save(order);
             logger.info("Order status updated successfully for order ID: {}", updatedOrder.getId());
 
             // Return the updated OrderDTO
@@ -179,6 +273,12 @@ public class OrderController {
             );
 
             return ResponseEntity.ok(orderDTO);
+        } catch (IllegalArgumentException e) {
+            logger.error("Rejected status change for order ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.error("Rejected status change for order ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(409).body(e.getMessage());
         } catch (RuntimeException e) {
             logger.error("Error updating order status for order ID {}: {}", id, e.getMessage(), e);
             if (e.getMessage().equals("Order not found")) {
@@ -191,22 +291,81 @@ public class OrderController {
         }
     }
 
-    private boolean isValidStatusTransition(OrderStatus currentStatus, OrderStatus newStatus) {
-        // Define valid transitions for the buyer
-        switch (currentStatus) {
-            case PENDING:
-                return newStatus == OrderStatus.CONFIRMED || newStatus == OrderStatus.CANCELLED;
-            case CONFIRMED:
-                return newStatus == OrderStatus.SHIPPED || newStatus == OrderStatus.CANCELLED;
-            case SHIPPED:
-                return newStatus == OrderStatus.DELIVERED;
-            case DELIVERED:
-            case CANCELLED:
-                return false; // No transitions allowed from DELIVERED or CANCELLED
-            default:
-                return false;
+    @GetMapping("/events")
+    public ResponseEntity<?> getOrderEvents(@RequestParam(defaultValue = "0") long after,
+                                            @RequestParam(defaultValue = "" + DEFAULT_EVENT_PAGE_SIZE) int limit) {
+        try {
+            logger.info("Fetching order events after {} - limit: {}", after, limit);
+            if (limit < 1 || limit > MAX_EVENT_PAGE_SIZE) {
+                return ResponseEntity.status(400).body("Limit must be between 1 and " + MAX_EVENT_PAGE_SIZE);
+            }
+
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (!(principal instanceof String)) {
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            List<OrderEvent> events = orderService.getEventsAfter(JwtAuthenticationDetails.currentUserId(), after, limit);
+            long next = events.isEmpty() ? after : events.get(events.size() - 1).getSequence();
+            return ResponseEntity.ok(new OrderEventPageDTO(toEventDTOs(events), next));
+        } catch (Exception e) {
+            logger.error("Error fetching order events: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error fetching order events: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Pushes the authenticated user's order events, as buyer and as seller, over Server-Sent
+     * Events. Each event carries its order log sequence number as the SSE id, so a client that
+     * reconnects with Last-Event-ID receives what it missed before the live events.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderEvents(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                        HttpServletResponse response) {
+        logger.info("Opening order event stream after {}", lastEventId);
+
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!(principal instanceof String)) {
+            throw new RuntimeException("Authentication principal is not a valid email string");
+        }
+        Long userId = JwtAuthenticationDetails.currentUserId();
+
+        // Keeps reverse proxies from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+        return orderStreamHub.subscribe(userId, lastEventId);
+    }
+
+    @GetMapping("/{id}/events")
+    public ResponseEntity<?> getOrderHistory(@PathVariable Long id) {
+        try {
+            logger.info("Fetching status history for order ID: {}", id);
+
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (!(principal instanceof String)) {
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            String email = (String) principal;
+
+            Order order = orderRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Order not found"));
+            // Both parties to the order may read its history
+            if (!order.getBuyer().getEmail().equals(email) && !order.getProduct().getSeller().getEmail().equals(email)) {
+                logger.error("Unauthorized attempt to read history of order {} by user {}", id, email);
+                return ResponseEntity.status(403).body("You are not authorized to view this order");
+            }
+
+            return ResponseEntity.ok(toEventDTOs(orderService.getOrderHistory(id)));
+        } catch (RuntimeException e) {
+            logger.error("Error fetching history for order ID {}: {}", id, e.getMessage(), e);
+            if (e.getMessage().equals("Order not found")) {
+                return ResponseEntity.status(404).body("Order not found");
+            }
+            return ResponseEntity.status(500).body("Error fetching order history: " + e.getMessage());
         }
     }
+
+    private static List<OrderEventDTO> toEventDTOs(List<OrderEvent> events) {
+        return events.stream().map(OrderService::toDTO).collect(Collectors.toList());
+    }
 }
 
 class OrderRequest {
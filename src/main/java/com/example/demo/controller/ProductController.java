@@ -1,30 +1,78 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.JwtAuthenticationDetails;
 import com.example.demo.dto.OrderDTO;
 import com.example.demo.dto.ProductDTO;
+import com.example.demo.dto.ProductImportReportDTO;
+import com.example.demo.dto.ProductPageDTO;
 import com.example.demo.dto.ReviewDTO;
+import com.example.demo.dto.ReviewPageDTO;
 import com.example.demo.entity.Order;
 import com.example.demo.entity.Product;
-import com.example.demo.entity.Review;
+import com.example.demo.entity.ProductRatingSummary;
 import com.example.demo.entity.User;
+import com.example.demo.repository.EntityVersion;
 import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.ProductDetailVersion;
+import com.example.demo.repository.ProductImageRef;
+import com.example.demo.repository.ProductListing;
 import com.example.demo.repository.ProductRepository;
-import com.example.demo.repository.ReviewRepository;
+import com.example.demo.repository.ReviewListing;
 import com.example.demo.repository.UserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper; // Add this import
+import com.example.demo.service.IdempotencyService;
+import com.example.demo.service.ImageStore;
+import com.example.demo.service.ImageUploadService;
+import com.example.demo.service.ImageVariant;
+import com.example.demo.service.ImageVariantService;
+import com.example.demo.service.IncompleteUploadException;
+import com.example.demo.service.ProductDetailCache;
+import com.example.demo.service.ProductExportService;
+import com.example.demo.service.ProductFacetService;
+import com.example.demo.service.ProductImportService;
+import com.example.demo.service.ProductMapper;
+import com.example.demo.service.ProductPriceService;
+import com.example.demo.service.ProductSearchIndex;
+import com.example.demo.service.ProductSearchService;
+import com.example.demo.service.ProductTrendingService;
+import com.example.demo.service.ProductWatcherIndex;
+import com.example.demo.service.ReviewService;
+import com.example.demo.service.StoredImage;
+import com.example.demo.service.WishlistMembershipCache;
+import com.example.demo.util.CatalogCursor;
+import com.example.demo.util.EntityTags;
+import com.example.demo.util.FileResponseWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
@@ -32,6 +80,11 @@ import java.util.stream.Collectors;
 public class ProductController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Catalog reads may be stored but must be revalidated with their ETag before reuse
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    private static final CacheControl REVALIDATE_PRIVATE = CacheControl.noCache().cachePrivate();
 
     @Autowired
     private ProductRepository productRepository;
@@ -43,36 +96,259 @@ public class ProductController {
     private UserRepository userRepository;
 
     @Autowired
-    private ReviewRepository reviewRepository;
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductDetailCache productDetailCache;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ImageUploadService imageUploadService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private WishlistMembershipCache wishlistMembershipCache;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ProductTrendingService productTrendingService;
+
+    @Autowired
+    private ProductPriceService productPriceService;
+
+    @Autowired
+    private ProductWatcherIndex productWatcherIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Readers are immutable and thread-safe, so one is built up front instead of a mapper per request
+    private ObjectReader productReader;
+
+    @PostConstruct
+    void initReaders() {
+        productReader = objectMapper.readerFor(ProductDTO.class);
+    }
 
     @GetMapping
-    public ResponseEntity<?> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String itemCondition,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "false") boolean includeWishlisted,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         try {
-            logger.info("Fetching all products");
-            List<Product> products = productRepository.findAll();
+            logger.info("Fetching products page - category: {}, itemCondition: {}, minPrice: {}, maxPrice: {}, cursor: {}, limit: {}",
+                    category, itemCondition, minPrice, maxPrice, cursor, limit);
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                return ResponseEntity.status(400).body("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            CatalogCursor after = cursor != null ? CatalogCursor.decode(cursor) : null;
+            LocalDateTime afterCreatedAt = after != null ? after.getCreatedAt() : null;
+            Long afterId = after != null ? after.getId() : null;
+            // Fetch one extra row to learn whether another page follows
+            PageRequest page = PageRequest.of(0, limit + 1);
+
+            // Wishlist flags come from the in-memory membership set and make the page private to the user
+            WishlistMembershipCache.Membership wishlist = null;
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (includeWishlisted && authentication != null && !(authentication instanceof AnonymousAuthenticationToken)
+                    && authentication.getPrincipal() instanceof String) {
+                wishlist = wishlistMembershipCache.get((String) authentication.getPrincipal());
+            }
+
+            response.setHeader(HttpHeaders.CACHE_CONTROL,
+                    (wishlist != null ? REVALIDATE_PRIVATE : REVALIDATE).getHeaderValue());
+            // A revalidation reads only the version columns, and answers 304 without loading the page
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                List<EntityVersion> versions = productRepository.findCatalogPageVersions(
+                        category, itemCondition, minPrice, maxPrice, afterCreatedAt, afterId, page);
+                if (new ServletWebRequest(request, response).checkNotModified(catalogTag(versions, wishlist))) {
+                    return null;
+                }
+            }
+
+            List<ProductListing> products = productRepository.findCatalogPage(
+                    category, itemCondition, minPrice, maxPrice, afterCreatedAt, afterId, page);
+            // Tagged from the rows served, so the body and its ETag always come from the same read.
+            // ETag only: a deleted listing doesn't move MAX(updatedAt), so Last-Modified would go stale
+            String etag = catalogTag(products, wishlist);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+                return null;
+            }
+            boolean hasNext = products.size() > limit;
+            if (hasNext) {
+                products = products.subList(0, limit);
+            }
+
             List<ProductDTO> productDTOs = products.stream()
-                    .map(product -> new ProductDTO(
-                            product.getId(),
-                            product.getTitle(),
-                            product.getDescription(),
-                            product.getPrice(),
-                            product.getCategory(),
-                            product.getItemCondition(),
-                            product.getSeller().getEmail(),
-                            product.getImage() != null ? Base64.getEncoder().encodeToString(product.getImage()) : null
-                    ))
+                    .map(productMapper::toDTO)
                     .collect(Collectors.toList());
-            return ResponseEntity.ok(productDTOs);
+            if (wishlist != null) {
+                for (ProductDTO productDTO : productDTOs) {
+                    productDTO.setWishlisted(wishlist.contains(productDTO.getId()));
+                }
+            }
+
+            String next = null;
+            if (hasNext) {
+                ProductListing last = products.get(products.size() - 1);
+                next = new CatalogCursor(last.getCreatedAt(), last.getId()).encode();
+            }
+            return ResponseEntity.ok(new ProductPageDTO(productDTOs, next));
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid catalog request: {}", e.getMessage());
+            return ResponseEntity.status(400).body(e.getMessage());
         } catch (Exception e) {
             logger.error("Error fetching all products: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body("Error fetching products: " + e.getMessage());
         }
     }
 
+    private static String catalogTag(List<? extends EntityVersion> rows, WishlistMembershipCache.Membership wishlist) {
+        return wishlist != null
+                ? EntityTags.ofRows("products-wishlisted", rows, wishlist::contains)
+                : EntityTags.ofRows("products", rows);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchProducts(@RequestParam("q") String query,
+                                            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            logger.info("Searching products - query: {}, limit: {}", query, limit);
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                return ResponseEntity.status(400).body("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            List<ProductSearchIndex.Hit> hits = productSearchService.search(query, limit);
+            if (hits.isEmpty()) {
+                return ResponseEntity.ok(List.of());
+            }
+
+            List<Long> ids = hits.stream().map(ProductSearchIndex.Hit::getProductId).collect(Collectors.toList());
+            Map<Long, ProductListing> listings = productRepository.findListingsByIdIn(ids).stream()
+                    .collect(Collectors.toMap(ProductListing::getId, Function.identity()));
+            // Keep the ranking order; ids deleted since the index was updated are skipped
+            List<ProductDTO> productDTOs = ids.stream()
+                    .map(listings::get)
+                    .filter(Objects::nonNull)
+                    .map(productMapper::toDTO)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(productDTOs);
+        } catch (Exception e) {
+            logger.error("Error searching products: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error searching products: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The most popular products lately, from views, wishlist adds and reviews. Served from memory;
+     * the ranking moves every flush interval of the trending engine.
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingProducts(@RequestParam(required = false) String category,
+                                                 @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            logger.info("Fetching trending products - category: {}, limit: {}", category, limit);
+            int maxResults = productTrendingService.getMaxResults();
+            if (limit < 1 || limit > maxResults) {
+                return ResponseEntity.status(400).body("Limit must be between 1 and " + maxResults);
+            }
+            return ResponseEntity.ok(productTrendingService.getTrending(category, limit));
+        } catch (Exception e) {
+            logger.error("Error fetching trending products: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error fetching trending products: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<?> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String itemCondition,
+            @RequestParam(required = false) String priceBucket,
+            @RequestParam(defaultValue = "true") boolean availableOnly) {
+        try {
+            logger.info("Fetching facet counts - category: {}, itemCondition: {}, priceBucket: {}, availableOnly: {}",
+                    category, itemCondition, priceBucket, availableOnly);
+            return ResponseEntity.ok(productFacetService.count(category, itemCondition, priceBucket, availableOnly));
+        } catch (Exception e) {
+            logger.error("Error fetching facet counts: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error fetching facet counts: " + e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        logger.info("Streaming product catalog export");
+        StreamingResponseBody body = productExportService::writeNdjson;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * Creates a product. With an Idempotency-Key header, retries of the same request are answered
+     * with the first response instead of creating the product again.
+     */
     @PostMapping
     public ResponseEntity<?> createProduct(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestPart("product") String productJson,
-            @RequestPart(value = "image", required = false) MultipartFile image) {
+            @RequestPart(value = "image", required = false) MultipartFile image,
+            @RequestParam(value = "uploadId", required = false) String uploadId) {
+        if (idempotencyKey == null) {
+            return createProduct(productJson, image, null, uploadId);
+        }
+        try {
+            String owner = String.valueOf(SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+            // Stored first so the request is told apart by the image's SHA-256; a retry finds the same copy
+            StoredImage storedImage = uploadId == null ? storeImage(image) : null;
+            String requestHash = IdempotencyService.fingerprint(productJson, uploadId,
+                    storedImage != null ? storedImage.getHash() : null);
+            return idempotencyService.execute(owner, "POST /api/products", idempotencyKey, requestHash,
+                    () -> createProduct(productJson, image, storedImage, uploadId)).toResponseEntity();
+        } catch (IOException e) {
+            logger.error("Error processing product image: {}", e.getMessage(), e);
+            return ResponseEntity.status(400).body("Error processing request: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.error("Rejected idempotent product request: {}", e.getMessage());
+            if (e.getMessage().equals(IdempotencyService.KEY_REUSED)) {
+                return ResponseEntity.status(422).body(e.getMessage());
+            }
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.info("Idempotent product request refused: {}", e.getMessage());
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+
+    // storedImage is the image when the caller already put it in the store, otherwise it is stored here
+    private ResponseEntity<?> createProduct(String productJson, MultipartFile image, StoredImage storedImage, String uploadId) {
         try {
             logger.info("Creating new product");
 
@@ -82,11 +358,10 @@ public class ProductController {
                 return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
             }
             String email = (String) principal;
-            User seller = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("Authenticated user not found"));
+            // The seller is only referenced by id; nothing here reads their row
+            User seller = userRepository.getReferenceById(JwtAuthenticationDetails.currentUserId());
 
-            ObjectMapper objectMapper = new ObjectMapper();
-            ProductDTO productDTO = objectMapper.readValue(productJson, ProductDTO.class);
+            ProductDTO productDTO = productReader.readValue(productJson);
 
             Product product = new Product();
             product.setTitle(productDTO.getTitle());
@@ -96,35 +371,37 @@ public class ProductController {
             product.setItemCondition(productDTO.getItemCondition());
             product.setSeller(seller);
 
-            if (image != null && !image.isEmpty()) {
-                if (image.getSize() > 5 * 1024 * 1024) {
-                    return ResponseEntity.status(400).body("Image size exceeds 5MB limit");
-                }
-                String contentType = image.getContentType();
-                if (!contentType.equals("image/jpeg") && !contentType.equals("image/png")) {
-                    return ResponseEntity.status(400).body("Only JPEG and PNG images are allowed");
-                }
-                product.setImage(image.getBytes());
+            if (uploadId != null) {
+                // Image sent earlier through the resumable /api/uploads endpoints
+                storedImage = imageUploadService.consume(uploadId, email);
+            } else if (storedImage == null) {
+                storedImage = storeImage(image);
+            }
+            if (storedImage != null) {
+                product.setImageHash(storedImage.getHash());
+                product.setImageContentType(storedImage.getContentType());
             }
 
             Product savedProduct = productRepository.save(product);
+            if (savedProduct.getImageHash() != null) {
+                imageVariantService.submit(savedProduct.getId(), savedProduct.getImageHash());
+            }
+            productSearchService.index(savedProduct);
+            productFacetService.index(savedProduct);
 
-            ProductDTO responseDTO = new ProductDTO(
-                    savedProduct.getId(),
-                    savedProduct.getTitle(),
-                    savedProduct.getDescription(),
-                    savedProduct.getPrice(),
-                    savedProduct.getCategory(),
-                    savedProduct.getItemCondition(),
-                    savedProduct.getSeller().getEmail(),
-                    savedProduct.getImage() != null ? Base64.getEncoder().encodeToString(savedProduct.getImage()) : null
-            );
+            ProductDTO responseDTO = productMapper.toDTO(savedProduct, email, ImageVariant.DETAIL);
             return ResponseEntity.ok(responseDTO);
         } catch (IOException e) {
             logger.error("Error parsing product JSON or processing image: {}", e.getMessage(), e);
             return ResponseEntity.status(400).body("Error processing request: " + e.getMessage());
+        } catch (IllegalArgumentException | IncompleteUploadException e) {
+            logger.error("Invalid product image: {}", e.getMessage());
+            return ResponseEntity.status(400).body(e.getMessage());
         } catch (RuntimeException e) {
             logger.error("Error creating product: {}", e.getMessage(), e);
+            if (e.getMessage().equals("Upload not found")) {
+                return ResponseEntity.status(404).body("Upload not found");
+            }
             return ResponseEntity.status(500).body("Error creating product: " + e.getMessage());
         } catch (Exception e) {
             logger.error("Error creating product: {}", e.getMessage(), e);
@@ -132,23 +409,71 @@ public class ProductController {
         }
     }
 
+    private StoredImage storeImage(MultipartFile image) throws IOException {
+        if (image == null || image.isEmpty()) {
+            return null;
+        }
+        if (image.getSize() > 5 * 1024 * 1024) {
+            throw new IllegalArgumentException("Image size exceeds 5MB limit");
+        }
+        try (InputStream imageStream = image.getInputStream()) {
+            return imageUploadService.store(imageStream);
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<?> importProducts(HttpServletRequest request) {
+        try {
+            logger.info("Importing products");
+
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (!(principal instanceof String)) {
+                logger.error("Principal is not a String (email): {}", principal);
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            ProductImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                    .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                    ? ProductImportService.Format.CSV
+                    : ProductImportService.Format.NDJSON;
+            ProductImportReportDTO report = productImportService.importProducts(request.getInputStream(), format, JwtAuthenticationDetails.currentUserId());
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid import: {}", e.getMessage());
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (IOException e) {
+            logger.error("Error reading import: {}", e.getMessage(), e);
+            return ResponseEntity.status(400).body("Error reading import: " + e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error importing products: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error importing products: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProduct(@PathVariable Long id) {
+    public ResponseEntity<?> getProduct(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) {
         try {
             logger.info("Fetching product with ID: {}", id);
-            Product product = productRepository.findById(id)
+            ProductDetailCache.Entry entry = productDetailCache.getIfPresent(id);
+            // Revalidating an uncached product only reads its version columns
+            ProductDetailVersion current = entry != null ? entry : productRepository.findDetailVersionById(id)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
-            ProductDTO productDTO = new ProductDTO(
-                    product.getId(),
-                    product.getTitle(),
-                    product.getDescription(),
-                    product.getPrice(),
-                    product.getCategory(),
-                    product.getItemCondition(),
-                    product.getSeller().getEmail(),
-                    product.getImage() != null ? Base64.getEncoder().encodeToString(product.getImage()) : null
-            );
-            return ResponseEntity.ok(productDTO);
+            productTrendingService.recordView(id);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+            if (new ServletWebRequest(request, response)
+                    .checkNotModified(EntityTags.of("product", current), EntityTags.lastModified(current.getUpdatedAt()))) {
+                return null;
+            }
+            if (entry == null) {
+                entry = productDetailCache.get(id);
+                if (entry == null) {
+                    throw new RuntimeException("Product not found");
+                }
+            }
+            return ResponseEntity.ok()
+                    .eTag(EntityTags.of("product", entry))
+                    .lastModified(EntityTags.lastModified(entry.getUpdatedAt()))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(entry.getBody());
         } catch (RuntimeException e) {
             logger.error("Error fetching product with ID {}: {}", id, e.getMessage(), e);
             if (e.getMessage().equals("Product not found")) {
@@ -158,6 +483,68 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/{id}/image")
+    public ResponseEntity<?> getProductImage(@PathVariable Long id,
+                                             @RequestParam(required = false) String variant,
+                                             HttpServletRequest request,
+                                             HttpServletResponse response) {
+        try {
+            logger.info("Fetching {} image for product ID: {}", variant != null ? variant : "original", id);
+            ProductImageRef imageRef = productRepository.findImageRefById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            if (imageRef.getImageHash() == null) {
+                return ResponseEntity.status(404).body("Product has no image");
+            }
+
+            String hash = imageRef.getImageHash();
+            String contentType = imageRef.getImageContentType();
+            CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+            if (variant != null) {
+                ImageVariant imageVariant = ImageVariant.fromParam(variant);
+                String variantHash = imageVariant.hashOf(imageRef);
+                if (variantHash != null) {
+                    hash = variantHash;
+                    contentType = MediaType.IMAGE_JPEG_VALUE;
+                } else {
+                    // Legacy product or variants still in the queue: serve the original briefly and generate them now
+                    imageVariantService.submit(id, imageRef.getImageHash());
+                    cacheControl = CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic();
+                }
+            }
+
+            // Images are content-addressed, so the hash is a strong validator and never goes stale
+            String etag = "\"" + hash + "\"";
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+            if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+                return null;
+            }
+
+            response.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            Optional<Path> localFile = imageStore.localPath(hash);
+            if (localFile.isPresent()) {
+                FileResponseWriter.write(localFile.get(), request, response);
+            } else {
+                response.setContentLengthLong(imageStore.size(hash));
+                try (InputStream in = imageStore.open(hash)) {
+                    in.transferTo(response.getOutputStream());
+                }
+            }
+            return null;
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid image request for product ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (IOException e) {
+            logger.error("Error streaming image for product ID {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error fetching image: " + e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error fetching image for product ID {}: {}", id, e.getMessage(), e);
+            if (e.getMessage().equals("Product not found")) {
+                return ResponseEntity.status(404).body("Product not found");
+            }
+            return ResponseEntity.status(500).body("Error fetching image: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/my-products")
     public ResponseEntity<?> getMyProducts() {
         try {
@@ -167,23 +554,12 @@ public class ProductController {
                 return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
             }
             String email = (String) principal;
-            User seller = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("Authenticated user not found"));
-            List<Product> products = productRepository.findBySeller_Id(seller.getId());
+            List<ProductListing> products = productRepository.findListingsBySellerEmail(email);
             if (products.isEmpty()) {
                 return ResponseEntity.ok("No products found for this user");
             }
             List<ProductDTO> productDTOs = products.stream()
-                    .map(product -> new ProductDTO(
-                            product.getId(),
-                            product.getTitle(),
-                            product.getDescription(),
-                            product.getPrice(),
-                            product.getCategory(),
-                            product.getItemCondition(),
-                            product.getSeller().getEmail(),
-                            product.getImage() != null ? Base64.getEncoder().encodeToString(product.getImage()) : null
-                    ))
+                    .map(productMapper::toDTO)
                     .collect(Collectors.toList());
             return ResponseEntity.ok(productDTOs);
         } catch (Exception e) {
@@ -192,6 +568,39 @@ public class ProductController {
         }
     }
 
+    /**
+     * Changes the price of one of your products. Users with the product on their wishlist are
+     * notified in the background when the price drops.
+     */
+    @PatchMapping("/{id}/price")
+    public ResponseEntity<?> updatePrice(@PathVariable Long id, @RequestBody PriceUpdateRequest request) {
+        try {
+            logger.info("Updating price of product ID {}", id);
+            if (request.getPrice() == null || !(request.getPrice() > 0) || request.getPrice().isInfinite()) {
+                return ResponseEntity.status(400).body("Price must be a positive number");
+            }
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (!(principal instanceof String)) {
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            String email = (String) principal;
+            Double oldPrice = productPriceService.updatePrice(id, email, request.getPrice());
+            productDetailCache.invalidate(id);
+            return ResponseEntity.ok(Map.of("productId", id, "oldPrice", oldPrice, "price", request.getPrice()));
+        } catch (IllegalStateException e) {
+            logger.warn("Conflicting price update of product ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error updating price of product ID {}: {}", id, e.getMessage(), e);
+            if (e.getMessage().equals("Product not found")) {
+                return ResponseEntity.status(404).body("Product not found");
+            } else if (e.getMessage().equals("You are not authorized to update this product")) {
+                return ResponseEntity.status(403).body("You are not authorized to update this product");
+            }
+            return ResponseEntity.status(500).body("Error updating price: " + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteProduct(@PathVariable Long id) {
         try {
@@ -200,12 +609,9 @@ public class ProductController {
             if (!(principal instanceof String)) {
                 return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
             }
-            String email = (String) principal;
-            User seller = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("Authenticated user not found"));
             Product product = productRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
-            if (!product.getSeller().getId().equals(seller.getId())) {
+            if (!product.getSeller().getId().equals(JwtAuthenticationDetails.currentUserId())) {
                 return ResponseEntity.status(403).body("You are not authorized to delete this product");
             }
             boolean hasOrders = orderRepository.existsByProduct_Id(id);
@@ -213,6 +619,11 @@ public class ProductController {
                 return ResponseEntity.status(400).body("Can't delete your product, it is already ordered by someone");
             }
             productRepository.delete(product);
+            productSearchService.remove(id);
+            productFacetService.remove(id);
+            productDetailCache.invalidate(id);
+            productTrendingService.remove(id);
+            productWatcherIndex.remove(id);
             return ResponseEntity.ok("Product deleted successfully");
         } catch (RuntimeException e) {
             logger.error("Error deleting product with ID {}: {}", id, e.getMessage(), e);
@@ -247,34 +658,15 @@ public class ProductController {
             }
             String reviewerEmail = (String) principal;
 
-            Product product = productRepository.findById(id)
-                    .orElseThrow(() -> {
-                        logger.error("Product not found with ID: {}", id);
-                        return new RuntimeException("Product not found");
-                    });
-
             // Validate rating (1 to 5)
             if (reviewDTO.getRating() < 1 || reviewDTO.getRating() > 5) {
                 logger.error("Invalid rating value: {}", reviewDTO.getRating());
                 return ResponseEntity.status(400).body("Rating must be between 1 and 5");
             }
 
-            Review review = new Review(
-                    product,
-                    reviewerEmail,
-                    reviewDTO.getRating(),
-                    reviewDTO.getComment()
-            );
-            Review savedReview = reviewRepository.save(review);
-            logger.info("Review created successfully for product ID: {}", id);
-
-            ReviewDTO responseDTO = new ReviewDTO(
-                    savedReview.getId(),
-                    savedReview.getProduct().getId(),
-                    savedReview.getReviewerEmail(),
-                    savedReview.getRating(),
-                    savedReview.getComment()
-            );
+            ReviewDTO responseDTO = reviewService.createReview(id, reviewerEmail, reviewDTO.getRating(), reviewDTO.getComment());
+            // The cached detail payload embeds the rating summary
+            productDetailCache.invalidate(id);
             return ResponseEntity.ok(responseDTO);
         } catch (RuntimeException e) {
             logger.error("Error creating review for product ID {}: {}", id, e.getMessage(), e);
@@ -289,30 +681,58 @@ public class ProductController {
     }
 
     @GetMapping("/{id}/reviews")
-    public ResponseEntity<?> getReviews(@PathVariable Long id) {
+    public ResponseEntity<?> getReviews(@PathVariable Long id,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                        HttpServletRequest request,
+                                        HttpServletResponse response) {
         try {
-            logger.info("Fetching reviews for product ID: {}", id);
-            Product product = productRepository.findById(id)
-                    .orElseThrow(() -> {
-                        logger.error("Product not found with ID: {}", id);
-                        return new RuntimeException("Product not found");
-                    });
-
-            List<Review> reviews = reviewRepository.findAll().stream()
-                    .filter(review -> review.getProduct().getId().equals(id))
-                    .collect(Collectors.toList());
+            logger.info("Fetching reviews for product ID: {} - cursor: {}, limit: {}", id, cursor, limit);
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                return ResponseEntity.status(400).body("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            Long afterId = null;
+            if (cursor != null) {
+                try {
+                    afterId = Long.parseLong(cursor);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+            }
 
-            List<ReviewDTO> reviewDTOs = reviews.stream()
-                    .map(review -> new ReviewDTO(
-                            review.getId(),
-                            review.getProduct().getId(),
-                            review.getReviewerEmail(),
-                            review.getRating(),
-                            review.getComment()
-                    ))
-                    .collect(Collectors.toList());
+            ProductRatingSummary summary = reviewService.getSummary(id).orElse(null);
+            if (summary == null && !productRepository.existsById(id)) {
+                logger.error("Product not found with ID: {}", id);
+                throw new RuntimeException("Product not found");
+            }
+            // The page embeds the rating summary, so its count and the page position are part of the tag
+            String kind = "reviews-" + id + "-" + (afterId != null ? afterId : "first") + "-" + limit + "-"
+                    + (summary != null ? summary.getReviewCount() : 0);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                List<EntityVersion> versions = reviewService.getReviewPageVersions(id, afterId, limit + 1);
+                if (new ServletWebRequest(request, response).checkNotModified(EntityTags.ofRows(kind, versions))) {
+                    return null;
+                }
+            }
 
-            return ResponseEntity.ok(reviewDTOs);
+            // Fetch one extra review to learn whether another page follows
+            List<ReviewListing> rows = reviewService.getReviewListings(id, afterId, limit + 1);
+            String etag = EntityTags.ofRows(kind, rows);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+                return null;
+            }
+            List<ReviewDTO> reviews = rows.stream().map(ReviewService::toReviewDTO).collect(Collectors.toList());
+            String next = null;
+            if (reviews.size() > limit) {
+                reviews = reviews.subList(0, limit);
+                next = String.valueOf(reviews.get(limit - 1).getId());
+            }
+            return ResponseEntity.ok(new ReviewPageDTO(ReviewService.toDTO(summary), reviews, next));
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid reviews request for product ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(400).body(e.getMessage());
         } catch (RuntimeException e) {
             logger.error("Error fetching reviews for product ID {}: {}", id, e.getMessage(), e);
             if (e.getMessage().equals("Product not found")) {
@@ -321,4 +741,16 @@ public class ProductController {
             return ResponseEntity.status(500).body("Error fetching reviews: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
+
+class PriceUpdateRequest {
+    private Double price;
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.SellerProfileDTO;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.SellerReputationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sellers")
+public class SellerController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SellerController.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SellerReputationService sellerReputationService;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getSellerProfile(@PathVariable Long id) {
+        try {
+            logger.info("Fetching seller profile for ID: {}", id);
+            User seller = userRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Seller not found"));
+            SellerProfileDTO profile = new SellerProfileDTO(seller.getId(), seller.getUsernameField(), seller.getCity(),
+                    sellerReputationService.getReputation(seller.getId()));
+            return ResponseEntity.ok(profile);
+        } catch (RuntimeException e) {
+            logger.error("Error fetching seller profile for ID {}: {}", id, e.getMessage(), e);
+            if (e.getMessage().equals("Seller not found")) {
+                return ResponseEntity.status(404).body("Seller not found");
+            }
+            return ResponseEntity.status(500).body("Error fetching seller profile: " + e.getMessage());
+        }
+    }
+}
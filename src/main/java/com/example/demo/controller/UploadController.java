@@ -0,0 +1,145 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.UploadStatusDTO;
+import com.example.demo.service.ImageUploadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.URI;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadController.class);
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    @Autowired
+    private ImageUploadService imageUploadService;
+
+    @PostMapping
+    public ResponseEntity<?> startUpload(@RequestBody UploadRequest uploadRequest) {
+        try {
+            logger.info("Starting chunked upload of {} bytes", uploadRequest.getSize());
+            String email = authenticatedEmail();
+            if (email == null) {
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            UploadStatusDTO status = imageUploadService.start(email, uploadRequest.getSize());
+            return ResponseEntity.created(URI.create("/api/uploads/" + status.getId())).body(status);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid upload request: {}", e.getMessage());
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.warn("Refused upload: {}", e.getMessage());
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error starting upload: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error starting upload: " + e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<?> uploadChunk(@PathVariable String id,
+                                         @RequestHeader(HttpHeaders.CONTENT_RANGE) String contentRange,
+                                         HttpServletRequest request) {
+        String email = authenticatedEmail();
+        if (email == null) {
+            return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+        }
+        try {
+            Matcher range = CONTENT_RANGE.matcher(contentRange.trim());
+            if (!range.matches()) {
+                return ResponseEntity.status(400).body("Content-Range must look like 'bytes start-end/total'");
+            }
+            UploadStatusDTO status = imageUploadService.append(id, email,
+                    Long.parseLong(range.group(1)), Long.parseLong(range.group(2)), Long.parseLong(range.group(3)),
+                    request.getInputStream());
+            return ResponseEntity.ok(status);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid chunk for upload {}: {}", id, e.getMessage());
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            // The body tells the client which offset to resume from
+            logger.warn("Rejected chunk for upload {}: {}", id, e.getMessage());
+            return ResponseEntity.status(409).body(imageUploadService.status(id, email));
+        } catch (IOException e) {
+            logger.error("Error receiving chunk for upload {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error receiving chunk: " + e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error receiving chunk for upload {}: {}", id, e.getMessage(), e);
+            if (e.getMessage().equals("Upload not found")) {
+                return ResponseEntity.status(404).body("Upload not found");
+            }
+            return ResponseEntity.status(500).body("Error receiving chunk: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getUpload(@PathVariable String id) {
+        try {
+            String email = authenticatedEmail();
+            if (email == null) {
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            return ResponseEntity.ok(imageUploadService.status(id, email));
+        } catch (RuntimeException e) {
+            logger.error("Error fetching upload {}: {}", id, e.getMessage(), e);
+            if (e.getMessage().equals("Upload not found")) {
+                return ResponseEntity.status(404).body("Upload not found");
+            }
+            return ResponseEntity.status(500).body("Error fetching upload: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancelUpload(@PathVariable String id) {
+        try {
+            String email = authenticatedEmail();
+            if (email == null) {
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            imageUploadService.cancel(id, email);
+            return ResponseEntity.ok("Upload cancelled successfully");
+        } catch (IOException e) {
+            logger.error("Error cancelling upload {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error cancelling upload: " + e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error cancelling upload {}: {}", id, e.getMessage(), e);
+            if (e.getMessage().equals("Upload not found")) {
+                return ResponseEntity.status(404).body("Upload not found");
+            }
+            return ResponseEntity.status(500).body("Error cancelling upload: " + e.getMessage());
+        }
+    }
+
+    private String authenticatedEmail() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!(principal instanceof String)) {
+            logger.error("Principal is not a String (email): {}", principal);
+            return null;
+        }
+        return (String) principal;
+    }
+}
+
+class UploadRequest {
+    private long size;
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+}
@@ -2,8 +2,12 @@ package com.example.demo.controller;
 
 import com.example.demo.entity.User;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.AuthService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -11,9 +15,14 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
+    private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AuthService authService;
+
     @PostMapping
     public User createUser(@RequestBody User user) {
         return userRepository.save(user);
@@ -30,4 +39,22 @@ public class UserController {
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    @PostMapping("/me/revoke-tokens")
+    public ResponseEntity<?> revokeTokens() {
+        try {
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (!(principal instanceof String)) {
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            authService.revokeTokens((String) principal);
+            return ResponseEntity.ok("All tokens revoked; log in again to continue");
+        } catch (RuntimeException e) {
+            logger.error("Error revoking tokens: {}", e.getMessage(), e);
+            if (e instanceof IllegalArgumentException) {
+                return ResponseEntity.status(404).body(e.getMessage());
+            }
+            return ResponseEntity.status(500).body("Error revoking tokens: " + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
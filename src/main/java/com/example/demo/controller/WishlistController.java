@@ -1,14 +1,27 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.JwtAuthenticationDetails;
+import com.example.demo.dto.WishlistBatchResultDTO;
 import com.example.demo.dto.WishlistDTO;
+import com.example.demo.dto.WishlistMembershipDTO;
+import com.example.demo.repository.VersionSummary;
 import com.example.demo.service.WishlistService;
+import com.example.demo.util.EntityTags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.Base64;
+import java.util.BitSet;
 import java.util.List;
 
 @RestController
@@ -16,6 +29,8 @@ import java.util.List;
 public class WishlistController {
 
     private static final Logger logger = LoggerFactory.getLogger(WishlistController.class);
+    private static final int MAX_MEMBERSHIP_IDS = 1000;
+    private static final int MAX_BATCH_IDS = 1000;
 
     @Autowired
     private WishlistService wishlistService;
@@ -30,7 +45,7 @@ public class WishlistController {
                 return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
             }
             String email = (String) principal;
-            wishlistService.addToWishlist(email, productId);
+            wishlistService.addToWishlist(JwtAuthenticationDetails.currentUserId(), email, productId);
             return ResponseEntity.ok("Product added to wishlist successfully");
         } catch (RuntimeException e) {
             logger.error("Error adding product ID {} to wishlist: {}", productId, e.getMessage(), e);
@@ -44,7 +59,7 @@ public class WishlistController {
     }
 
     @GetMapping
-    public ResponseEntity<?> getWishlist() {
+    public ResponseEntity<?> getWishlist(HttpServletRequest request, HttpServletResponse response) {
         try {
             logger.info("Fetching wishlist for authenticated user");
             Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -52,6 +67,13 @@ public class WishlistController {
                 return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
             }
             String email = (String) principal;
+            VersionSummary version = wishlistService.getWishlistVersion(email);
+            // Per-user content: only the client may store it, and it must revalidate before reuse
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+            // ETag only: MAX(updatedAt) doesn't move when an entry is removed, so Last-Modified would go stale
+            if (new ServletWebRequest(request, response).checkNotModified(EntityTags.of("wishlist", version))) {
+                return null;
+            }
             List<WishlistDTO> wishlist = wishlistService.getWishlist(email);
             return ResponseEntity.ok(wishlist);
         } catch (RuntimeException e) {
@@ -60,6 +82,33 @@ public class WishlistController {
         }
     }
 
+    /**
+     * Tells which of the given products are on the user's wishlist, e.g. to draw the hearts of a
+     * catalog page, without fetching the wishlist itself.
+     */
+    @GetMapping("/contains")
+    public ResponseEntity<?> getMembership(@RequestParam("ids") List<Long> productIds) {
+        try {
+            logger.info("Checking wishlist membership of {} products", productIds.size());
+            if (productIds.size() > MAX_MEMBERSHIP_IDS) {
+                return ResponseEntity.status(400).body("At most " + MAX_MEMBERSHIP_IDS + " ids can be checked at once");
+            }
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (!(principal instanceof String)) {
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            String email = (String) principal;
+            BitSet bits = wishlistService.getMembership(email, productIds);
+            // Membership changes with every add and remove, so it isn't worth a revalidation round trip
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(new WishlistMembershipDTO(productIds.size(), Base64.getEncoder().encodeToString(bits.toByteArray())));
+        } catch (RuntimeException e) {
+            logger.error("Error checking wishlist membership: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error checking wishlist membership: " + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{productId}")
     public ResponseEntity<?> removeFromWishlist(@PathVariable Long productId) {
         try {
@@ -70,7 +119,7 @@ public class WishlistController {
                 return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
             }
             String email = (String) principal;
-            wishlistService.removeFromWishlist(email, productId);
+            wishlistService.removeFromWishlist(JwtAuthenticationDetails.currentUserId(), email, productId);
             return ResponseEntity.ok("Product removed from wishlist successfully");
         } catch (RuntimeException e) {
             logger.error("Error removing product ID {} from wishlist: {}", productId, e.getMessage(), e);
@@ -80,4 +129,73 @@ public class WishlistController {
             return ResponseEntity.status(500).body("Error removing product from wishlist: " + e.getMessage());
         }
     }
+
+    /**
+     * Adds and removes many products in one transaction, e.g. to import a wishlist kept on the
+     * device before signing in. Products already in the requested state are skipped.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> updateWishlist(@RequestBody WishlistBatchRequest request) {
+        try {
+            List<Long> add = request.getAdd() != null ? request.getAdd() : List.of();
+            List<Long> remove = request.getRemove() != null ? request.getRemove() : List.of();
+            logger.info("Updating wishlist: adding {}, removing {} products", add.size(), remove.size());
+            if (add.size() + remove.size() > MAX_BATCH_IDS) {
+                return ResponseEntity.status(400).body("At most " + MAX_BATCH_IDS + " ids can be changed at once");
+            }
+            if (add.contains(null) || remove.contains(null)) {
+                return ResponseEntity.status(400).body("Product ids must not be null");
+            }
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (!(principal instanceof String)) {
+                logger.error("Principal is not a String (email): {}", principal);
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            String email = (String) principal;
+            WishlistBatchResultDTO result = wishlistService.updateWishlist(JwtAuthenticationDetails.currentUserId(), email, add, remove);
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            logger.error("Error updating wishlist: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error updating wishlist: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> clearWishlist() {
+        try {
+            logger.info("Clearing wishlist");
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (!(principal instanceof String)) {
+                logger.error("Principal is not a String (email): {}", principal);
+                return ResponseEntity.status(500).body("Authentication principal is not a valid email string");
+            }
+            String email = (String) principal;
+            int removed = wishlistService.clearWishlist(JwtAuthenticationDetails.currentUserId(), email);
+            return ResponseEntity.ok(new WishlistBatchResultDTO(0, removed));
+        } catch (RuntimeException e) {
+            logger.error("Error clearing wishlist: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error clearing wishlist: " + e.getMessage());
+        }
+    }
+}
+
+class WishlistBatchRequest {
+    private List<Long> add;
+    private List<Long> remove;
+
+    public List<Long> getAdd() {
+        return add;
+    }
+
+    public void setAdd(List<Long> add) {
+        this.add = add;
+    }
+
+    public List<Long> getRemove() {
+        return remove;
+    }
+
+    public void setRemove(List<Long> remove) {
+        this.remove = remove;
+    }
 }
\ No newline at end of file
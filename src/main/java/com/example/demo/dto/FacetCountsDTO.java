@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+public class FacetCountsDTO {
+    private long total;
+    private Map<String, Long> categories;
+    private Map<String, Long> itemConditions;
+    private Map<String, Long> priceBuckets;
+
+    public FacetCountsDTO() {
+    }
+
+    public FacetCountsDTO(long total, Map<String, Long> categories, Map<String, Long> itemConditions, Map<String, Long> priceBuckets) {
+        this.total = total;
+        this.categories = categories;
+        this.itemConditions = itemConditions;
+        this.priceBuckets = priceBuckets;
+    }
+
+    // Getters and Setters
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    public Map<String, Long> getCategories() { return categories; }
+    public void setCategories(Map<String, Long> categories) { this.categories = categories; }
+    public Map<String, Long> getItemConditions() { return itemConditions; }
+    public void setItemConditions(Map<String, Long> itemConditions) { this.itemConditions = itemConditions; }
+    public Map<String, Long> getPriceBuckets() { return priceBuckets; }
+    public void setPriceBuckets(Map<String, Long> priceBuckets) { this.priceBuckets = priceBuckets; }
+}
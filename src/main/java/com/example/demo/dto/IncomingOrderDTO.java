@@ -0,0 +1,42 @@
+package com.example.demo.dto;
+
+public class IncomingOrderDTO {
+    private Long id;
+    private String orderDate;
+    private String status;
+    private Long productId;
+    private String productTitle;
+    private Double productPrice;
+    private String buyerEmail;
+    private String buyerPhone;
+
+    public IncomingOrderDTO(Long id, String orderDate, String status, Long productId, String productTitle,
+                            Double productPrice, String buyerEmail, String buyerPhone) {
+        this.id = id;
+        this.orderDate = orderDate;
+        this.status = status;
+        this.productId = productId;
+        this.productTitle = productTitle;
+        this.productPrice = productPrice;
+        this.buyerEmail = buyerEmail;
+        this.buyerPhone = buyerPhone;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getOrderDate() { return orderDate; }
+    public void setOrderDate(String orderDate) { this.orderDate = orderDate; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public String getProductTitle() { return productTitle; }
+    public void setProductTitle(String productTitle) { this.productTitle = productTitle; }
+    public Double getProductPrice() { return productPrice; }
+    public void setProductPrice(Double productPrice) { this.productPrice = productPrice; }
+    public String getBuyerEmail() { return buyerEmail; }
+    public void setBuyerEmail(String buyerEmail) { this.buyerEmail = buyerEmail; }
+    public String getBuyerPhone() { return buyerPhone; }
+    public void setBuyerPhone(String buyerPhone) { this.buyerPhone = buyerPhone; }
+}
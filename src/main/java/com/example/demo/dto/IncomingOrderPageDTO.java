@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public class IncomingOrderPageDTO {
+    private List<IncomingOrderDTO> items;
+    private String next;
+
+    public IncomingOrderPageDTO() {
+    }
+
+    public IncomingOrderPageDTO(List<IncomingOrderDTO> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    // Getters and Setters
+    public List<IncomingOrderDTO> getItems() { return items; }
+    public void setItems(List<IncomingOrderDTO> items) { this.items = items; }
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+public class NotificationDTO {
+    private Long id;
+    private String type;
+    private Long productId;
+    private Double oldPrice;
+    private Double newPrice;
+    private String createdAt;
+
+    public NotificationDTO(Long id, String type, Long productId, Double oldPrice, Double newPrice, String createdAt) {
+        this.id = id;
+        this.type = type;
+        this.productId = productId;
+        this.oldPrice = oldPrice;
+        this.newPrice = newPrice;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public Double getOldPrice() { return oldPrice; }
+    public void setOldPrice(Double oldPrice) { this.oldPrice = oldPrice; }
+    public Double getNewPrice() { return newPrice; }
+    public void setNewPrice(Double newPrice) { this.newPrice = newPrice; }
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.dto;
+
+public class OrderEventDTO {
+    private Long id;
+    private Long orderId;
+    private String fromStatus;
+    private String toStatus;
+    private String actor;
+    private String occurredAt;
+    // Position in the event feed; null on events pushed before they were numbered
+    private Long sequence;
+
+    public OrderEventDTO(Long id, Long orderId, String fromStatus, String toStatus, String actor, String occurredAt,
+                         Long sequence) {
+        this.id = id;
+        this.orderId = orderId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.actor = actor;
+        this.occurredAt = occurredAt;
+        this.sequence = sequence;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public String getFromStatus() { return fromStatus; }
+    public void setFromStatus(String fromStatus) { this.fromStatus = fromStatus; }
+    public String getToStatus() { return toStatus; }
+    public void setToStatus(String toStatus) { this.toStatus = toStatus; }
+    public String getActor() { return actor; }
+    public void setActor(String actor) { this.actor = actor; }
+    public String getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(String occurredAt) { this.occurredAt = occurredAt; }
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
+}
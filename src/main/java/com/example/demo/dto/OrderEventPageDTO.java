@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public class OrderEventPageDTO {
+    private List<OrderEventDTO> items;
+    // Sequence number to pass as after on the next call; unchanged when there was nothing new
+    private long next;
+
+    public OrderEventPageDTO() {
+    }
+
+    public OrderEventPageDTO(List<OrderEventDTO> items, long next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    // Getters and Setters
+    public List<OrderEventDTO> getItems() { return items; }
+    public void setItems(List<OrderEventDTO> items) { this.items = items; }
+    public long getNext() { return next; }
+    public void setNext(long next) { this.next = next; }
+}
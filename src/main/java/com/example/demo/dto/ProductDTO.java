@@ -8,13 +8,19 @@ public class ProductDTO {
     private String category;
     private String itemCondition;
     private String sellerEmail;
-    private String imageBase64;
+    private String imageUrl;
+    // Only filled in on product detail
+    private RatingSummaryDTO rating;
+    // Only filled in on product detail
+    private SellerReputationDTO sellerReputation;
+    // Only filled in on catalog pages requested with includeWishlisted by a signed-in user
+    private Boolean wishlisted;
 
     // Constructors
     public ProductDTO() {
     }
 
-    public ProductDTO(Long id, String title, String description, Double price, String category, String itemCondition, String sellerEmail, String imageBase64) {
+    public ProductDTO(Long id, String title, String description, Double price, String category, String itemCondition, String sellerEmail, String imageUrl) {
         this.id = id;
         this.title = title;
         this.description = description;
@@ -22,7 +28,7 @@ public class ProductDTO {
         this.category = category;
         this.itemCondition = itemCondition;
         this.sellerEmail = sellerEmail;
-        this.imageBase64 = imageBase64;
+        this.imageUrl = imageUrl;
     }
 
     // Getters and setters
@@ -82,11 +88,35 @@ public class ProductDTO {
         this.sellerEmail = sellerEmail;
     }
 
-    public String getImageBase64() {
-        return imageBase64;
+    public String getImageUrl() {
+        return imageUrl;
     }
 
-    public void setImageBase64(String imageBase64) {
-        this.imageBase64 = imageBase64;
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
     }
-}
\ No newline at end of file
+
+    public RatingSummaryDTO getRating() {
+        return rating;
+    }
+
+    public void setRating(RatingSummaryDTO rating) {
+        this.rating = rating;
+    }
+
+    public SellerReputationDTO getSellerReputation() {
+        return sellerReputation;
+    }
+
+    public void setSellerReputation(SellerReputationDTO sellerReputation) {
+        this.sellerReputation = sellerReputation;
+    }
+
+    public Boolean getWishlisted() {
+        return wishlisted;
+    }
+
+    public void setWishlisted(Boolean wishlisted) {
+        this.wishlisted = wishlisted;
+    }
+}
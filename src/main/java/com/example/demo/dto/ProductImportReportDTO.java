@@ -0,0 +1,45 @@
+package com.example.demo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductImportReportDTO {
+    private int created;
+    private int failed;
+    private List<ProductImportResultDTO> rows = new ArrayList<>();
+
+    // Constructors
+    public ProductImportReportDTO() {
+    }
+
+    public ProductImportReportDTO(int created, int failed, List<ProductImportResultDTO> rows) {
+        this.created = created;
+        this.failed = failed;
+        this.rows = rows;
+    }
+
+    // Getters and setters
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<ProductImportResultDTO> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<ProductImportResultDTO> rows) {
+        this.rows = rows;
+    }
+}
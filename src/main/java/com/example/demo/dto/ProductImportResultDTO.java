@@ -0,0 +1,65 @@
+package com.example.demo.dto;
+
+/**
+ * Outcome of one data row of a bulk import.
+ */
+public class ProductImportResultDTO {
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+
+    private int line;
+    private String status;
+    private Long productId;
+    private String error;
+
+    // Constructors
+    public ProductImportResultDTO() {
+    }
+
+    public ProductImportResultDTO(int line) {
+        this.line = line;
+    }
+
+    public void created(Long productId) {
+        this.status = CREATED;
+        this.productId = productId;
+    }
+
+    public void failed(String error) {
+        this.status = FAILED;
+        this.error = error;
+    }
+
+    // Getters and setters
+    public int getLine() {
+        return line;
+    }
+
+    public void setLine(int line) {
+        this.line = line;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
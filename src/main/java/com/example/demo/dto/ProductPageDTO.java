@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public class ProductPageDTO {
+    private List<ProductDTO> items;
+    private String next;
+
+    public ProductPageDTO() {
+    }
+
+    public ProductPageDTO(List<ProductDTO> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    // Getters and Setters
+    public List<ProductDTO> getItems() { return items; }
+    public void setItems(List<ProductDTO> items) { this.items = items; }
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+public class RatingSummaryDTO {
+    private long count;
+    private Double average;
+    // Number of reviews with rating 1 to 5, in that order
+    private long[] histogram;
+
+    public RatingSummaryDTO() {
+    }
+
+    public RatingSummaryDTO(long count, Double average, long[] histogram) {
+        this.count = count;
+        this.average = average;
+        this.histogram = histogram;
+    }
+
+    // Getters and Setters
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public Double getAverage() { return average; }
+    public void setAverage(Double average) { this.average = average; }
+    public long[] getHistogram() { return histogram; }
+    public void setHistogram(long[] histogram) { this.histogram = histogram; }
+}
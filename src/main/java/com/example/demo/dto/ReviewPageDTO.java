@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public class ReviewPageDTO {
+    private RatingSummaryDTO summary;
+    private List<ReviewDTO> items;
+    private String next;
+
+    public ReviewPageDTO() {
+    }
+
+    public ReviewPageDTO(RatingSummaryDTO summary, List<ReviewDTO> items, String next) {
+        this.summary = summary;
+        this.items = items;
+        this.next = next;
+    }
+
+    // Getters and Setters
+    public RatingSummaryDTO getSummary() { return summary; }
+    public void setSummary(RatingSummaryDTO summary) { this.summary = summary; }
+    public List<ReviewDTO> getItems() { return items; }
+    public void setItems(List<ReviewDTO> items) { this.items = items; }
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+public class SellerProfileDTO {
+    private Long id;
+    private String username;
+    private String city;
+    private SellerReputationDTO reputation;
+
+    public SellerProfileDTO() {
+    }
+
+    public SellerProfileDTO(Long id, String username, String city, SellerReputationDTO reputation) {
+        this.id = id;
+        this.username = username;
+        this.city = city;
+        this.reputation = reputation;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+    public SellerReputationDTO getReputation() { return reputation; }
+    public void setReputation(SellerReputationDTO reputation) { this.reputation = reputation; }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+public class SellerReputationDTO {
+    private Double averageRating;
+    private long reviewCount;
+    private long completedSales;
+    // Cancelled share of delivered and cancelled orders; null until one of them closes
+    private Double cancellationRate;
+
+    public SellerReputationDTO() {
+    }
+
+    public SellerReputationDTO(Double averageRating, long reviewCount, long completedSales, Double cancellationRate) {
+        this.averageRating = averageRating;
+        this.reviewCount = reviewCount;
+        this.completedSales = completedSales;
+        this.cancellationRate = cancellationRate;
+    }
+
+    // Getters and Setters
+    public Double getAverageRating() { return averageRating; }
+    public void setAverageRating(Double averageRating) { this.averageRating = averageRating; }
+    public long getReviewCount() { return reviewCount; }
+    public void setReviewCount(long reviewCount) { this.reviewCount = reviewCount; }
+    public long getCompletedSales() { return completedSales; }
+    public void setCompletedSales(long completedSales) { this.completedSales = completedSales; }
+    public Double getCancellationRate() { return cancellationRate; }
+    public void setCancellationRate(Double cancellationRate) { this.cancellationRate = cancellationRate; }
+}
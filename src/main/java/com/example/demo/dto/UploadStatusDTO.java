@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+public class UploadStatusDTO {
+    private String id;
+    private long size;
+    private long offset;
+    private boolean complete;
+
+    public UploadStatusDTO() {
+    }
+
+    public UploadStatusDTO(String id, long size, long offset, boolean complete) {
+        this.id = id;
+        this.size = size;
+        this.offset = offset;
+        this.complete = complete;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+    public long getOffset() { return offset; }
+    public void setOffset(long offset) { this.offset = offset; }
+    public boolean isComplete() { return complete; }
+    public void setComplete(boolean complete) { this.complete = complete; }
+}
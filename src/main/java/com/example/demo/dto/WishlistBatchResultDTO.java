@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+public class WishlistBatchResultDTO {
+    private int added;
+    private int removed;
+
+    public WishlistBatchResultDTO() {
+    }
+
+    public WishlistBatchResultDTO(int added, int removed) {
+        this.added = added;
+        this.removed = removed;
+    }
+
+    // Getters and Setters
+    public int getAdded() { return added; }
+    public void setAdded(int added) { this.added = added; }
+    public int getRemoved() { return removed; }
+    public void setRemoved(int removed) { this.removed = removed; }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+public class WishlistMembershipDTO {
+    private int size;
+    // Base64 of a little-endian bitset: bit i is set when the i-th requested id is wishlisted
+    private String bits;
+
+    public WishlistMembershipDTO() {
+    }
+
+    public WishlistMembershipDTO(int size, String bits) {
+        this.size = size;
+        this.bits = bits;
+    }
+
+    // Getters and Setters
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+    public String getBits() { return bits; }
+    public void setBits(String bits) { this.bits = bits; }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Time-limited claim on a scheduled job shared by every instance, so a job firing on all of them
+ * runs on one. A lease that isn't renewed before it expires can be taken over by another instance.
+ */
+@Entity
+@Table(name = "job_leases")
+public class JobLease {
+
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    // Random id of the instance holding the lease
+    @Column(name = "owner", length = 36, nullable = false)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false, columnDefinition = "DATETIME(6) NOT NULL")
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public JobLease() {}
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message for one user, e.g. that an item on their wishlist got cheaper. Rows are written in
+ * batches by the notification dispatcher and read newest first.
+ */
+@Entity
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_id", columnList = "user_id, id")
+})
+public class Notification {
+
+    public enum NotificationType {
+        PRICE_DROP
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 32)
+    private NotificationType type;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // Price before the first and after the last of the changes coalesced into this notification
+    @Column(name = "old_price", nullable = false)
+    private Double oldPrice;
+
+    @Column(name = "new_price", nullable = false)
+    private Double newPrice;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "DATETIME(6) NOT NULL")
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public Notification() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public NotificationType getType() { return type; }
+    public void setType(NotificationType type) { this.type = type; }
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public Double getOldPrice() { return oldPrice; }
+    public void setOldPrice(Double oldPrice) { this.oldPrice = oldPrice; }
+    public Double getNewPrice() { return newPrice; }
+    public void setNewPrice(Double newPrice) { this.newPrice = newPrice; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -5,7 +5,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_seller_date", columnList = "seller_id, order_date, id"),
+        @Index(name = "idx_orders_seller_status_date", columnList = "seller_id, status, order_date, id"),
+        @Index(name = "idx_orders_status_date", columnList = "status, order_date")
+})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,6 +23,10 @@ public class Order {
     @JoinColumn(name = "buyer_id", nullable = false)
     private User buyer;
 
+    // Copy of the product's seller, so a seller's orders are one index range in date order
+    @Column(name = "seller_id")
+    private Long sellerId;
+
     @Column(nullable = false)
     private LocalDateTime orderDate;
 
@@ -46,6 +54,8 @@ public class Order {
     public void setProduct(Product product) { this.product = product; }
     public User getBuyer() { return buyer; }
     public void setBuyer(User buyer) { this.buyer = buyer; }
+    public Long getSellerId() { return sellerId; }
+    public void setSellerId(Long sellerId) { this.sellerId = sellerId; }
     public LocalDateTime getOrderDate() { return orderDate; }
     public void setOrderDate(LocalDateTime orderDate) { this.orderDate = orderDate; }
     public OrderStatus getStatus() { return status; }
@@ -53,6 +63,23 @@ public class Order {
 
     // Enum definition
     public enum OrderStatus {
-        PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED
+        PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED;
+
+        // The order state machine; every event in the order log is checked against it
+        public boolean canMoveTo(OrderStatus newStatus) {
+            switch (this) {
+                case PENDING:
+                    return newStatus == CONFIRMED || newStatus == CANCELLED;
+                case CONFIRMED:
+                    return newStatus == SHIPPED || newStatus == CANCELLED;
+                case SHIPPED:
+                    return newStatus == DELIVERED;
+                case DELIVERED:
+                case CANCELLED:
+                    return false; // No transitions allowed from DELIVERED or CANCELLED
+                default:
+                    return false;
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.demo.entity;
+
+import com.example.demo.entity.Order.OrderStatus;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One status change of an order. Rows are inserted in the transaction that changes
+ * {@code orders.status}, and the order's status column is the projection of its latest event.
+ * The id follows insert order; {@code seq} is given out once the row is committed, so it follows
+ * commit order and is what the event feed is tailed by.
+ */
+@Entity
+@Table(name = "order_events", indexes = {
+        @Index(name = "idx_order_events_order_id", columnList = "order_id, id"),
+        @Index(name = "idx_order_events_buyer_id", columnList = "buyer_id, id"),
+        @Index(name = "idx_order_events_seller_id", columnList = "seller_id, id"),
+        @Index(name = "idx_order_events_seq", columnList = "seq"),
+        @Index(name = "idx_order_events_buyer_seq", columnList = "buyer_id, seq"),
+        @Index(name = "idx_order_events_seller_seq", columnList = "seller_id, seq")
+})
+public class OrderEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    // Copied from the order and its product so each party's feed is a single index range
+    @Column(name = "buyer_id", nullable = false)
+    private Long buyerId;
+
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+
+    // Null for the event that creates the order
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status")
+    private OrderStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", nullable = false)
+    private OrderStatus toStatus;
+
+    // Email of the user who made the change, or null for events reconstructed from older orders
+    private String actor;
+
+    @Column(name = "occurred_at", nullable = false, columnDefinition = "DATETIME(6) NOT NULL")
+    private LocalDateTime occurredAt;
+
+    // Null until the sequencer numbers the committed row
+    @Column(name = "seq")
+    private Long sequence;
+
+    // Constructors
+    public OrderEvent() {}
+
+    public OrderEvent(Long orderId, Long buyerId, Long sellerId, OrderStatus fromStatus, OrderStatus toStatus, String actor) {
+        this.orderId = orderId;
+        this.buyerId = buyerId;
+        this.sellerId = sellerId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.actor = actor;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public Long getBuyerId() { return buyerId; }
+    public void setBuyerId(Long buyerId) { this.buyerId = buyerId; }
+    public Long getSellerId() { return sellerId; }
+    public void setSellerId(Long sellerId) { this.sellerId = sellerId; }
+    public OrderStatus getFromStatus() { return fromStatus; }
+    public void setFromStatus(OrderStatus fromStatus) { this.fromStatus = fromStatus; }
+    public OrderStatus getToStatus() { return toStatus; }
+    public void setToStatus(OrderStatus toStatus) { this.toStatus = toStatus; }
+    public String getActor() { return actor; }
+    public void setActor(String actor) { this.actor = actor; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Single-row counter of the last sequence number given to an order event. Locking the row
+ * serializes the numbering across instances.
+ */
+@Entity
+@Table(name = "order_event_sequence")
+public class OrderEventSequence {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+
+    // Constructors
+    public OrderEventSequence() {}
+
+    // Getters and Setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public long getLastSequence() { return lastSequence; }
+    public void setLastSequence(long lastSequence) { this.lastSequence = lastSequence; }
+}
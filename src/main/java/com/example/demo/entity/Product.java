@@ -3,11 +3,22 @@ package com.example.demo.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_products_category_created_id", columnList = "category, created_at, id")
+})
 public class Product {
+    // Ids handed out per generator round trip; larger blocks mean fewer updates of id_generators
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled table ids instead of IDENTITY, so Hibernate knows ids before insert and can batch the INSERTs
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_ids")
+    @TableGenerator(name = "product_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "products", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -28,9 +39,51 @@ public class Product {
     @JsonIgnore
     private User seller;
 
-    @Lob
-    @Column(name = "image")
-    private byte[] image;
+    // SHA-256 key of the image in the ImageStore; the bytes never live in this table
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
+    @Column(name = "image_content_type", length = 32)
+    private String imageContentType;
+
+    // Generated JPEG renditions of the image, filled in asynchronously after upload
+    @Column(name = "thumbnail_hash", length = 64)
+    private String thumbnailHash;
+
+    @Column(name = "detail_hash", length = 64)
+    private String detailHash;
+
+    @Column(name = "full_hash", length = 64)
+    private String fullHash;
+
+    // Catalog sort key; the column default backfills rows created before it existed
+    @Column(name = "created_at", updatable = false, columnDefinition = "DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) NOT NULL")
+    private LocalDateTime createdAt;
+
+    // Optimistic-lock version, bumped on every update; with updatedAt it backs the ETag and Last-Modified of reads
+    @Version
+    @Column(name = "version", columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private long version;
+
+    @Column(name = "updated_at", columnDefinition = "DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) NOT NULL")
+    private LocalDateTime updatedAt;
+
+    // Cleared while an order that isn't cancelled holds the item; only changed through conditional UPDATEs
+    @Column(name = "available", columnDefinition = "BOOLEAN DEFAULT TRUE NOT NULL")
+    private boolean available = true;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
 
     // Getters and setters
     public Long getId() {
@@ -89,11 +142,75 @@ public class Product {
         this.seller = seller;
     }
 
-    public byte[] getImage() {
-        return image;
+    public String getImageHash() {
+        return imageHash;
+    }
+
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
+    }
+
+    public String getImageContentType() {
+        return imageContentType;
+    }
+
+    public void setImageContentType(String imageContentType) {
+        this.imageContentType = imageContentType;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    public String getThumbnailHash() {
+        return thumbnailHash;
+    }
+
+    public void setThumbnailHash(String thumbnailHash) {
+        this.thumbnailHash = thumbnailHash;
+    }
+
+    public String getDetailHash() {
+        return detailHash;
+    }
+
+    public void setDetailHash(String detailHash) {
+        this.detailHash = detailHash;
+    }
+
+    public String getFullHash() {
+        return fullHash;
     }
 
-    public void setImage(byte[] image) {
-        this.image = image;
+    public void setFullHash(String fullHash) {
+        this.fullHash = fullHash;
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Popularity counters of one product, flushed in batches by the trending engine. The score is
+ * time-decayed and only meaningful together with the time it was computed at.
+ */
+@Entity
+@Table(name = "product_popularity", indexes = {
+        @Index(name = "idx_product_popularity_scored_at", columnList = "scored_at")
+})
+public class ProductPopularity {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "view_count", nullable = false)
+    private long viewCount;
+
+    // Net of removals
+    @Column(name = "wishlist_count", nullable = false)
+    private long wishlistCount;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "score", nullable = false)
+    private double score;
+
+    @Column(name = "scored_at", nullable = false, columnDefinition = "DATETIME(6) NOT NULL")
+    private LocalDateTime scoredAt;
+
+    // Constructors
+    public ProductPopularity() {}
+
+    // Getters and Setters
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public long getViewCount() { return viewCount; }
+    public void setViewCount(long viewCount) { this.viewCount = viewCount; }
+    public long getWishlistCount() { return wishlistCount; }
+    public void setWishlistCount(long wishlistCount) { this.wishlistCount = wishlistCount; }
+    public long getReviewCount() { return reviewCount; }
+    public void setReviewCount(long reviewCount) { this.reviewCount = reviewCount; }
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+    public LocalDateTime getScoredAt() { return scoredAt; }
+    public void setScoredAt(LocalDateTime scoredAt) { this.scoredAt = scoredAt; }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running rating totals of one product, kept up to date as reviews are written so that the
+ * average and distribution never require aggregating the reviews table.
+ */
+@Entity
+@Table(name = "product_rating_summaries")
+public class ProductRatingSummary {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "rating_1", nullable = false)
+    private long rating1;
+
+    @Column(name = "rating_2", nullable = false)
+    private long rating2;
+
+    @Column(name = "rating_3", nullable = false)
+    private long rating3;
+
+    @Column(name = "rating_4", nullable = false)
+    private long rating4;
+
+    @Column(name = "rating_5", nullable = false)
+    private long rating5;
+
+    @Column(name = "updated_at", columnDefinition = "DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) NOT NULL")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public ProductRatingSummary() {}
+
+    public Double getAverage() {
+        return reviewCount > 0 ? (double) ratingSum / reviewCount : null;
+    }
+
+    // Review counts for ratings 1 to 5, in that order
+    public long[] getHistogram() {
+        return new long[] {rating1, rating2, rating3, rating4, rating5};
+    }
+
+    // Getters and Setters
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public long getReviewCount() { return reviewCount; }
+    public void setReviewCount(long reviewCount) { this.reviewCount = reviewCount; }
+    public long getRatingSum() { return ratingSum; }
+    public void setRatingSum(long ratingSum) { this.ratingSum = ratingSum; }
+    public long getRating1() { return rating1; }
+    public void setRating1(long rating1) { this.rating1 = rating1; }
+    public long getRating2() { return rating2; }
+    public void setRating2(long rating2) { this.rating2 = rating2; }
+    public long getRating3() { return rating3; }
+    public void setRating3(long rating3) { this.rating3 = rating3; }
+    public long getRating4() { return rating4; }
+    public void setRating4(long rating4) { this.rating4 = rating4; }
+    public long getRating5() { return rating5; }
+    public void setRating5(long rating5) { this.rating5 = rating5; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
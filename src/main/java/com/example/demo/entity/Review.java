@@ -2,8 +2,12 @@ package com.example.demo.entity;
 
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_product_id", columnList = "product_id, id")
+})
 public class Review {
 
     @Id
@@ -23,6 +27,19 @@ public class Review {
     @Column(columnDefinition = "TEXT")
     private String comment;
 
+    @Version
+    @Column(name = "version", columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private long version;
+
+    @Column(name = "updated_at", columnDefinition = "DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) NOT NULL")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
     // Constructors
     public Review() {}
 
@@ -44,4 +61,8 @@ public class Review {
     public void setRating(int rating) { this.rating = rating; }
     public String getComment() { return comment; }
     public void setComment(String comment) { this.comment = comment; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 }
\ No newline at end of file
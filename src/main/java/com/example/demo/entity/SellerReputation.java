@@ -0,0 +1,77 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trust rollup of one seller across everything they sold, maintained by the reputation worker so
+ * that reading it never joins reviews and orders back to the seller's products.
+ */
+@Entity
+@Table(name = "seller_reputations")
+public class SellerReputation {
+
+    @Id
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "completed_sales", nullable = false)
+    private long completedSales;
+
+    @Column(name = "cancelled_orders", nullable = false)
+    private long cancelledOrders;
+
+    // Highest review and order event ids the last recompute read; queued events up to them are already counted
+    @Column(name = "review_watermark", columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private long reviewWatermark;
+
+    @Column(name = "order_event_watermark", columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private long orderEventWatermark;
+
+    // Moved by every write; part of the ETag of product details embedding the rollup
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "updated_at", columnDefinition = "DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) NOT NULL")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public SellerReputation() {}
+
+    public Double getAverageRating() {
+        return reviewCount > 0 ? (double) ratingSum / reviewCount : null;
+    }
+
+    // Share of closed orders that were cancelled rather than delivered
+    public Double getCancellationRate() {
+        long closed = completedSales + cancelledOrders;
+        return closed > 0 ? (double) cancelledOrders / closed : null;
+    }
+
+    // Getters and Setters
+    public Long getSellerId() { return sellerId; }
+    public void setSellerId(Long sellerId) { this.sellerId = sellerId; }
+    public long getReviewCount() { return reviewCount; }
+    public void setReviewCount(long reviewCount) { this.reviewCount = reviewCount; }
+    public long getRatingSum() { return ratingSum; }
+    public void setRatingSum(long ratingSum) { this.ratingSum = ratingSum; }
+    public long getCompletedSales() { return completedSales; }
+    public void setCompletedSales(long completedSales) { this.completedSales = completedSales; }
+    public long getCancelledOrders() { return cancelledOrders; }
+    public void setCancelledOrders(long cancelledOrders) { this.cancelledOrders = cancelledOrders; }
+    public long getReviewWatermark() { return reviewWatermark; }
+    public void setReviewWatermark(long reviewWatermark) { this.reviewWatermark = reviewWatermark; }
+    public long getOrderEventWatermark() { return orderEventWatermark; }
+    public void setOrderEventWatermark(long orderEventWatermark) { this.orderEventWatermark = orderEventWatermark; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
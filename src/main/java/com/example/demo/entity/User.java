@@ -1,10 +1,12 @@
 package com.example.demo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
@@ -28,6 +30,16 @@ public class User implements UserDetails {
 
     private String city;
 
+    // Server-managed: neither accepted from nor returned to clients
+    @Column(name = "enabled", columnDefinition = "BOOLEAN DEFAULT TRUE NOT NULL")
+    @JsonIgnore
+    private boolean enabled = true;
+
+    // Tokens issued before this instant are rejected, see TokenDenylist
+    @Column(name = "tokens_valid_after", columnDefinition = "DATETIME(6)")
+    @JsonIgnore
+    private LocalDateTime tokensValidAfter;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_USER"));
@@ -60,7 +72,7 @@ public class User implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return true;
+        return enabled;
     }
 
     // Getters and setters
@@ -107,4 +119,16 @@ public class User implements UserDetails {
     public void setCity(String city) {
         this.city = city;
     }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public LocalDateTime getTokensValidAfter() {
+        return tokensValidAfter;
+    }
+
+    public void setTokensValidAfter(LocalDateTime tokensValidAfter) {
+        this.tokensValidAfter = tokensValidAfter;
+    }
 }
\ No newline at end of file
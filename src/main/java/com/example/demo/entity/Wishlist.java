@@ -2,8 +2,12 @@ package com.example.demo.entity;
 
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
 @Entity
-@Table(name = "wishlists")
+@Table(name = "wishlists", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_wishlists_user_product", columnNames = {"user_id", "product_id"})
+})
 public class Wishlist {
 
     @Id
@@ -18,6 +22,19 @@ public class Wishlist {
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
+    @Version
+    @Column(name = "version", columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private long version;
+
+    @Column(name = "updated_at", columnDefinition = "DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) NOT NULL")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
     // Constructors
     public Wishlist() {}
 
@@ -33,4 +50,8 @@ public class Wishlist {
     public void setUser(User user) { this.user = user; }
     public Product getProduct() { return product; }
     public void setProduct(Product product) { this.product = product; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 }
\ No newline at end of file
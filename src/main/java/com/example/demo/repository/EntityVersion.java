@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version columns of a single row, enough to answer a conditional read without loading the entity.
+ */
+public interface EntityVersion {
+    Long getId();
+    long getVersion();
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,53 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Of instances racing for the same key only the one whose row is inserted gets a row count of 1
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO idempotency_keys (id, request_hash, created_at, expires_at) " +
+            "VALUES (:id, :requestHash, :now, :expiresAt)",
+            nativeQuery = true)
+    int claim(@Param("id") String id,
+              @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.contentType = :contentType, r.body = :body " +
+            "WHERE r.id = :id AND r.statusCode IS NULL")
+    int complete(@Param("id") String id,
+                 @Param("statusCode") int statusCode,
+                 @Param("contentType") String contentType,
+                 @Param("body") byte[] body);
+
+    // Gives the key back when the request failed in a way a retry may fix
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.statusCode IS NULL")
+    int release(@Param("id") String id);
+
+    // Frees a key whose response expired, or whose claim was left behind by an instance that died mid-request
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id " +
+            "AND (r.expiresAt < :now OR (r.statusCode IS NULL AND r.createdAt < :abandonedBefore))")
+    int deleteIfExpiredOrAbandoned(@Param("id") String id,
+                                   @Param("now") LocalDateTime now,
+                                   @Param("abandonedBefore") LocalDateTime abandonedBefore);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
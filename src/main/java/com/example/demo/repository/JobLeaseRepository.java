@@ -0,0 +1,37 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    // Of instances racing for a job that never ran only the one whose row is inserted gets a row count of 1
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO job_leases (name, owner, expires_at) VALUES (:name, :owner, :expiresAt)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name,
+                       @Param("owner") String owner,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Renews the owner's lease, or takes over one that expired
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.expiresAt = :expiresAt " +
+            "WHERE l.name = :name AND (l.owner = :owner OR l.expiresAt < :now)")
+    int acquire(@Param("name") String name,
+                @Param("owner") String owner,
+                @Param("now") LocalDateTime now,
+                @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLease l SET l.expiresAt = :now WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
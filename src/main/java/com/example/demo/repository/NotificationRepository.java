@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Notification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    // Newest first, older than the cursor
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.id < :beforeId ORDER BY n.id DESC")
+    List<Notification> findPageByUserId(@Param("userId") Long userId,
+                                        @Param("beforeId") long beforeId,
+                                        Pageable pageable);
+
+    List<Notification> findByUserIdOrderById(Long userId);
+}
@@ -0,0 +1,72 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Order.OrderStatus;
+import com.example.demo.entity.OrderEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    List<OrderEvent> findByOrderIdOrderById(Long orderId);
+
+    List<OrderEvent> findByOrderIdInAndToStatus(Collection<Long> orderIds, OrderStatus toStatus);
+
+    // Events numbered after the cursor, in commit order
+    @Query("SELECT e FROM OrderEvent e WHERE e.buyerId = :userId AND e.sequence > :afterSequence ORDER BY e.sequence")
+    List<OrderEvent> findBuyerEventsAfterSequence(@Param("userId") Long userId,
+                                                  @Param("afterSequence") long afterSequence,
+                                                  Pageable pageable);
+
+    @Query("SELECT e FROM OrderEvent e WHERE e.sellerId = :userId AND e.sequence > :afterSequence ORDER BY e.sequence")
+    List<OrderEvent> findSellerEventsAfterSequence(@Param("userId") Long userId,
+                                                   @Param("afterSequence") long afterSequence,
+                                                   Pageable pageable);
+
+    // Committed rows still waiting for a sequence number, oldest first
+    List<OrderEvent> findBySequenceIsNullOrderById(Pageable pageable);
+
+    // Orders closed up to event maxId, the snapshot a rebuild stamps on the rollups it writes
+    @Query("SELECT e.sellerId AS sellerId, " +
+            "SUM(CASE WHEN e.toStatus = :delivered THEN 1 ELSE 0 END) AS completedSales, " +
+            "SUM(CASE WHEN e.toStatus = :cancelled THEN 1 ELSE 0 END) AS cancelledOrders " +
+            "FROM OrderEvent e WHERE e.sellerId BETWEEN :fromId AND :toId AND e.id <= :maxId " +
+            "AND e.toStatus IN (:delivered, :cancelled) GROUP BY e.sellerId")
+    List<SellerOrderTotals> sumClosedOrdersBySeller(@Param("fromId") Long fromId,
+                                                    @Param("toId") Long toId,
+                                                    @Param("maxId") long maxId,
+                                                    @Param("delivered") OrderStatus delivered,
+                                                    @Param("cancelled") OrderStatus cancelled);
+
+    @Query("SELECT MAX(e.id) FROM OrderEvent e")
+    Long findMaxId();
+
+    // One creation event for each order placed before the log existed
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO order_events (order_id, buyer_id, seller_id, from_status, to_status, actor, occurred_at) " +
+            "SELECT o.id, o.buyer_id, p.user_id, NULL, o.status, NULL, o.order_date " +
+            "FROM orders o JOIN products p ON p.id = o.product_id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM order_events e WHERE e.order_id = o.id) ORDER BY o.id",
+            nativeQuery = true)
+    int backfillMissing();
+
+    // The same transition for a batch of orders, in the statement that follows their status UPDATE
+    @Modifying
+    @Query(value = "INSERT INTO order_events (order_id, buyer_id, seller_id, from_status, to_status, actor, occurred_at) " +
+            "SELECT o.id, o.buyer_id, o.seller_id, :fromStatus, :toStatus, :actor, :now " +
+            "FROM orders o WHERE o.id IN (:ids) ORDER BY o.id",
+            nativeQuery = true)
+    int logTransitions(@Param("ids") Collection<Long> ids,
+                       @Param("fromStatus") String fromStatus,
+                       @Param("toStatus") String toStatus,
+                       @Param("actor") String actor,
+                       @Param("now") LocalDateTime now);
+}
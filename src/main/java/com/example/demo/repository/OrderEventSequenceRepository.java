@@ -0,0 +1,23 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.OrderEventSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface OrderEventSequenceRepository extends JpaRepository<OrderEventSequence, Integer> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO order_event_sequence (id, last_sequence) VALUES (:id, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("id") int id);
+
+    // Held until the numbering transaction commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM OrderEventSequence s WHERE s.id = :id")
+    OrderEventSequence lockById(@Param("id") int id);
+}
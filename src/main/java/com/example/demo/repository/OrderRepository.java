@@ -1,11 +1,62 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Order;
+import com.example.demo.entity.Order.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     boolean existsByProduct_Id(Long productId);
     List<Order> findByBuyer_Id(Long buyerId);
+
+    // Keyset page over (orderDate DESC, id DESC) within idx_orders_seller_date or idx_orders_seller_status_date;
+    // product and buyer are joined by primary key in the same statement
+    @Query("SELECT o.id AS id, o.orderDate AS orderDate, o.status AS status, p.id AS productId, " +
+            "p.title AS productTitle, p.price AS productPrice, b.email AS buyerEmail, b.phone AS buyerPhone " +
+            "FROM Order o JOIN o.product p JOIN o.buyer b " +
+            "WHERE o.sellerId = :sellerId AND (:status IS NULL OR o.status = :status) " +
+            "AND (:afterOrderDate IS NULL OR o.orderDate < :afterOrderDate " +
+            "OR (o.orderDate = :afterOrderDate AND o.id < :afterId)) " +
+            "ORDER BY o.orderDate DESC, o.id DESC")
+    List<SellerOrderListing> findIncomingPage(@Param("sellerId") Long sellerId,
+                                              @Param("status") OrderStatus status,
+                                              @Param("afterOrderDate") LocalDateTime afterOrderDate,
+                                              @Param("afterId") Long afterId,
+                                              Pageable pageable);
+
+    // Orders placed before seller_id existed
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.sellerId = (SELECT p.seller.id FROM Product p WHERE p.id = o.product.id) " +
+            "WHERE o.sellerId IS NULL")
+    int backfillSellerIds();
+
+    // Locks a batch of pending orders placed before the cutoff, oldest first; rows another node has already
+    // locked are skipped instead of waited on, so concurrent expiry runs claim disjoint batches
+    @Query(value = "SELECT id FROM orders WHERE status = 'PENDING' AND order_date < :cutoff " +
+            "ORDER BY order_date, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockExpiredPendingIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :toStatus WHERE o.id IN :ids AND o.status = :fromStatus")
+    int updateStatuses(@Param("ids") Collection<Long> ids,
+                       @Param("fromStatus") OrderStatus fromStatus,
+                       @Param("toStatus") OrderStatus toStatus);
+
+    @Query("SELECT o.product.id FROM Order o WHERE o.id IN :ids")
+    List<Long> findProductIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Compare-and-set on the status, so two concurrent changes can't both log a move from the same status
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :toStatus WHERE o.id = :id AND o.status = :fromStatus")
+    int updateStatus(@Param("id") Long id, @Param("fromStatus") OrderStatus fromStatus, @Param("toStatus") OrderStatus toStatus);
 }
\ No newline at end of file
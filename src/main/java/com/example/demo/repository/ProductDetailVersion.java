@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+/**
+ * Version of a product detail payload: the product's own version plus that of the seller
+ * reputation embedded in it.
+ */
+public interface ProductDetailVersion extends EntityVersion {
+    long getReputationVersion();
+}
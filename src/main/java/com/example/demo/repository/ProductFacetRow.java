@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+/**
+ * Facet columns of a product, loaded to build the facet index.
+ */
+public interface ProductFacetRow {
+    Long getId();
+    String getCategory();
+    String getItemCondition();
+    Double getPrice();
+    boolean isAvailable();
+}
@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+/**
+ * Projection of the image columns of a product, used to serve images without loading the product.
+ */
+public interface ProductImageRef {
+    String getImageHash();
+    String getImageContentType();
+    String getThumbnailHash();
+    String getDetailHash();
+    String getFullHash();
+}
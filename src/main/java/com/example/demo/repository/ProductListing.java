@@ -0,0 +1,21 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Listing columns of a product plus its seller's email, selected in a single query without
+ * loading Product or User entities. Carries the version columns too, so a page can be tagged
+ * from the rows it returns.
+ */
+public interface ProductListing extends EntityVersion {
+    Long getId();
+    String getTitle();
+    String getDescription();
+    Double getPrice();
+    String getCategory();
+    String getItemCondition();
+    String getSellerEmail();
+    String getImageHash();
+    String getThumbnailHash();
+    LocalDateTime getCreatedAt();
+}
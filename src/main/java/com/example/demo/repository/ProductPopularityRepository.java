@@ -0,0 +1,17 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ProductPopularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProductPopularityRepository extends JpaRepository<ProductPopularity, Long> {
+
+    // Rows of deleted products drop out with the join
+    @Query("SELECT pp.productId AS productId, p.category AS category, pp.score AS score, pp.scoredAt AS scoredAt " +
+            "FROM ProductPopularity pp JOIN Product p ON p.id = pp.productId WHERE pp.scoredAt >= :since")
+    List<ProductPopularityRow> findScoredSince(@Param("since") LocalDateTime since);
+}
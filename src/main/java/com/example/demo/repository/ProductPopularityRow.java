@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted score of a product with its category, loaded to rebuild the trending rankings.
+ */
+public interface ProductPopularityRow {
+    Long getProductId();
+    String getCategory();
+    double getScore();
+    LocalDateTime getScoredAt();
+}
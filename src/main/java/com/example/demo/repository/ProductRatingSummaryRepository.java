@@ -0,0 +1,47 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ProductRatingSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface ProductRatingSummaryRepository extends JpaRepository<ProductRatingSummary, Long> {
+
+    // Single-statement upsert: the row lock it takes serializes concurrent reviews of the same product
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_summaries " +
+            "(product_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+            "VALUES (:productId, 1, :rating, :r1, :r2, :r3, :r4, :r5, :now) " +
+            "ON DUPLICATE KEY UPDATE review_count = review_count + 1, rating_sum = rating_sum + :rating, " +
+            "rating_1 = rating_1 + :r1, rating_2 = rating_2 + :r2, rating_3 = rating_3 + :r3, " +
+            "rating_4 = rating_4 + :r4, rating_5 = rating_5 + :r5, updated_at = :now",
+            nativeQuery = true)
+    void addRating(@Param("productId") Long productId,
+                   @Param("rating") int rating,
+                   @Param("r1") int r1,
+                   @Param("r2") int r2,
+                   @Param("r3") int r3,
+                   @Param("r4") int r4,
+                   @Param("r5") int r5,
+                   @Param("now") LocalDateTime now);
+
+    // Creates the missing summaries of products reviewed before this table existed; IGNORE skips
+    // summaries a concurrent first review created in the meantime
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO product_rating_summaries " +
+            "(product_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+            "SELECT r.product_id, COUNT(*), SUM(r.rating), " +
+            "SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END), :now " +
+            "FROM reviews r WHERE NOT EXISTS " +
+            "(SELECT 1 FROM product_rating_summaries s WHERE s.product_id = r.product_id) " +
+            "GROUP BY r.product_id",
+            nativeQuery = true)
+    int backfillMissing(@Param("now") LocalDateTime now);
+}
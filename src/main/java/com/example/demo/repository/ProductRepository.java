@@ -1,10 +1,157 @@
 package com.example.demo.repository;
 
+import com.example.demo.entity.Order.OrderStatus;
 import com.example.demo.entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    // Select list shared by the listing projections; aliases match the ProductListing getters
+    String LISTING_COLUMNS = "p.id AS id, p.title AS title, p.description AS description, p.price AS price, " +
+            "p.category AS category, p.itemCondition AS itemCondition, s.email AS sellerEmail, " +
+            "p.imageHash AS imageHash, p.thumbnailHash AS thumbnailHash, p.createdAt AS createdAt, " +
+            "p.version AS version, p.updatedAt AS updatedAt";
+
+    // Keyset page over (createdAt DESC, id DESC); a null cursor starts from the newest product
+    String CATALOG_PAGE = "WHERE (:category IS NULL OR p.category = :category) " +
+            "AND (:itemCondition IS NULL OR p.itemCondition = :itemCondition) " +
+            "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+            "AND (:afterCreatedAt IS NULL OR p.createdAt < :afterCreatedAt " +
+            "OR (p.createdAt = :afterCreatedAt AND p.id < :afterId)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC";
+
+    String VERSION_COLUMNS = "p.id AS id, p.version AS version, p.updatedAt AS updatedAt";
+
     List<Product> findBySeller_Id(Long sellerId);
-}
\ No newline at end of file
+
+    @Query("SELECT " + LISTING_COLUMNS + " FROM Product p JOIN p.seller s " + CATALOG_PAGE)
+    List<ProductListing> findCatalogPage(@Param("category") String category,
+                                         @Param("itemCondition") String itemCondition,
+                                         @Param("minPrice") Double minPrice,
+                                         @Param("maxPrice") Double maxPrice,
+                                         @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+
+    // Same rows as findCatalogPage, reading only the version columns to revalidate a cached page
+    @Query("SELECT " + VERSION_COLUMNS + " FROM Product p " + CATALOG_PAGE)
+    List<EntityVersion> findCatalogPageVersions(@Param("category") String category,
+                                                @Param("itemCondition") String itemCondition,
+                                                @Param("minPrice") Double minPrice,
+                                                @Param("maxPrice") Double maxPrice,
+                                                @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                @Param("afterId") Long afterId,
+                                                Pageable pageable);
+
+    @Query("SELECT " + LISTING_COLUMNS + " FROM Product p JOIN p.seller s " +
+            "WHERE s.email = :email ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductListing> findListingsBySellerEmail(@Param("email") String email);
+
+    @Query("SELECT " + LISTING_COLUMNS + " FROM Product p JOIN p.seller s WHERE p.id IN :ids")
+    List<ProductListing> findListingsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.seller WHERE p.id = :id")
+    Optional<Product> findWithSellerById(@Param("id") Long id);
+
+    Optional<ProductImageRef> findImageRefById(Long id);
+
+    @Query("SELECT " + VERSION_COLUMNS + " FROM Product p WHERE p.id = :id")
+    Optional<EntityVersion> findVersionById(@Param("id") Long id);
+
+    // The seller's reputation joins on the seller id without loading the seller
+    @Query("SELECT " + VERSION_COLUMNS + ", COALESCE(r.version, 0) AS reputationVersion FROM Product p " +
+            "LEFT JOIN SellerReputation r ON r.sellerId = p.seller.id WHERE p.id = :id")
+    Optional<ProductDetailVersion> findDetailVersionById(@Param("id") Long id);
+
+    @Query("SELECT p.seller.id FROM Product p WHERE p.id = :id")
+    Optional<Long> findSellerIdById(@Param("id") Long id);
+
+    @Query("SELECT p.id FROM Product p WHERE p.seller.id = :sellerId")
+    List<Long> findIdsBySellerId(@Param("sellerId") Long sellerId);
+
+    @Query("SELECT MIN(p.id) FROM Product p")
+    Long findMinId();
+
+    @Query("SELECT MAX(p.id) FROM Product p")
+    Long findMaxId();
+
+    @Query("SELECT p.id AS id, p.title AS title, p.description AS description, p.category AS category " +
+            "FROM Product p WHERE p.id BETWEEN :fromId AND :toId")
+    List<ProductSearchDocument> findSearchDocuments(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT p.id AS id, p.category AS category, p.itemCondition AS itemCondition, p.price AS price, " +
+            "p.available AS available " +
+            "FROM Product p WHERE p.id BETWEEN :fromId AND :toId")
+    List<ProductFacetRow> findFacetRows(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT p.id AS id, p.category AS category, p.itemCondition AS itemCondition, p.price AS price, " +
+            "p.available AS available " +
+            "FROM Product p WHERE p.id IN :ids")
+    List<ProductFacetRow> findFacetRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Rows are pulled from the driver in fetch-size batches; the caller must consume the stream inside a transaction
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT p FROM Product p JOIN FETCH p.seller ORDER BY p.id")
+    Stream<Product> streamAllWithSeller();
+
+    // Marks a change to data embedded in the product detail payload so its ETag moves on
+    @Modifying
+    @Query("UPDATE Product p SET p.version = p.version + 1, p.updatedAt = LOCAL_DATETIME WHERE p.id = :id")
+    int touch(@Param("id") Long id);
+
+    // Of concurrent buyers only the one whose UPDATE still finds the item available gets a row count of 1
+    @Modifying
+    @Query("UPDATE Product p SET p.available = false, p.version = p.version + 1, p.updatedAt = LOCAL_DATETIME " +
+            "WHERE p.id = :id AND p.available = true")
+    int reserve(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.available = true, p.version = p.version + 1, p.updatedAt = LOCAL_DATETIME " +
+            "WHERE p.id = :id AND p.available = false")
+    int release(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.available = true, p.version = p.version + 1, p.updatedAt = LOCAL_DATETIME " +
+            "WHERE p.id IN :ids AND p.available = false")
+    int releaseAll(@Param("ids") Collection<Long> ids);
+
+    // Compare-and-set on the price, so two concurrent edits can't both report the same old price
+    @Modifying
+    @Query("UPDATE Product p SET p.price = :price, p.version = p.version + 1, p.updatedAt = LOCAL_DATETIME " +
+            "WHERE p.id = :id AND p.price = :expected")
+    int updatePrice(@Param("id") Long id, @Param("expected") Double expected, @Param("price") Double price);
+
+    // Products held by orders placed before the available column existed
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.available = false, p.version = p.version + 1, p.updatedAt = LOCAL_DATETIME " +
+            "WHERE p.available = true AND EXISTS (SELECT o.id FROM Order o WHERE o.product = p AND o.status <> :cancelled)")
+    int markHeldByOrders(@Param("cancelled") OrderStatus cancelled);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.thumbnailHash = :thumbnailHash, p.detailHash = :detailHash, p.fullHash = :fullHash, " +
+            "p.version = p.version + 1, p.updatedAt = LOCAL_DATETIME WHERE p.id = :id AND p.imageHash = :imageHash")
+    int updateImageVariants(@Param("id") Long id,
+                            @Param("imageHash") String imageHash,
+                            @Param("thumbnailHash") String thumbnailHash,
+                            @Param("detailHash") String detailHash,
+                            @Param("fullHash") String fullHash);
+}
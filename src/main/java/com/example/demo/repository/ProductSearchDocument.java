@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+/**
+ * Text columns of a product fed into the in-memory search index.
+ */
+public interface ProductSearchDocument {
+    Long getId();
+    String getTitle();
+    String getDescription();
+    String getCategory();
+}
@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+/**
+ * Review columns shown on a product page, selected without loading the Review or its Product.
+ * Carries the version columns too, so a page can be tagged from the rows it returns.
+ */
+public interface ReviewListing extends EntityVersion {
+    Long getId();
+    Long getProductId();
+    String getReviewerEmail();
+    int getRating();
+    String getComment();
+}
@@ -1,7 +1,40 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
-}
\ No newline at end of file
+
+    // Newest first, walking idx_reviews_product_id; a null afterId starts from the newest review
+    @Query("SELECT r.id AS id, r.product.id AS productId, r.reviewerEmail AS reviewerEmail, " +
+            "r.rating AS rating, r.comment AS comment, r.version AS version, r.updatedAt AS updatedAt " +
+            "FROM Review r WHERE r.product.id = :productId AND (:afterId IS NULL OR r.id < :afterId) " +
+            "ORDER BY r.id DESC")
+    List<ReviewListing> findPageByProductId(@Param("productId") Long productId,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+
+    // Same rows as findPageByProductId, reading only the version columns to revalidate a cached page
+    @Query("SELECT r.id AS id, r.version AS version, r.updatedAt AS updatedAt FROM Review r " +
+            "WHERE r.product.id = :productId AND (:afterId IS NULL OR r.id < :afterId) " +
+            "ORDER BY r.id DESC")
+    List<EntityVersion> findPageVersionsByProductId(@Param("productId") Long productId,
+                                                    @Param("afterId") Long afterId,
+                                                    Pageable pageable);
+
+    // Reviews up to maxId only, the snapshot a rebuild stamps on the rollups it writes
+    @Query("SELECT p.seller.id AS sellerId, COUNT(r) AS reviewCount, SUM(r.rating) AS ratingSum " +
+            "FROM Review r JOIN r.product p WHERE p.seller.id BETWEEN :fromId AND :toId AND r.id <= :maxId " +
+            "GROUP BY p.seller.id")
+    List<SellerRatingTotals> sumRatingsBySeller(@Param("fromId") Long fromId,
+                                                @Param("toId") Long toId,
+                                                @Param("maxId") long maxId);
+
+    @Query("SELECT MAX(r.id) FROM Review r")
+    Long findMaxId();
+}
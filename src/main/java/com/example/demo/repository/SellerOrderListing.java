@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Order.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order on one of the seller's products with the product title and buyer contact, selected in
+ * a single query without loading Order, Product or User entities.
+ */
+public interface SellerOrderListing {
+    Long getId();
+    LocalDateTime getOrderDate();
+    OrderStatus getStatus();
+    Long getProductId();
+    String getProductTitle();
+    Double getProductPrice();
+    String getBuyerEmail();
+    String getBuyerPhone();
+}
@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+public interface SellerOrderTotals {
+    Long getSellerId();
+    long getCompletedSales();
+    long getCancelledOrders();
+}
@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+public interface SellerRatingTotals {
+    Long getSellerId();
+    long getReviewCount();
+    long getRatingSum();
+}
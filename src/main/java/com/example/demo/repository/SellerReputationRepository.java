@@ -0,0 +1,66 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SellerReputation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface SellerReputationRepository extends JpaRepository<SellerReputation, Long> {
+
+    String COLUMNS = "(seller_id, review_count, rating_sum, completed_sales, cancelled_orders, version, updated_at) ";
+
+    // Adds a coalesced batch of events to the seller's rollup, creating it on the first one
+    @Modifying
+    @Query(value = "INSERT INTO seller_reputations " + COLUMNS +
+            "VALUES (:sellerId, :reviews, :ratingSum, :completed, :cancelled, 1, :now) " +
+            "ON DUPLICATE KEY UPDATE review_count = review_count + :reviews, rating_sum = rating_sum + :ratingSum, " +
+            "completed_sales = completed_sales + :completed, cancelled_orders = cancelled_orders + :cancelled, " +
+            "version = version + 1, updated_at = :now",
+            nativeQuery = true)
+    void addTotals(@Param("sellerId") Long sellerId,
+                   @Param("reviews") long reviews,
+                   @Param("ratingSum") long ratingSum,
+                   @Param("completed") long completed,
+                   @Param("cancelled") long cancelled,
+                   @Param("now") LocalDateTime now);
+
+    // Overwrites the rollup with totals recomputed from source rows up to the given ids
+    @Modifying
+    @Query(value = "INSERT INTO seller_reputations " +
+            "(seller_id, review_count, rating_sum, completed_sales, cancelled_orders, " +
+            "review_watermark, order_event_watermark, version, updated_at) " +
+            "VALUES (:sellerId, :reviews, :ratingSum, :completed, :cancelled, :reviewMark, :orderEventMark, 1, :now) " +
+            "ON DUPLICATE KEY UPDATE review_count = :reviews, rating_sum = :ratingSum, " +
+            "completed_sales = :completed, cancelled_orders = :cancelled, " +
+            "review_watermark = :reviewMark, order_event_watermark = :orderEventMark, " +
+            "version = version + 1, updated_at = :now",
+            nativeQuery = true)
+    void replaceTotals(@Param("sellerId") Long sellerId,
+                       @Param("reviews") long reviews,
+                       @Param("ratingSum") long ratingSum,
+                       @Param("completed") long completed,
+                       @Param("cancelled") long cancelled,
+                       @Param("reviewMark") long reviewMark,
+                       @Param("orderEventMark") long orderEventMark,
+                       @Param("now") LocalDateTime now);
+
+    // An empty rollup to lock, for a seller whose first events are being applied
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO seller_reputations " + COLUMNS + "VALUES (:sellerId, 0, 0, 0, 0, 0, :now)",
+            nativeQuery = true)
+    void insertEmpty(@Param("sellerId") Long sellerId, @Param("now") LocalDateTime now);
+
+    // Held until the flush commits, so a rebuild replacing these rollups waits for it or is seen by it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM SellerReputation r WHERE r.sellerId IN (:sellerIds)")
+    List<SellerReputation> lockBySellerIdIn(@Param("sellerIds") Collection<Long> sellerIds);
+
+    List<SellerReputation> findBySellerIdBetween(Long fromId, Long toId);
+}
@@ -2,8 +2,34 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    @Query("SELECT u.id FROM User u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+
+    // Cut-offs older than the token lifetime can't match a live token, so they are left out
+    @Query("SELECT u.id AS id, u.enabled AS enabled, u.tokensValidAfter AS tokensValidAfter FROM User u " +
+           "WHERE u.enabled = false OR u.tokensValidAfter > :since")
+    List<UserRevocation> findRevocations(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.tokensValidAfter = :validAfter WHERE u.id = :id")
+    int revokeTokens(@Param("id") Long id, @Param("validAfter") LocalDateTime validAfter);
+
+    @Query("SELECT MIN(u.id) FROM User u")
+    Long findMinId();
+
+    @Query("SELECT MAX(u.id) FROM User u")
+    Long findMaxId();
 }
\ No newline at end of file
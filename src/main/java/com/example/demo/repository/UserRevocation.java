@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * A disabled account, or one whose earlier tokens were revoked; used to build the token denylist.
+ */
+public interface UserRevocation {
+    Long getId();
+    Boolean getEnabled();
+    LocalDateTime getTokensValidAfter();
+}
@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+/**
+ * Aggregate version of a collection of rows. Adding or removing a row changes the count or the
+ * highest id, and updating one changes the version sum.
+ */
+public interface VersionSummary {
+    long getCount();
+    Long getMaxId();
+    Long getVersionSum();
+}
@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+/**
+ * Wishlist entry with the product columns shown in the wishlist, selected in a single query.
+ */
+public interface WishlistListing {
+    Long getId();
+    Long getProductId();
+    String getProductTitle();
+    Double getProductPrice();
+    String getProductCategory();
+}
@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+/**
+ * Who wishlisted what, without loading Wishlist entities; used to build the watcher index.
+ */
+public interface WishlistPair {
+    Long getUserId();
+    Long getProductId();
+}
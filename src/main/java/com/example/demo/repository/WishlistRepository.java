@@ -2,11 +2,58 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.Wishlist;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface WishlistRepository extends JpaRepository<Wishlist, Long> {
     List<Wishlist> findByUser_Id(Long userId);
-    boolean existsByUser_IdAndProduct_Id(Long userId, Long productId);
-    void deleteByUser_IdAndProduct_Id(Long userId, Long productId);
+
+    @Query("SELECT w.product.id FROM Wishlist w WHERE w.user.email = :email")
+    List<Long> findProductIdsByUserEmail(@Param("email") String email);
+
+    @Query("SELECT w.user.id AS userId, w.product.id AS productId FROM Wishlist w WHERE w.id BETWEEN :fromId AND :toId")
+    List<WishlistPair> findPairs(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT MIN(w.id) FROM Wishlist w")
+    Long findMinId();
+
+    @Query("SELECT MAX(w.id) FROM Wishlist w")
+    Long findMaxId();
+
+    @Query("SELECT w.id AS id, p.id AS productId, p.title AS productTitle, p.price AS productPrice, " +
+            "p.category AS productCategory FROM Wishlist w JOIN w.product p JOIN w.user u " +
+            "WHERE u.email = :email ORDER BY w.id DESC")
+    List<WishlistListing> findListingsByUserEmail(@Param("email") String email);
+
+    // Wishlist entries show product columns, so product updates count towards the version too
+    @Query("SELECT COUNT(w) AS count, MAX(w.id) AS maxId, SUM(w.version + p.version) AS versionSum " +
+            "FROM Wishlist w JOIN w.product p JOIN w.user u WHERE u.email = :email")
+    VersionSummary summarizeByUserEmail(@Param("email") String email);
+
+    // Resolves the user and the products in the same statement; pairs already wishlisted, and ids with no
+    // product, insert nothing, so the row count is the number of products actually added
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO wishlists (user_id, product_id, version, updated_at) " +
+            "SELECT u.id, p.id, 0, :now FROM users u JOIN products p ON p.id IN (:productIds) " +
+            "WHERE u.email = :email ORDER BY p.id",
+            nativeQuery = true)
+    int insertIgnoringDuplicates(@Param("email") String email,
+                                 @Param("productIds") Collection<Long> productIds,
+                                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM Wishlist w WHERE w.user.id = (SELECT u.id FROM User u WHERE u.email = :email) " +
+            "AND w.product.id IN :productIds")
+    int deleteByUserEmailAndProductIdIn(@Param("email") String email,
+                                        @Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM Wishlist w WHERE w.user.id = (SELECT u.id FROM User u WHERE u.email = :email)")
+    int deleteByUserEmail(@Param("email") String email);
 }
\ No newline at end of file
@@ -12,6 +12,8 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
 @Service
 public class AuthService {
 
@@ -29,6 +31,9 @@ public class AuthService {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
     public User register(User user) {
         logger.info("Registering user: {}", user.getEmail());
         user.setPassword(passwordEncoder.encode(user.getPassword()));
@@ -39,16 +44,24 @@ public class AuthService {
 
     public String login(String email, String password) throws AuthenticationException {
         logger.info("Authenticating user: {}", email);
-        authenticationManager.authenticate(
+        // The provider already loaded the user to check the password (and that the account is enabled)
+        User user = (User) authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(email, password)
-        );
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> {
-                    logger.warn("User not found: {}", email);
-                    return new RuntimeException("User not found");
-                });
+        ).getPrincipal();
         logger.info("Generating JWT for user: {}", email);
-        return jwtUtil.generateToken(user.getEmail(), user.getAuthorities());
+        return jwtUtil.generateToken(user.getId(), user.getEmail(), user.getAuthorities());
+    }
+
+    /**
+     * Invalidates every token issued to the user so far, on all nodes within one denylist refresh.
+     */
+    public void revokeTokens(String email) {
+        Long userId = userRepository.findIdByEmail(email)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        LocalDateTime now = LocalDateTime.now();
+        userRepository.revokeTokens(userId, now);
+        tokenDenylist.revoke(userId, now);
+        logger.info("Revoked tokens of user: {}", email);
     }
 
     public void hashExistingPasswords() {
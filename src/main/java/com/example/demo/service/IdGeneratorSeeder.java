@@ -0,0 +1,47 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Product;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Products used to take their ids from AUTO_INCREMENT. Before the web server starts, the pooled
+ * generator row is moved past the highest existing id so generated ids never collide with them.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdGeneratorSeeder {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorSeeder.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void seed() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM products", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        // One full block of headroom keeps this safe whether the stored value is read as the low or high end
+        long floor = maxId + Product.ID_ALLOCATION_SIZE + 1;
+        int updated = jdbcTemplate.update(
+                "UPDATE id_generators SET next_val = ? WHERE sequence_name = 'products' AND next_val < ?", floor, floor);
+        if (updated == 0) {
+            Integer rows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM id_generators WHERE sequence_name = 'products'", Integer.class);
+            if (rows == null || rows == 0) {
+                jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES ('products', ?)", floor);
+                updated = 1;
+            }
+        }
+        if (updated > 0) {
+            logger.info("Product id generator moved to {}", floor);
+        }
+    }
+}
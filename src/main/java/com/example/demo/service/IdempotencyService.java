@@ -0,0 +1,298 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.IdempotencyRecord;
+import com.example.demo.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key and answers its retries with the stored response.
+ *
+ * Completed responses are cached in memory until they expire and kept in the idempotency_keys
+ * table, so retries reaching another instance or arriving after a restart are answered too.
+ * Retries that race the first attempt on this instance wait for it instead of running again; on
+ * another instance they find the claimed row and are told the request is still in progress.
+ * Responses with a 5xx status are not kept, so the client's next retry runs the request again.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String KEY_REUSED = "Idempotency-Key was already used with a different request";
+    public static final String IN_PROGRESS = "A request with this Idempotency-Key is still in progress";
+    public static final String INVALID_KEY = "Idempotency-Key must be 1 to 255 characters";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, StoredResponse> completed;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Duration abandonedAfter;
+    private final long waitTimeoutMs;
+
+    private final Counter replayed;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.cache-max-bytes:16777216}") long cacheMaxBytes,
+                              @Value("${app.idempotency.abandoned-after-ms:60000}") long abandonedAfterMs,
+                              @Value("${app.idempotency.wait-timeout-ms:30000}") long waitTimeoutMs) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.abandonedAfter = Duration.ofMillis(abandonedAfterMs);
+        this.waitTimeoutMs = waitTimeoutMs;
+        // Each response lives as long as its row; one read back from the table has less time left
+        this.completed = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((String id, StoredResponse response) -> response.getBody().length)
+                .expireAfter(new Expiry<String, StoredResponse>() {
+                    @Override
+                    public long expireAfterCreate(String id, StoredResponse response, long currentTime) {
+                        return Math.max(0, Duration.between(LocalDateTime.now(), response.getExpiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String id, StoredResponse response, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, response, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String id, StoredResponse response, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency");
+        this.replayed = meterRegistry.counter("idempotency.replayed");
+    }
+
+    /**
+     * Runs the action unless a request with the same owner, endpoint and key already ran, and
+     * returns its response as stored bytes. A retry carrying a different request body fails with
+     * {@link #KEY_REUSED}; one arriving while the first attempt runs on another instance fails
+     * with {@link #IN_PROGRESS}.
+     */
+    public StoredResponse execute(String owner, String endpoint, String key, String requestHash,
+                                  Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > 255) {
+            throw new IllegalArgumentException(INVALID_KEY);
+        }
+        String id = fingerprint(owner, endpoint, key);
+        StoredResponse cached = completed.getIfPresent(id);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(id, execution);
+        if (running != null) {
+            // A retry racing the first attempt waits for its outcome rather than running again
+            return replay(await(running), requestHash);
+        }
+        try {
+            StoredResponse response = executeOnce(id, requestHash, action);
+            execution.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, execution);
+        }
+    }
+
+    private StoredResponse executeOnce(String id, String requestHash, Supplier<ResponseEntity<?>> action) {
+        LocalDateTime now = LocalDateTime.now();
+        repository.deleteIfExpiredOrAbandoned(id, now, now.minus(abandonedAfter));
+        if (repository.claim(id, requestHash, now, now.plus(ttl)) == 0) {
+            IdempotencyRecord record = repository.findById(id).orElse(null);
+            if (record == null || record.getStatusCode() == null) {
+                throw new IllegalStateException(IN_PROGRESS);
+            }
+            StoredResponse response = new StoredResponse(record.getStatusCode(), record.getContentType(),
+                    record.getBody() != null ? record.getBody() : new byte[0], record.getRequestHash(),
+                    record.getExpiresAt(), false);
+            completed.put(id, response);
+            return replay(response, requestHash);
+        }
+
+        ResponseEntity<?> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            repository.release(id);
+            throw e;
+        }
+        StoredResponse response = serialize(result, requestHash, now.plus(ttl));
+        if (result.getStatusCode().is5xxServerError()) {
+            repository.release(id);
+            return response;
+        }
+        repository.complete(id, response.getStatusCode(), response.getContentType(), response.getBody());
+        completed.put(id, response);
+        return response;
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(IN_PROGRESS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(IN_PROGRESS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private StoredResponse replay(StoredResponse response, String requestHash) {
+        if (!response.requestHash.equals(requestHash)) {
+            throw new IllegalArgumentException(KEY_REUSED);
+        }
+        replayed.increment();
+        return response.asReplay();
+    }
+
+    private StoredResponse serialize(ResponseEntity<?> result, String requestHash, LocalDateTime expiresAt) {
+        Object body = result.getBody();
+        MediaType contentType = result.getHeaders().getContentType();
+        byte[] bytes;
+        if (body == null) {
+            bytes = new byte[0];
+        } else if (body instanceof byte[]) {
+            bytes = (byte[]) body;
+        } else if (body instanceof String) {
+            bytes = ((String) body).getBytes(StandardCharsets.UTF_8);
+            if (contentType == null) {
+                contentType = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+            }
+        } else {
+            try {
+                bytes = objectMapper.writeValueAsBytes(body);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize response for idempotent replay", e);
+            }
+            if (contentType == null) {
+                contentType = MediaType.APPLICATION_JSON;
+            }
+        }
+        return new StoredResponse(result.getStatusCode().value(),
+                contentType != null ? contentType.toString() : null, bytes, requestHash, expiresAt, false);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    /**
+     * Hex SHA-256 of the parts, each terminated by a newline so that no two part lists collide.
+     */
+    public static String fingerprint(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Status, content type and body bytes of a response, replayed to retries exactly as first sent.
+     */
+    public static class StoredResponse {
+
+        private final int statusCode;
+        private final String contentType;
+        private final byte[] body;
+        private final String requestHash;
+        private final LocalDateTime expiresAt;
+        private final boolean replay;
+
+        StoredResponse(int statusCode, String contentType, byte[] body, String requestHash,
+                       LocalDateTime expiresAt, boolean replay) {
+            this.statusCode = statusCode;
+            this.contentType = contentType;
+            this.body = body;
+            this.requestHash = requestHash;
+            this.expiresAt = expiresAt;
+            this.replay = replay;
+        }
+
+        private StoredResponse asReplay() {
+            return new StoredResponse(statusCode, contentType, body, requestHash, expiresAt, true);
+        }
+
+        public ResponseEntity<byte[]> toResponseEntity() {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(statusCode)
+                    .header("Idempotent-Replayed", String.valueOf(replay));
+            if (contentType != null) {
+                builder.contentType(MediaType.parseMediaType(contentType));
+            }
+            return builder.body(body);
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public LocalDateTime getExpiresAt() {
+            return expiresAt;
+        }
+
+        public boolean isReplay() {
+            return replay;
+        }
+    }
+}
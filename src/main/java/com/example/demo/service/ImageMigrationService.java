@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import com.example.demo.util.ImageTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Moves images stored in the legacy products.image LOB column into the ImageStore, one chunk of
+ * rows at a time, and clears the column once the image is safely stored.
+ */
+@Service
+public class ImageMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageMigrationService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Value("${app.images.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.images.migration.chunk-size:100}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!enabled) {
+            logger.info("Legacy image migration disabled");
+            return;
+        }
+        Thread worker = new Thread(this::migrateLegacyImages, "image-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public int migrateLegacyImages() {
+        int migrated = 0;
+        try {
+            List<Long> ids;
+            do {
+                // Every migrated row leaves the result set, so each query picks up the next chunk
+                ids = jdbcTemplate.queryForList(
+                        "SELECT id FROM products WHERE image IS NOT NULL ORDER BY id LIMIT ?", Long.class, chunkSize);
+                for (Long id : ids) {
+                    migrateOne(id);
+                    migrated++;
+                }
+                if (!ids.isEmpty()) {
+                    logger.info("Migrated {} legacy product images so far", migrated);
+                }
+            } while (ids.size() == chunkSize);
+            logger.info("Legacy image migration complete: {} images moved", migrated);
+        } catch (DataAccessException e) {
+            // Databases created after the image column was dropped from the entity have nothing to migrate
+            logger.info("Legacy image migration skipped: {}", e.getMessage());
+        } catch (UncheckedIOException e) {
+            logger.error("Legacy image migration stopped after {} images: {}", migrated, e.getMessage(), e);
+        }
+        return migrated;
+    }
+
+    private void migrateOne(Long id) {
+        jdbcTemplate.query("SELECT image FROM products WHERE id = ?", rs -> {
+            try (InputStream in = new BufferedInputStream(rs.getBinaryStream("image"))) {
+                in.mark(ImageTypes.HEADER_LENGTH);
+                byte[] header = new byte[ImageTypes.HEADER_LENGTH];
+                int read = in.readNBytes(header, 0, header.length);
+                in.reset();
+                String contentType = ImageTypes.detect(header, read);
+                String hash = imageStore.store(in);
+                jdbcTemplate.update(
+                        "UPDATE products SET image_hash = ?, image_content_type = ?, image = NULL WHERE id = ?",
+                        hash, contentType, id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to migrate image for product " + id, e);
+            }
+        }, id);
+    }
+}
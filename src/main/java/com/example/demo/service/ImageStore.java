@@ -0,0 +1,37 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for product images. Images are keyed by the hex SHA-256 of their
+ * bytes, so storing the same image twice yields the same key and a single stored copy.
+ */
+public interface ImageStore {
+
+    /**
+     * Streams the content into the store and returns its SHA-256 key.
+     */
+    String store(InputStream content) throws IOException;
+
+    /**
+     * Moves a file whose SHA-256 the caller has already computed into the store. The file is
+     * consumed once stored, and if the image is already stored the existing copy is kept. If
+     * storing fails the file is left in place so the caller can retry.
+     */
+    void storeFile(String hash, Path file) throws IOException;
+
+    boolean exists(String hash);
+
+    long size(String hash) throws IOException;
+
+    InputStream open(String hash) throws IOException;
+
+    /**
+     * The file backing the image when the store lives on the local filesystem, which lets the
+     * download endpoint hand it to the container for zero-copy transfer.
+     */
+    Optional<Path> localPath(String hash);
+}
@@ -0,0 +1,275 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UploadStatusDTO;
+import com.example.demo.util.ImageTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accepts product images without holding them in the heap. Single-request uploads are streamed
+ * straight into the ImageStore; large ones can be sent as a resumable series of chunks that are
+ * appended to a temp file and hashed as they arrive. Either way the type comes from the magic
+ * bytes of the content, not from the client.
+ */
+@Service
+public class ImageUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageUploadService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ImageStore imageStore;
+    private final Path uploadDir;
+    private final long maxBytes;
+    private final Duration expiry;
+    private final int maxSessionsPerOwner;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // Open sessions per owner; each one holds a temp file
+    private final Map<String, Integer> openByOwner = new ConcurrentHashMap<>();
+
+    public ImageUploadService(ImageStore imageStore,
+                              @Value("${app.uploads.dir:data/uploads}") String uploadDir,
+                              @Value("${app.uploads.max-bytes:26214400}") long maxBytes,
+                              @Value("${app.uploads.expiry-minutes:60}") long expiryMinutes,
+                              @Value("${app.uploads.max-sessions-per-owner:5}") int maxSessionsPerOwner) throws IOException {
+        this.imageStore = imageStore;
+        this.uploadDir = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.expiry = Duration.ofMinutes(expiryMinutes);
+        this.maxSessionsPerOwner = maxSessionsPerOwner;
+        Files.createDirectories(this.uploadDir);
+    }
+
+    /**
+     * Streams a complete image into the store after checking its magic bytes.
+     */
+    public StoredImage store(InputStream content) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(content, BUFFER_SIZE);
+        in.mark(ImageTypes.HEADER_LENGTH);
+        byte[] header = new byte[ImageTypes.HEADER_LENGTH];
+        int read = in.readNBytes(header, 0, header.length);
+        in.reset();
+        String contentType = ImageTypes.detect(header, read);
+        if (contentType == null) {
+            throw new IllegalArgumentException("Only JPEG and PNG images are allowed");
+        }
+        return new StoredImage(imageStore.store(in), contentType);
+    }
+
+    public UploadStatusDTO start(String ownerEmail, long size) throws IOException {
+        if (size <= 0 || size > maxBytes) {
+            throw new IllegalArgumentException("Upload size must be between 1 and " + maxBytes + " bytes");
+        }
+        boolean[] admitted = new boolean[1];
+        openByOwner.compute(ownerEmail, (owner, open) -> {
+            int count = open != null ? open : 0;
+            admitted[0] = count < maxSessionsPerOwner;
+            return admitted[0] ? count + 1 : open;
+        });
+        if (!admitted[0]) {
+            throw new IllegalStateException("Too many uploads in progress; finish or cancel one first");
+        }
+        String id = UUID.randomUUID().toString();
+        Path file;
+        try {
+            file = Files.createFile(uploadDir.resolve(id + ".part"));
+        } catch (IOException | RuntimeException e) {
+            release(ownerEmail);
+            throw e;
+        }
+        Session session = new Session(id, ownerEmail, size, file);
+        sessions.put(id, session);
+        logger.info("Started upload {} of {} bytes for {}", id, size, ownerEmail);
+        return session.status();
+    }
+
+    /**
+     * Appends the chunk starting at {@code start} and returns the new state. Bytes are counted as
+     * they are written, so a chunk cut off mid-way still advances the offset the client resumes from.
+     */
+    public UploadStatusDTO append(String id, String ownerEmail, long start, long end, long total, InputStream body)
+            throws IOException {
+        Session session = find(id, ownerEmail);
+        synchronized (session) {
+            if (session.hash != null) {
+                throw new IllegalStateException("Upload is already complete");
+            }
+            if (session.offset == session.size) {
+                // Every byte arrived but storing the image failed; any request retries that step
+                finish(session);
+                return session.status();
+            }
+            if (total != session.size || end >= session.size || end < start) {
+                throw new IllegalArgumentException("Content-Range does not fit the upload size of " + session.size + " bytes");
+            }
+            if (start != session.offset) {
+                throw new IllegalStateException("Chunk must start at offset " + session.offset);
+            }
+            session.touch();
+            long remaining = end - start + 1;
+            byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, remaining)];
+            try (OutputStream out = Files.newOutputStream(session.file, StandardOpenOption.APPEND)) {
+                int read;
+                while (remaining > 0 && (read = body.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                    out.write(buffer, 0, read);
+                    session.digest.update(buffer, 0, read);
+                    session.offset += read;
+                    remaining -= read;
+                }
+            } finally {
+                checkHeader(session);
+            }
+            if (session.offset == session.size) {
+                session.contentHash = HexFormat.of().formatHex(session.digest.digest());
+                finish(session);
+            }
+            return session.status();
+        }
+    }
+
+    public UploadStatusDTO status(String id, String ownerEmail) {
+        Session session = find(id, ownerEmail);
+        synchronized (session) {
+            return session.status();
+        }
+    }
+
+    /**
+     * Hands a finished upload over to a product and forgets the session.
+     */
+    public StoredImage consume(String id, String ownerEmail) throws IOException {
+        Session session = find(id, ownerEmail);
+        synchronized (session) {
+            if (session.hash == null && session.offset == session.size) {
+                finish(session);
+            }
+            if (session.hash == null) {
+                throw new IncompleteUploadException("Upload is not complete");
+            }
+            forget(session);
+            return new StoredImage(session.hash, session.contentType);
+        }
+    }
+
+    public void cancel(String id, String ownerEmail) throws IOException {
+        Session session = find(id, ownerEmail);
+        discard(session);
+    }
+
+    @Scheduled(fixedDelayString = "${app.uploads.cleanup-interval-ms:60000}")
+    public void expireStaleUploads() {
+        long cutoff = System.currentTimeMillis() - expiry.toMillis();
+        for (Session session : sessions.values()) {
+            if (session.lastTouched < cutoff) {
+                try {
+                    discard(session);
+                    logger.info("Expired upload {} at {} of {} bytes", session.id, session.offset, session.size);
+                } catch (IOException e) {
+                    logger.error("Failed to delete expired upload {}: {}", session.id, e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private void discard(Session session) throws IOException {
+        synchronized (session) {
+            forget(session);
+            Files.deleteIfExists(session.file);
+        }
+    }
+
+    // Moves the received file into the store; on failure the file stays for the next attempt
+    private void finish(Session session) throws IOException {
+        imageStore.storeFile(session.contentHash, session.file);
+        session.hash = session.contentHash;
+        logger.info("Upload {} complete as image {}", session.id, session.hash);
+    }
+
+    private void forget(Session session) {
+        if (sessions.remove(session.id, session)) {
+            release(session.ownerEmail);
+        }
+    }
+
+    private void release(String ownerEmail) {
+        openByOwner.computeIfPresent(ownerEmail, (owner, open) -> open > 1 ? open - 1 : null);
+    }
+
+    private Session find(String id, String ownerEmail) {
+        Session session = sessions.get(id);
+        if (session == null || !session.ownerEmail.equals(ownerEmail)) {
+            throw new RuntimeException("Upload not found");
+        }
+        return session;
+    }
+
+    // Once the first bytes are in, reject anything that isn't JPEG or PNG before accepting more
+    private void checkHeader(Session session) throws IOException {
+        if (session.contentType != null || (session.offset < ImageTypes.HEADER_LENGTH && session.offset < session.size)) {
+            return;
+        }
+        byte[] header = new byte[ImageTypes.HEADER_LENGTH];
+        int read;
+        try (InputStream in = Files.newInputStream(session.file)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        session.contentType = ImageTypes.detect(header, read);
+        if (session.contentType == null) {
+            discard(session);
+            throw new IllegalArgumentException("Only JPEG and PNG images are allowed");
+        }
+    }
+
+    private static class Session {
+        private final String id;
+        private final String ownerEmail;
+        private final long size;
+        private final Path file;
+        private final MessageDigest digest;
+        private long offset;
+        private String contentType;
+        // SHA-256 of the received bytes; hash is only set once the image is in the store
+        private String contentHash;
+        private String hash;
+        private volatile long lastTouched;
+
+        Session(String id, String ownerEmail, long size, Path file) {
+            this.id = id;
+            this.ownerEmail = ownerEmail;
+            this.size = size;
+            this.file = file;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+            touch();
+        }
+
+        void touch() {
+            lastTouched = System.currentTimeMillis();
+        }
+
+        UploadStatusDTO status() {
+            return new UploadStatusDTO(id, size, offset, hash != null);
+        }
+    }
+}
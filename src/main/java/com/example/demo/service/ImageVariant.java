@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ProductImageRef;
+
+/**
+ * Re-encoded JPEG renditions generated for every product image. Each variant fits inside a
+ * square of {@code maxDimension} pixels.
+ */
+public enum ImageVariant {
+    THUMBNAIL(320, 0.75f),
+    DETAIL(800, 0.80f),
+    FULL(1600, 0.85f);
+
+    private final int maxDimension;
+    private final float quality;
+
+    ImageVariant(int maxDimension, float quality) {
+        this.maxDimension = maxDimension;
+        this.quality = quality;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public String paramName() {
+        return name().toLowerCase();
+    }
+
+    public String hashOf(ProductImageRef ref) {
+        switch (this) {
+            case THUMBNAIL:
+                return ref.getThumbnailHash();
+            case DETAIL:
+                return ref.getDetailHash();
+            case FULL:
+                return ref.getFullHash();
+            default:
+                return null;
+        }
+    }
+
+    public static ImageVariant fromParam(String value) {
+        for (ImageVariant variant : values()) {
+            if (variant.paramName().equalsIgnoreCase(value)) {
+                return variant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown image variant: " + value);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.util.ImageResizer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the {@link ImageVariant} renditions of product images on a bounded worker pool.
+ * When the queue is full new work is rejected rather than queued without limit; rejected
+ * products are picked up again the next time one of their variants is requested. Images that
+ * can't be decoded are remembered by hash, so requests for them don't keep occupying the pool.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private final ImageStore imageStore;
+    private final ProductRepository productRepository;
+    private final ProductDetailCache productDetailCache;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    // Hashes of originals that failed to decode; content-addressed, so the outcome won't change
+    private final Cache<String, Boolean> undecodable;
+
+    private final Counter submitted;
+    private final Counter rejected;
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter skipped;
+    private final Timer processingTimer;
+
+    public ImageVariantService(ImageStore imageStore,
+                               ProductRepository productRepository,
+                               ProductDetailCache productDetailCache,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.images.variants.workers:2}") int workers,
+                               @Value("${app.images.variants.queue-capacity:200}") int queueCapacity,
+                               @Value("${app.images.variants.undecodable.max-size:10000}") long undecodableMaxSize,
+                               @Value("${app.images.variants.undecodable.ttl-hours:24}") long undecodableTtlHours) {
+        this.imageStore = imageStore;
+        this.productRepository = productRepository;
+        this.productDetailCache = productDetailCache;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.undecodable = Caffeine.newBuilder()
+                .maximumSize(undecodableMaxSize)
+                .expireAfterWrite(Duration.ofHours(undecodableTtlHours))
+                .build();
+
+        this.submitted = meterRegistry.counter("images.variants.submitted");
+        this.rejected = meterRegistry.counter("images.variants.rejected");
+        this.completed = meterRegistry.counter("images.variants.completed");
+        this.failed = meterRegistry.counter("images.variants.failed");
+        this.skipped = meterRegistry.counter("images.variants.skipped");
+        this.processingTimer = meterRegistry.timer("images.variants.processing");
+        meterRegistry.gauge("images.variants.queue.size", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("images.variants.queue.remaining", executor, e -> e.getQueue().remainingCapacity());
+        meterRegistry.gauge("images.variants.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    /**
+     * Queues variant generation for a product image. Returns false if the product is already being
+     * processed, the image is known not to decode or the queue is full.
+     */
+    public boolean submit(Long productId, String imageHash) {
+        if (undecodable.getIfPresent(imageHash) != null) {
+            skipped.increment();
+            return false;
+        }
+        if (!inFlight.add(productId)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> generate(productId, imageHash));
+            submitted.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(productId);
+            rejected.increment();
+            logger.warn("Image variant queue full, deferring product ID {}", productId);
+            return false;
+        }
+    }
+
+    private void generate(Long productId, String imageHash) {
+        try {
+            processingTimer.record(() -> {
+                try {
+                    BufferedImage original;
+                    try (InputStream in = imageStore.open(imageHash)) {
+                        original = decode(in, imageHash);
+                    }
+                    Map<ImageVariant, String> hashes = new EnumMap<>(ImageVariant.class);
+                    for (ImageVariant variant : ImageVariant.values()) {
+                        byte[] jpeg = ImageResizer.toJpeg(original, variant.getMaxDimension(), variant.getQuality());
+                        hashes.put(variant, imageStore.store(new ByteArrayInputStream(jpeg)));
+                    }
+                    productRepository.updateImageVariants(productId, imageHash,
+                            hashes.get(ImageVariant.THUMBNAIL), hashes.get(ImageVariant.DETAIL), hashes.get(ImageVariant.FULL));
+                    // The detail payload links to the variant by hash, so drop the copy pointing at the original
+                    productDetailCache.invalidate(productId);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            });
+            completed.increment();
+            logger.info("Generated image variants for product ID {}", productId);
+        } catch (RuntimeException e) {
+            failed.increment();
+            logger.error("Failed to generate image variants for product ID {}: {}", productId, e.getMessage(), e);
+        } finally {
+            inFlight.remove(productId);
+        }
+    }
+
+    private BufferedImage decode(InputStream in, String imageHash) throws IOException {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(in);
+        } catch (IIOException e) {
+            image = null;
+        }
+        if (image == null) {
+            undecodable.put(imageHash, Boolean.TRUE);
+            throw new IOException("Unreadable image " + imageHash);
+        }
+        return image;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.service;
+
+/**
+ * Thrown when a chunked upload is handed over to a product before all of its bytes arrived.
+ */
+public class IncompleteUploadException extends RuntimeException {
+
+    public IncompleteUploadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.JobLeaseRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lets one instance at a time run a job scheduled on all of them, through rows of the
+ * {@code job_leases} table. The lease expires on its own if its holder dies mid-job.
+ */
+@Service
+public class JobLeases {
+
+    private final JobLeaseRepository repository;
+    private final String owner = UUID.randomUUID().toString();
+
+    public JobLeases(JobLeaseRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Claims the named job for the given duration; false when another instance holds it.
+     */
+    public boolean tryAcquire(String name, Duration duration) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(duration);
+        return repository.insertIfAbsent(name, owner, expiresAt) == 1
+                || repository.acquire(name, owner, now, expiresAt) == 1;
+    }
+
+    public void release(String name) {
+        repository.release(name, owner, LocalDateTime.now());
+    }
+}
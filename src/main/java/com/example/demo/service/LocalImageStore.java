@@ -0,0 +1,112 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+@Service
+public class LocalImageStore implements ImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalImageStore.class);
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path tempDir;
+
+    public LocalImageStore(@Value("${app.images.storage-dir:data/images}") String storageDir) throws IOException {
+        this.root = Paths.get(storageDir).toAbsolutePath().normalize();
+        this.tempDir = root.resolve("tmp");
+        Files.createDirectories(tempDir);
+        logger.info("Local image store rooted at {}", root);
+    }
+
+    @Override
+    public String store(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            moveIntoPlace(hash, temp);
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void storeFile(String hash, Path file) throws IOException {
+        moveIntoPlace(hash, file);
+        // Still there if an identical image was already stored
+        Files.deleteIfExists(file);
+    }
+
+    private void moveIntoPlace(String hash, Path file) throws IOException {
+        Path target = resolve(hash);
+        if (Files.exists(target)) {
+            logger.info("Image {} already stored, reusing existing file", hash);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        logger.info("Stored image {} ({} bytes)", hash, Files.size(target));
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return Files.exists(resolve(hash));
+    }
+
+    @Override
+    public long size(String hash) throws IOException {
+        return Files.size(resolve(hash));
+    }
+
+    @Override
+    public InputStream open(String hash) throws IOException {
+        return Files.newInputStream(resolve(hash));
+    }
+
+    @Override
+    public Optional<Path> localPath(String hash) {
+        Path path = resolve(hash);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    // Two levels of fan-out (ab/cd/abcd...) keep directory sizes manageable
+    private Path resolve(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid image hash");
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Notification.NotificationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Turns price changes into price-drop notifications for every user watching the product. The
+ * request changing a price only puts the change on a bounded queue; a single worker drains it
+ * every dispatch interval, matches each product against the {@link ProductWatcherIndex}, and
+ * writes the notifications of the whole interval in JDBC batches, grouped by user. Changes to
+ * the same product within an interval are coalesced into one notification per watcher, from the
+ * first old price to the last new price, and into none when the price ended up no lower. A user
+ * watching many products gets at most {@code app.notifications.max-per-user} of them per
+ * interval, the deepest drops first, so that a store-wide sale doesn't flood their inbox.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final String INSERT = "INSERT INTO notifications " +
+            "(user_id, type, product_id, old_price, new_price, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final ProductWatcherIndex watcherIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<ProductPriceChangedEvent> queue;
+    // Held while notifications are written, so the worker and a shutdown flush never interleave
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    private final long dispatchIntervalMs;
+    private final int batchSize;
+    private final int maxPerUser;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final Counter overflowed;
+    private final Counter sent;
+    private final Counter capped;
+    private final Timer dispatchTimer;
+
+    public NotificationDispatcher(ProductWatcherIndex watcherIndex,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.notifications.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${app.notifications.dispatch-interval-ms:1000}") long dispatchIntervalMs,
+                                  @Value("${app.notifications.batch-size:1000}") int batchSize,
+                                  @Value("${app.notifications.max-per-user:20}") int maxPerUser) {
+        this.watcherIndex = watcherIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dispatchIntervalMs = dispatchIntervalMs;
+        this.batchSize = batchSize;
+        this.maxPerUser = maxPerUser;
+        this.worker = new Thread(this::runWorker, "notification-dispatcher");
+        this.worker.setDaemon(true);
+
+        this.overflowed = meterRegistry.counter("notifications.events.overflowed");
+        this.sent = meterRegistry.counter("notifications.sent");
+        this.capped = meterRegistry.counter("notifications.capped");
+        this.dispatchTimer = meterRegistry.timer("notifications.dispatch");
+        meterRegistry.gauge("notifications.queue.size", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(dispatchIntervalMs);
+        dispatch();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceChanged(ProductPriceChangedEvent event) {
+        enqueue(event);
+    }
+
+    private void enqueue(ProductPriceChangedEvent event) {
+        if (!queue.offer(event)) {
+            // Alerts are best effort; the new price is already visible on the product
+            overflowed.increment();
+            logger.warn("Notification queue full, dropped price change of product ID {}", event.getProductId());
+        }
+    }
+
+    private void runWorker() {
+        while (running) {
+            try {
+                Thread.sleep(dispatchIntervalMs);
+                dispatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Failed to dispatch notifications: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes the notifications for every queued price change and returns how many it wrote.
+     */
+    public int dispatch() {
+        dispatchLock.lock();
+        try {
+            List<ProductPriceChangedEvent> changes = new ArrayList<>();
+            queue.drainTo(changes);
+            if (changes.isEmpty()) {
+                return 0;
+            }
+            Map<Long, PriceMove> byProduct = new LinkedHashMap<>();
+            for (ProductPriceChangedEvent change : changes) {
+                byProduct.merge(change.getProductId(), new PriceMove(change.getOldPrice(), change.getNewPrice()),
+                        (first, next) -> new PriceMove(first.oldPrice, next.newPrice));
+            }
+
+            Map<Long, List<Alert>> byUser = new HashMap<>();
+            byProduct.forEach((productId, move) -> {
+                if (move.newPrice < move.oldPrice) {
+                    for (int userId : watcherIndex.getWatchers(productId)) {
+                        byUser.computeIfAbsent((long) userId, id -> new ArrayList<>()).add(new Alert(userId, productId, move));
+                    }
+                }
+            });
+            List<Alert> alerts = new ArrayList<>();
+            int dropped = 0;
+            for (List<Alert> userAlerts : byUser.values()) {
+                if (userAlerts.size() > maxPerUser) {
+                    userAlerts.sort(Comparator.comparingDouble((Alert alert) -> alert.move.drop()).reversed());
+                    dropped += userAlerts.size() - maxPerUser;
+                    userAlerts = userAlerts.subList(0, maxPerUser);
+                }
+                alerts.addAll(userAlerts);
+            }
+            capped.increment(dropped);
+            if (alerts.isEmpty()) {
+                return 0;
+            }
+            // Each user's notifications land next to each other in the (user_id, id) index
+            alerts.sort(Comparator.comparingLong((Alert alert) -> alert.userId).thenComparingLong(alert -> alert.productId));
+
+            try {
+                dispatchTimer.record(() -> write(alerts));
+            } catch (RuntimeException e) {
+                // Nothing was written; retry these changes on the next pass
+                changes.forEach(this::enqueue);
+                throw e;
+            }
+            sent.increment(alerts.size());
+            logger.debug("Dispatched {} notifications for {} price changes", alerts.size(), changes.size());
+            return alerts.size();
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    private void write(List<Alert> alerts) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT, alerts, batchSize, (statement, alert) -> {
+                    statement.setLong(1, alert.userId);
+                    statement.setString(2, NotificationType.PRICE_DROP.name());
+                    statement.setLong(3, alert.productId);
+                    statement.setDouble(4, alert.move.oldPrice);
+                    statement.setDouble(5, alert.move.newPrice);
+                    statement.setTimestamp(6, createdAt);
+                }));
+    }
+
+    private static final class PriceMove {
+
+        private final double oldPrice;
+        private final double newPrice;
+
+        PriceMove(double oldPrice, double newPrice) {
+            this.oldPrice = oldPrice;
+            this.newPrice = newPrice;
+        }
+
+        // Share of the old price taken off
+        double drop() {
+            return (oldPrice - newPrice) / oldPrice;
+        }
+    }
+
+    private static final class Alert {
+
+        private final long userId;
+        private final long productId;
+        private final PriceMove move;
+
+        Alert(long userId, long productId, PriceMove move) {
+            this.userId = userId;
+            this.productId = productId;
+            this.move = move;
+        }
+    }
+}
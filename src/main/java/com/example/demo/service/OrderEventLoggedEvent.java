@@ -0,0 +1,19 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.OrderEvent;
+
+/**
+ * Published when an entry is appended to the order log; delivered to listeners once its transaction commits.
+ */
+public class OrderEventLoggedEvent {
+
+    private final OrderEvent event;
+
+    public OrderEventLoggedEvent(OrderEvent event) {
+        this.event = event;
+    }
+
+    public OrderEvent getEvent() {
+        return event;
+    }
+}
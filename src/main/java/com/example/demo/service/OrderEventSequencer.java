@@ -0,0 +1,135 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.OrderEvent;
+import com.example.demo.entity.OrderEventSequence;
+import com.example.demo.repository.OrderEventRepository;
+import com.example.demo.repository.OrderEventSequenceRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Numbers order events in commit order, for the event feed to be tailed by. Ids are taken at
+ * insert but rows become visible at commit, so a slow transaction can commit a lower id behind a
+ * cursor that already passed it. Sequence numbers are only given to rows that are already
+ * committed, under a lock on the counter row, so a number is never visible before a lower one.
+ *
+ * Each instance numbers right after its own order transactions commit; a periodic pass picks up
+ * rows left behind by an instance that stopped in between and rows written by migrations.
+ *
+ * Once numbers are committed, the events logged on this instance are published in sequence order
+ * as an {@link OrderEventsSequencedEvent}, including those another instance happened to number.
+ */
+@Service
+public class OrderEventSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventSequencer.class);
+
+    private final OrderEventRepository orderEventRepository;
+    private final OrderEventSequenceRepository sequenceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private final ReentrantLock running = new ReentrantLock();
+    // Ids of events logged here that have not been published with their number yet
+    private final Set<Long> unpublished = ConcurrentHashMap.newKeySet();
+
+    public OrderEventSequencer(OrderEventRepository orderEventRepository,
+                               OrderEventSequenceRepository sequenceRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.orders.events.sequence-batch-size:1000}") int batchSize) {
+        this.orderEventRepository = orderEventRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.eventPublisher = eventPublisher;
+        // Also runs from after-commit callbacks, where the finished transaction is still bound
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void init() {
+        sequenceRepository.insertIfAbsent(OrderEventSequence.ID);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventLogged(OrderEventLoggedEvent event) {
+        unpublished.add(event.getEvent().getId());
+        try {
+            sequence();
+        } catch (RuntimeException e) {
+            // The order is committed; the periodic pass numbers its event
+            logger.warn("Failed to number order events: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Numbers every committed event that has no sequence number yet, then publishes the local
+     * events that have one. Callers arriving while another thread is numbering leave it one more
+     * pass instead of waiting.
+     */
+    @Scheduled(fixedDelayString = "${app.orders.events.sequence-interval-ms:1000}")
+    public void sequence() {
+        requested.set(true);
+        while (requested.get() && running.tryLock()) {
+            try {
+                requested.set(false);
+                List<OrderEvent> sequenced = new ArrayList<>();
+                List<OrderEvent> numbered;
+                do {
+                    // Kept only once the batch's transaction has committed its numbers
+                    numbered = transactionTemplate.execute(status -> numberBatch());
+                    numbered.stream().filter(event -> unpublished.contains(event.getId())).forEach(sequenced::add);
+                } while (numbered.size() == batchSize);
+                publish(sequenced);
+            } finally {
+                running.unlock();
+            }
+        }
+    }
+
+    private void publish(List<OrderEvent> sequenced) {
+        sequenced.forEach(event -> unpublished.remove(event.getId()));
+        if (!unpublished.isEmpty()) {
+            // Numbered by another instance, or by a pass that failed after committing its numbers
+            orderEventRepository.findAllById(List.copyOf(unpublished)).stream()
+                    .filter(event -> event.getSequence() != null && unpublished.remove(event.getId()))
+                    .forEach(sequenced::add);
+        }
+        if (!sequenced.isEmpty()) {
+            sequenced.sort(Comparator.comparing(OrderEvent::getSequence));
+            eventPublisher.publishEvent(new OrderEventsSequencedEvent(sequenced));
+        }
+    }
+
+    private List<OrderEvent> numberBatch() {
+        OrderEventSequence counter = sequenceRepository.lockById(OrderEventSequence.ID);
+        // Read after the lock is held, so rows numbered by another instance are seen as numbered
+        List<OrderEvent> events = orderEventRepository.findBySequenceIsNullOrderById(PageRequest.of(0, batchSize));
+        long next = counter.getLastSequence();
+        for (OrderEvent event : events) {
+            event.setSequence(++next);
+        }
+        counter.setLastSequence(next);
+        return events;
+    }
+}
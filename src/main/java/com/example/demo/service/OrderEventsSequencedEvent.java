@@ -0,0 +1,21 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.OrderEvent;
+
+import java.util.List;
+
+/**
+ * Published once order log entries have been given sequence numbers and the numbers are committed; the events are in sequence order.
+ */
+public class OrderEventsSequencedEvent {
+
+    private final List<OrderEvent> events;
+
+    public OrderEventsSequencedEvent(List<OrderEvent> events) {
+        this.events = List.copyOf(events);
+    }
+
+    public List<OrderEvent> getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Order.OrderStatus;
+import com.example.demo.entity.OrderEvent;
+import com.example.demo.repository.OrderEventRepository;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancels orders left PENDING for longer than the TTL, so an abandoned order doesn't hold its
+ * product forever.
+ *
+ * Each batch is one transaction of set-based statements: the expired orders are locked with
+ * SELECT ... FOR UPDATE SKIP LOCKED, then cancelled, their products released and their events
+ * logged with one statement each. Nodes running the job at the same time skip each other's
+ * locked rows and so work through disjoint batches, and a buyer confirming an order the job has
+ * locked loses the status compare-and-set instead of overwriting the cancellation.
+ */
+@Service
+public class OrderExpiryService {
+
+    public static final String ACTOR = "system";
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExpiryService.class);
+
+    private final OrderRepository orderRepository;
+    private final OrderEventRepository orderEventRepository;
+    private final ProductRepository productRepository;
+    private final ProductFacetService productFacetService;
+    private final ProductDetailCache productDetailCache;
+    private final OrderService orderService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final int batchSize;
+    private final int maxBatches;
+
+    private final Counter expired;
+    private final Timer runTimer;
+
+    public OrderExpiryService(OrderRepository orderRepository,
+                              OrderEventRepository orderEventRepository,
+                              ProductRepository productRepository,
+                              ProductFacetService productFacetService,
+                              ProductDetailCache productDetailCache,
+                              OrderService orderService,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.orders.expiry.pending-ttl-minutes:1440}") long ttlMinutes,
+                              @Value("${app.orders.expiry.batch-size:500}") int batchSize,
+                              @Value("${app.orders.expiry.max-batches:100}") int maxBatches) {
+        this.orderRepository = orderRepository;
+        this.orderEventRepository = orderEventRepository;
+        this.productRepository = productRepository;
+        this.productFacetService = productFacetService;
+        this.productDetailCache = productDetailCache;
+        this.orderService = orderService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+
+        this.expired = meterRegistry.counter("orders.expired");
+        this.runTimer = meterRegistry.timer("orders.expiry");
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.expiry.interval-ms:60000}",
+            initialDelayString = "${app.orders.expiry.interval-ms:60000}")
+    public void scheduledExpiry() {
+        try {
+            expireStaleOrders();
+        } catch (RuntimeException e) {
+            logger.error("Order expiry failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cancels PENDING orders older than the TTL in batches until none are left or the batch limit
+     * of one run is reached, and returns how many it cancelled.
+     */
+    public int expireStaleOrders() {
+        long started = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        int total = 0;
+        try {
+            for (int batch = 0; batch < maxBatches; batch++) {
+                List<Long> productIds = transactionTemplate.execute(status -> expireBatch(cutoff));
+                // The index and cache are updated once the products are released in the database
+                for (Long productId : productIds) {
+                    productFacetService.markAvailable(productId);
+                    productDetailCache.invalidate(productId);
+                    orderService.forgetSold(productId);
+                }
+                total += productIds.size();
+                if (productIds.size() < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            runTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            expired.increment(total);
+        }
+        if (total > 0) {
+            logger.info("Expired {} orders pending since before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    // Returns the products of the orders it cancelled
+    private List<Long> expireBatch(LocalDateTime cutoff) {
+        List<Long> orderIds = orderRepository.lockExpiredPendingIds(cutoff, batchSize);
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        orderRepository.updateStatuses(orderIds, OrderStatus.PENDING, OrderStatus.CANCELLED);
+        List<Long> productIds = orderRepository.findProductIdsByIdIn(orderIds);
+        productRepository.releaseAll(productIds);
+        orderEventRepository.logTransitions(orderIds, OrderStatus.PENDING.name(), OrderStatus.CANCELLED.name(),
+                ACTOR, LocalDateTime.now());
+
+        // Delivered to the reputation worker and the order streams once the batch commits
+        for (OrderEvent event : orderEventRepository.findByOrderIdInAndToStatus(orderIds, OrderStatus.CANCELLED)) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(event.getOrderId(), event.getId(), event.getSellerId(), OrderStatus.CANCELLED));
+            eventPublisher.publishEvent(new OrderEventLoggedEvent(event));
+        }
+        return productIds;
+    }
+}
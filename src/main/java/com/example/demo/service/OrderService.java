@@ -0,0 +1,197 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Order;
+import com.example.demo.entity.Order.OrderStatus;
+import com.example.demo.dto.OrderEventDTO;
+import com.example.demo.entity.OrderEvent;
+import com.example.demo.repository.OrderEventRepository;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.SellerOrderListing;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@Service
+public class OrderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SchemaMigrations schemaMigrations;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.orders.sold-cache.ttl-ms:5000}")
+    private long soldCacheTtlMs;
+
+    @Value("${app.orders.sold-cache.max-size:100000}")
+    private long soldCacheMaxSize;
+
+    // Products that recently lost a reservation race; entries expire, so a product released on
+    // another instance is only refused here until then
+    private Cache<Long, Boolean> recentlySold;
+
+    @PostConstruct
+    public void init() {
+        recentlySold = Caffeine.newBuilder()
+                .maximumSize(soldCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(soldCacheTtlMs))
+                .build();
+        backfillOrderState();
+    }
+
+    // Runs once per database, before the web server takes orders, so older orders keep their products
+    // and appear in the log
+    private void backfillOrderState() {
+        schemaMigrations.runOnce("hold-ordered-products", () -> {
+            int held = productRepository.markHeldByOrders(OrderStatus.CANCELLED);
+            logger.info("Marked {} previously ordered products unavailable", held);
+        });
+        schemaMigrations.runOnce("backfill-order-seller-ids", () -> {
+            int attributed = orderRepository.backfillSellerIds();
+            logger.info("Recorded the seller of {} existing orders", attributed);
+        });
+        schemaMigrations.runOnce("backfill-order-events", () -> {
+            int logged = orderEventRepository.backfillMissing();
+            logger.info("Logged creation events for {} orders placed before the order log", logged);
+        });
+    }
+
+    /**
+     * Reserves the product and records the order in one transaction. The reservation is a
+     * conditional UPDATE on the product row, so of any number of concurrent buyers exactly one
+     * succeeds; the others fail with "Product is no longer available". The buyer is only
+     * referenced by id, so placing an order never loads the user.
+     */
+    @Transactional
+    public Order placeOrder(Long buyerId, String buyerEmail, Long productId) {
+        // Losers of a recent race are refused without touching the database
+        if (recentlySold.getIfPresent(productId) != null) {
+            throw new RuntimeException("Product is no longer available");
+        }
+        if (productRepository.reserve(productId) == 0) {
+            if (!productRepository.existsById(productId)) {
+                logger.error("Product not found with ID: {}", productId);
+                throw new RuntimeException("Product not found");
+            }
+            logger.info("Product with ID {} lost to a concurrent order", productId);
+            recentlySold.put(productId, Boolean.TRUE);
+            throw new RuntimeException("Product is no longer available");
+        }
+        Long sellerId = productRepository.findSellerIdById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        Order order = new Order(productRepository.getReferenceById(productId), userRepository.getReferenceById(buyerId));
+        order.setSellerId(sellerId);
+        Order savedOrder = orderRepository.save(order);
+        OrderEvent created = orderEventRepository.save(new OrderEvent(savedOrder.getId(), buyerId, sellerId,
+                null, savedOrder.getStatus(), buyerEmail));
+        // Pushed to the buyer's and seller's open order streams once this transaction commits
+        eventPublisher.publishEvent(new OrderEventLoggedEvent(created));
+        return savedOrder;
+    }
+
+    /**
+     * Moves the order to a new status and appends the change to the order log. The move is
+     * validated against the {@link OrderStatus} state machine and applied as a compare-and-set,
+     * so a concurrent change of the same order fails instead of being overwritten. A cancelled
+     * order gives its product back in the same transaction.
+     */
+    @Transactional
+    public Order updateStatus(Order order, OrderStatus newStatus, String actor) {
+        OrderStatus currentStatus = order.getStatus();
+        if (!currentStatus.canMoveTo(newStatus)) {
+            throw new IllegalArgumentException("Invalid status transition: Cannot move from " + currentStatus + " to " + newStatus);
+        }
+        if (orderRepository.updateStatus(order.getId(), currentStatus, newStatus) == 0) {
+            throw new IllegalStateException("Order status was changed concurrently");
+        }
+        order.setStatus(newStatus);
+
+        Long productId = order.getProduct().getId();
+        Long sellerId = productRepository.findSellerIdById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        OrderEvent changed = orderEventRepository.save(new OrderEvent(order.getId(), order.getBuyer().getId(), sellerId,
+                currentStatus, newStatus, actor));
+        if (newStatus == OrderStatus.CANCELLED) {
+            productRepository.release(productId);
+            recentlySold.invalidate(productId);
+        }
+        // Picked up by the seller reputation worker and the order streams once this transaction commits
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), changed.getId(), sellerId, newStatus));
+        eventPublisher.publishEvent(new OrderEventLoggedEvent(changed));
+        return order;
+    }
+
+    // Called once a product is released outside updateStatus, e.g. by order expiry
+    public void forgetSold(Long productId) {
+        recentlySold.invalidate(productId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SellerOrderListing> getIncomingOrders(Long sellerId, OrderStatus status,
+                                                      LocalDateTime afterOrderDate, Long afterId, int limit) {
+        return orderRepository.findIncomingPage(sellerId, status, afterOrderDate, afterId, PageRequest.of(0, limit));
+    }
+
+    public List<OrderEvent> getOrderHistory(Long orderId) {
+        return orderEventRepository.findByOrderIdOrderById(orderId);
+    }
+
+    /**
+     * Events of orders the user bought or sold numbered above afterSequence, in commit order.
+     * Numbers are only given to committed rows, so an event committing late is numbered after
+     * every event a cursor could already have passed.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderEvent> getEventsAfter(Long userId, long afterSequence, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        TreeMap<Long, OrderEvent> events = new TreeMap<>();
+        orderEventRepository.findBuyerEventsAfterSequence(userId, afterSequence, page)
+                .forEach(event -> events.put(event.getSequence(), event));
+        orderEventRepository.findSellerEventsAfterSequence(userId, afterSequence, page)
+                .forEach(event -> events.put(event.getSequence(), event));
+        return events.values().stream().limit(limit).collect(Collectors.toList());
+    }
+
+    public static OrderEventDTO toDTO(OrderEvent event) {
+        return new OrderEventDTO(
+                event.getId(),
+                event.getOrderId(),
+                event.getFromStatus() != null ? event.getFromStatus().name() : null,
+                event.getToStatus().name(),
+                event.getActor(),
+                event.getOccurredAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                event.getSequence()
+        );
+    }
+}
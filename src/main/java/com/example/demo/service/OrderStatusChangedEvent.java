@@ -0,0 +1,38 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Order.OrderStatus;
+
+/**
+ * Published when an order moves to a new status; delivered to listeners once its transaction commits.
+ */
+public class OrderStatusChangedEvent {
+
+    private final Long orderId;
+    // The order_events row logging the change
+    private final Long orderEventId;
+    private final Long sellerId;
+    private final OrderStatus status;
+
+    public OrderStatusChangedEvent(Long orderId, Long orderEventId, Long sellerId, OrderStatus status) {
+        this.orderId = orderId;
+        this.orderEventId = orderEventId;
+        this.sellerId = sellerId;
+        this.status = status;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getOrderEventId() {
+        return orderEventId;
+    }
+
+    public Long getSellerId() {
+        return sellerId;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderEventDTO;
+import com.example.demo.entity.OrderEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans order log entries out to the Server-Sent Event streams of the buyer and the seller, once
+ * they have been numbered. The sequence number is the SSE id, the same cursor the event feed uses.
+ *
+ * A subscription is an emitter parked in servlet async mode plus a bounded buffer; no thread is
+ * held while it is idle. Events are written by a virtual thread started per burst, at most one per
+ * subscription at a time, so a client that stops reading blocks only its own writer. A subscriber
+ * whose buffer fills up is disconnected rather than allowed to hold memory; it reconnects with
+ * Last-Event-ID and the gap is replayed from the order log.
+ */
+@Service
+public class OrderStreamHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStreamHub.class);
+
+    private final OrderService orderService;
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService writers;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final long reconnectMs;
+
+    private final Counter overflowed;
+
+    public OrderStreamHub(OrderService orderService,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.orders.stream.buffer-size:64}") int bufferSize,
+                          @Value("${app.orders.stream.timeout-ms:1800000}") long timeoutMs,
+                          @Value("${app.orders.stream.reconnect-ms:3000}") long reconnectMs) {
+        this.orderService = orderService;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.reconnectMs = reconnectMs;
+        this.writers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-stream-writer-", 1).factory());
+
+        this.overflowed = meterRegistry.counter("orders.stream.overflowed");
+        meterRegistry.gauge("orders.stream.subscribers", subscriberCount);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        subscriptions.values().forEach(set -> set.forEach(this::close));
+        writers.shutdown();
+        writers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Opens a stream of the user's order events. With a lastEventId the events numbered after it
+     * are replayed first; live events arriving during the replay are held back and deduplicated.
+     */
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        return attach(userId, lastEventId, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter attach(Long userId, Long lastEventId, SseEmitter emitter) {
+        Subscription subscription = new Subscription(userId, emitter, bufferSize, lastEventId != null);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> close(subscription));
+        emitter.onError(e -> remove(subscription));
+        subscriptions.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        subscriberCount.incrementAndGet();
+
+        // Commits the response headers and tells the client how soon to come back
+        offer(subscription, Message.connected(reconnectMs));
+        if (lastEventId != null) {
+            replay(subscription, lastEventId);
+        }
+        return emitter;
+    }
+
+    private void replay(Subscription subscription, long lastEventId) {
+        // The buffer already holds the connected frame, so a full page means the gap does not fit
+        List<OrderEvent> missed;
+        try {
+            missed = orderService.getEventsAfter(subscription.userId, lastEventId, bufferSize);
+        } catch (RuntimeException e) {
+            logger.error("Replay after event {} failed for user {}: {}", lastEventId, subscription.userId, e.getMessage(), e);
+            close(subscription);
+            return;
+        }
+        synchronized (subscription) {
+            Set<Long> replayed = new HashSet<>();
+            if (missed.size() >= bufferSize) {
+                // Too far behind to replay here: the client pages GET /api/orders/events from its cursor instead
+                offer(subscription, Message.resync(lastEventId));
+            } else {
+                for (OrderEvent event : missed) {
+                    replayed.add(event.getSequence());
+                    offer(subscription, Message.of(OrderService.toDTO(event)));
+                }
+            }
+            for (Message message : subscription.held) {
+                if (!replayed.contains(message.id)) {
+                    offer(subscription, message);
+                }
+            }
+            subscription.held = null;
+        }
+    }
+
+    // Published after the numbers commit, so a plain listener; a replay reading them is deduplicated
+    @EventListener
+    public void onOrderEventsSequenced(OrderEventsSequencedEvent sequenced) {
+        for (OrderEvent event : sequenced.getEvents()) {
+            Message message = Message.of(OrderService.toDTO(event));
+            publish(event.getBuyerId(), message);
+            if (!event.getSellerId().equals(event.getBuyerId())) {
+                publish(event.getSellerId(), message);
+            }
+        }
+    }
+
+    private void publish(Long userId, Message message) {
+        Set<Subscription> userSubscriptions = subscriptions.get(userId);
+        if (userSubscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : userSubscriptions) {
+            synchronized (subscription) {
+                if (subscription.held != null) {
+                    if (subscription.held.size() >= bufferSize) {
+                        overflow(subscription);
+                    } else {
+                        subscription.held.add(message);
+                    }
+                    continue;
+                }
+            }
+            offer(subscription, message);
+        }
+    }
+
+    // Keeps idle connections open through proxies that drop silent ones
+    @Scheduled(fixedDelayString = "${app.orders.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        Message heartbeat = Message.heartbeat();
+        subscriptions.values().forEach(set -> set.forEach(subscription -> offer(subscription, heartbeat)));
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void offer(Subscription subscription, Message message) {
+        if (subscription.closed.get()) {
+            return;
+        }
+        if (!subscription.buffer.offer(message)) {
+            overflow(subscription);
+            return;
+        }
+        if (subscription.draining.compareAndSet(false, true)) {
+            writers.execute(() -> drain(subscription));
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        try {
+            Message message;
+            while ((message = subscription.buffer.poll()) != null) {
+                subscription.emitter.send(message.toEvent());
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Order stream of user {} went away: {}", subscription.userId, e.getMessage());
+            close(subscription);
+            return;
+        } finally {
+            subscription.draining.set(false);
+        }
+        // A message offered after the last poll but before the flag was cleared still needs a writer
+        if (!subscription.buffer.isEmpty() && subscription.draining.compareAndSet(false, true)) {
+            writers.execute(() -> drain(subscription));
+        }
+    }
+
+    private void overflow(Subscription subscription) {
+        overflowed.increment();
+        logger.info("Order stream of user {} fell {} events behind; disconnecting", subscription.userId, bufferSize);
+        close(subscription);
+    }
+
+    private void close(Subscription subscription) {
+        if (remove(subscription)) {
+            subscription.buffer.clear();
+            try {
+                subscription.emitter.complete();
+            } catch (RuntimeException e) {
+                logger.debug("Completing order stream of user {} failed: {}", subscription.userId, e.getMessage());
+            }
+        }
+    }
+
+    private boolean remove(Subscription subscription) {
+        if (!subscription.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        subscriptions.computeIfPresent(subscription.userId, (id, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+        subscriberCount.decrementAndGet();
+        return true;
+    }
+
+    private static final class Subscription {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Message> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Live events received while the replay runs; null once it has finished
+        private List<Message> held;
+
+        private Subscription(Long userId, SseEmitter emitter, int bufferSize, boolean replaying) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+            this.held = replaying ? new ArrayList<>() : null;
+        }
+    }
+
+    // Shared between subscribers, so the SSE frame is built per send
+    private static final class Message {
+        private final Long id;
+        private final String name;
+        private final Object data;
+        private final Long reconnectMs;
+
+        private Message(Long id, String name, Object data, Long reconnectMs) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+            this.reconnectMs = reconnectMs;
+        }
+
+        static Message of(OrderEventDTO event) {
+            return new Message(event.getSequence(), "order", event, null);
+        }
+
+        static Message resync(long lastEventId) {
+            return new Message(null, "resync", lastEventId, null);
+        }
+
+        static Message connected(long reconnectMs) {
+            return new Message(null, null, null, reconnectMs);
+        }
+
+        static Message heartbeat() {
+            return new Message(null, null, null, null);
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            SseEmitter.SseEventBuilder event = SseEmitter.event();
+            if (data == null) {
+                event.comment(reconnectMs != null ? "connected" : "heartbeat");
+                if (reconnectMs != null) {
+                    event.reconnectTime(reconnectMs);
+                }
+                return event;
+            }
+            if (id != null) {
+                event.id(String.valueOf(id));
+            }
+            return event.name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductDTO;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.SellerReputation;
+import com.example.demo.repository.ProductDetailVersion;
+import com.example.demo.repository.ProductRatingSummaryRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.SellerReputationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Serialized product detail payloads keyed by product id. Caffeine's W-TinyLFU policy keeps the
+ * products that are actually hot, the weigher bounds the cache by payload bytes, and concurrent
+ * misses for the same id wait on a single database load.
+ */
+@Service
+public class ProductDetailCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductDetailCache.class);
+
+    private final ProductRepository productRepository;
+    private final ProductRatingSummaryRepository ratingSummaryRepository;
+    private final SellerReputationRepository reputationRepository;
+    private final ProductMapper productMapper;
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, Entry> cache;
+
+    public ProductDetailCache(ProductRepository productRepository,
+                              ProductRatingSummaryRepository ratingSummaryRepository,
+                              SellerReputationRepository reputationRepository,
+                              ProductMapper productMapper,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.cache.product-detail.max-bytes:67108864}") long maxBytes) {
+        this.productRepository = productRepository;
+        this.ratingSummaryRepository = ratingSummaryRepository;
+        this.reputationRepository = reputationRepository;
+        this.productMapper = productMapper;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, Entry entry) -> entry.getBody().length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productDetail");
+    }
+
+    /**
+     * Returns the detail payload of a product, loading it on a miss, or null if it doesn't exist.
+     */
+    public Entry get(Long productId) {
+        return cache.get(productId, this::load);
+    }
+
+    public Entry getIfPresent(Long productId) {
+        return cache.getIfPresent(productId);
+    }
+
+    public void invalidate(Long productId) {
+        cache.invalidate(productId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Entry load(Long productId) {
+        logger.info("Loading product detail for ID {} into cache", productId);
+        return productRepository.findWithSellerById(productId)
+                .map(this::serialize)
+                .orElse(null);
+    }
+
+    private Entry serialize(Product product) {
+        try {
+            ProductDTO productDTO = productMapper.toDTO(product, ImageVariant.DETAIL);
+            productDTO.setRating(ReviewService.toDTO(ratingSummaryRepository.findById(product.getId()).orElse(null)));
+            SellerReputation reputation = reputationRepository.findById(product.getSeller().getId()).orElse(null);
+            productDTO.setSellerReputation(SellerReputationService.toDTO(reputation));
+            byte[] body = objectMapper.writeValueAsBytes(productDTO);
+            return new Entry(product.getId(), product.getVersion(), product.getUpdatedAt(),
+                    reputation != null ? reputation.getVersion() : 0, body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize product " + product.getId(), e);
+        }
+    }
+
+    /**
+     * JSON body of a product together with the versions it was serialized from.
+     */
+    public static class Entry implements ProductDetailVersion {
+
+        private final Long id;
+        private final long version;
+        private final LocalDateTime updatedAt;
+        private final long reputationVersion;
+        private final byte[] body;
+
+        Entry(Long id, long version, LocalDateTime updatedAt, long reputationVersion, byte[] body) {
+            this.id = id;
+            this.version = version;
+            this.updatedAt = updatedAt;
+            this.reputationVersion = reputationVersion;
+            this.body = body;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+
+        @Override
+        public long getReputationVersion() {
+            return reputationVersion;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Product;
+import com.example.demo.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as newline-delimited JSON in constant memory: products are streamed
+ * from the database, serialized one at a time and evicted from the persistence context in batches.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductExportService.class);
+    private static final int CLEAR_INTERVAL = 500;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    public void writeNdjson(OutputStream out) throws IOException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Product> products = productRepository.streamAllWithSeller();
+                     JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                    generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                    generator.setRootValueSeparator(null);
+                    long count = 0;
+                    Iterator<Product> iterator = products.iterator();
+                    while (iterator.hasNext()) {
+                        generator.writeObject(productMapper.toDTO(iterator.next(), ImageVariant.THUMBNAIL));
+                        generator.writeRaw('\n');
+                        if (++count % CLEAR_INTERVAL == 0) {
+                            entityManager.clear();
+                            generator.flush();
+                        }
+                    }
+                    generator.flush();
+                    logger.info("Exported {} products", count);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            logger.warn("Product export aborted: {}", e.getMessage());
+            throw e.getCause();
+        }
+    }
+}
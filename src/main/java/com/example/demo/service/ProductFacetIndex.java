@@ -0,0 +1,185 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FacetCountsDTO;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet counts for the browse UI, kept as one compressed bitmap of product ids per category,
+ * item condition and price bucket. A filter combination is the intersection of its bitmaps, and
+ * each count is the cardinality of that intersection with a facet value's bitmap.
+ */
+public class ProductFacetIndex {
+
+    private static final double[] PRICE_BOUNDS = {50, 100, 200, 500, 1000};
+    private static final String[] PRICE_BUCKETS = {"0-50", "50-100", "100-200", "200-500", "500-1000", "1000+"};
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, RoaringBitmap> byCategory = new HashMap<>();
+    private final Map<String, RoaringBitmap> byCondition = new HashMap<>();
+    private final Map<String, RoaringBitmap> byPriceBucket = new HashMap<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final RoaringBitmap unavailable = new RoaringBitmap();
+
+    public static String priceBucket(Double price) {
+        if (price == null) {
+            return null;
+        }
+        for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+            if (price < PRICE_BOUNDS[i]) {
+                return PRICE_BUCKETS[i];
+            }
+        }
+        return PRICE_BUCKETS[PRICE_BUCKETS.length - 1];
+    }
+
+    public void add(long productId, String category, String itemCondition, Double price, boolean available) {
+        int id = Math.toIntExact(productId);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            all.add(id);
+            addTo(byCategory, category, id);
+            addTo(byCondition, itemCondition, id);
+            addTo(byPriceBucket, priceBucket(price), id);
+            if (!available) {
+                unavailable.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(Math.toIntExact(productId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setAvailable(long productId, boolean available) {
+        int id = Math.toIntExact(productId);
+        lock.writeLock().lock();
+        try {
+            if (available) {
+                unavailable.remove(id);
+            } else if (all.contains(id)) {
+                unavailable.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setPrice(long productId, Double price) {
+        int id = Math.toIntExact(productId);
+        lock.writeLock().lock();
+        try {
+            if (all.contains(id)) {
+                byPriceBucket.values().forEach(bitmap -> bitmap.remove(id));
+                addTo(byPriceBucket, priceBucket(price), id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Only products known to the index can be reported sold; anything else is left to the database
+    public boolean isSold(long productId) {
+        if (productId < 0 || productId > Integer.MAX_VALUE) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return unavailable.contains((int) productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public FacetCountsDTO count(String category, String itemCondition, String priceBucket, boolean availableOnly) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap base = availableOnly ? RoaringBitmap.andNot(all, unavailable) : all;
+            RoaringBitmap categoryFilter = filter(byCategory, category);
+            RoaringBitmap conditionFilter = filter(byCondition, itemCondition);
+            RoaringBitmap priceFilter = filter(byPriceBucket, priceBucket);
+
+            // Each facet is counted under every filter except its own, so the UI can offer alternatives
+            RoaringBitmap forCategories = intersect(base, conditionFilter, priceFilter);
+            RoaringBitmap forConditions = intersect(base, categoryFilter, priceFilter);
+            RoaringBitmap forPrices = intersect(base, categoryFilter, conditionFilter);
+            long total = intersect(forCategories, categoryFilter, null).getLongCardinality();
+
+            return new FacetCountsDTO(
+                    total,
+                    counts(byCategory, forCategories, true),
+                    counts(byCondition, forConditions, true),
+                    counts(byPriceBucket, forPrices, false));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(int id) {
+        if (!all.contains(id)) {
+            return;
+        }
+        all.remove(id);
+        unavailable.remove(id);
+        byCategory.values().forEach(bitmap -> bitmap.remove(id));
+        byCondition.values().forEach(bitmap -> bitmap.remove(id));
+        byPriceBucket.values().forEach(bitmap -> bitmap.remove(id));
+    }
+
+    private static void addTo(Map<String, RoaringBitmap> facet, String value, int id) {
+        if (value != null && !value.isBlank()) {
+            facet.computeIfAbsent(value, v -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    // null means "no filter"; an unknown value matches nothing
+    private static RoaringBitmap filter(Map<String, RoaringBitmap> facet, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return facet.getOrDefault(value, new RoaringBitmap());
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap base, RoaringBitmap first, RoaringBitmap second) {
+        RoaringBitmap result = first != null ? RoaringBitmap.and(base, first) : base;
+        return second != null ? RoaringBitmap.and(result, second) : result;
+    }
+
+    private static Map<String, Long> counts(Map<String, RoaringBitmap> facet, RoaringBitmap mask, boolean byCountDescending) {
+        Map<String, Long> unordered = new HashMap<>();
+        facet.forEach((value, bitmap) -> {
+            long count = RoaringBitmap.andCardinality(mask, bitmap);
+            if (count > 0) {
+                unordered.put(value, count);
+            }
+        });
+        Comparator<Map.Entry<String, Long>> order = byCountDescending
+                ? Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey())
+                : Comparator.comparingInt(entry -> bucketIndex(entry.getKey()));
+        Map<String, Long> ordered = new LinkedHashMap<>();
+        unordered.entrySet().stream().sorted(order).forEach(entry -> ordered.put(entry.getKey(), entry.getValue()));
+        return ordered;
+    }
+
+    private static int bucketIndex(String bucket) {
+        for (int i = 0; i < PRICE_BUCKETS.length; i++) {
+            if (PRICE_BUCKETS[i].equals(bucket)) {
+                return i;
+            }
+        }
+        return PRICE_BUCKETS.length;
+    }
+}
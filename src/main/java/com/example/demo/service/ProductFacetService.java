@@ -0,0 +1,81 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FacetCountsDTO;
+import com.example.demo.entity.Product;
+import com.example.demo.repository.ProductFacetRow;
+import com.example.demo.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Keeps the {@link ProductFacetIndex} in sync with products and orders: loaded once at startup,
+ * then updated as products are created or deleted and as they get ordered.
+ */
+@Service
+public class ProductFacetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetService.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${app.facets.rebuild.chunk-size:10000}")
+    private int chunkSize;
+
+    private final ProductFacetIndex index = new ProductFacetIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        Long minId = productRepository.findMinId();
+        Long maxId = productRepository.findMaxId();
+        if (minId == null) {
+            logger.info("Facet index rebuild skipped: no products");
+            return;
+        }
+        for (long from = minId; from <= maxId; from += chunkSize) {
+            List<ProductFacetRow> rows = productRepository.findFacetRows(from, Math.min(maxId, from + chunkSize - 1));
+            for (ProductFacetRow row : rows) {
+                index.add(row.getId(), row.getCategory(), row.getItemCondition(), row.getPrice(), row.isAvailable());
+            }
+        }
+        logger.info("Facet index rebuilt in {} ms", System.currentTimeMillis() - started);
+    }
+
+    public void index(Product product) {
+        index.add(product.getId(), product.getCategory(), product.getItemCondition(), product.getPrice(), product.isAvailable());
+    }
+
+    public void remove(Long productId) {
+        index.remove(productId);
+    }
+
+    public void markOrdered(Long productId) {
+        index.setAvailable(productId, false);
+    }
+
+    public void markAvailable(Long productId) {
+        index.setAvailable(productId, true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceChanged(ProductPriceChangedEvent event) {
+        index.setPrice(event.getProductId(), event.getNewPrice());
+    }
+
+    public boolean isSold(Long productId) {
+        return index.isSold(productId);
+    }
+
+    public FacetCountsDTO count(String category, String itemCondition, String priceBucket, boolean availableOnly) {
+        return index.count(category, itemCondition, priceBucket, availableOnly);
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductDTO;
+import com.example.demo.dto.ProductImportReportDTO;
+import com.example.demo.dto.ProductImportResultDTO;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.util.CsvLines;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk product import. The input is read line by line, each row is validated on its own, and valid
+ * rows are inserted in batches of app.import.batch-size, one transaction per batch, so memory stays
+ * flat and a bad batch doesn't undo the ones already committed.
+ */
+@Service
+public class ProductImportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    public ProductImportReportDTO importProducts(InputStream input, Format format, Long sellerId) throws IOException {
+        ObjectReader rowReader = objectMapper.readerFor(ProductDTO.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<ProductImportResultDTO> results = new ArrayList<>();
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        Map<String, Integer> columns = null;
+        if (format == Format.CSV) {
+            String header = reader.readLine();
+            lineNumber++;
+            if (header == null) {
+                return new ProductImportReportDTO(0, 0, results);
+            }
+            columns = csvColumns(header);
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            ProductImportResultDTO result = new ProductImportResultDTO(lineNumber);
+            results.add(result);
+            try {
+                ProductDTO row = format == Format.CSV ? csvRow(line, columns) : rowReader.readValue(line);
+                validate(row);
+                batch.add(new PendingRow(row, result));
+            } catch (JsonProcessingException e) {
+                result.failed("Invalid JSON: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                result.failed(e.getMessage());
+            }
+            if (batch.size() == batchSize) {
+                insertBatch(batch, sellerId, transactionTemplate);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch, sellerId, transactionTemplate);
+        }
+
+        int created = (int) results.stream().filter(result -> ProductImportResultDTO.CREATED.equals(result.getStatus())).count();
+        logger.info("Imported {} of {} rows for seller {}", created, results.size(), sellerId);
+        return new ProductImportReportDTO(created, results.size() - created, results);
+    }
+
+    private void insertBatch(List<PendingRow> batch, Long sellerId, TransactionTemplate transactionTemplate) {
+        List<Product> products;
+        try {
+            products = transactionTemplate.execute(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                User seller = entityManager.getReference(User.class, sellerId);
+                List<Product> persisted = new ArrayList<>(batch.size());
+                for (PendingRow row : batch) {
+                    Product product = toProduct(row.product, seller);
+                    entityManager.persist(product);
+                    persisted.add(product);
+                }
+                entityManager.flush();
+                entityManager.clear();
+                return persisted;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Import batch of {} rows failed: {}", batch.size(), e.getMessage(), e);
+            for (PendingRow row : batch) {
+                row.result.failed("Batch rejected by the database: " + e.getMessage());
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Product product = products.get(i);
+            batch.get(i).result.created(product.getId());
+            productSearchService.index(product);
+            productFacetService.index(product);
+        }
+    }
+
+    private static Product toProduct(ProductDTO row, User seller) {
+        Product product = new Product();
+        product.setTitle(row.getTitle().trim());
+        product.setDescription(row.getDescription());
+        product.setPrice(row.getPrice());
+        product.setCategory(row.getCategory());
+        product.setItemCondition(row.getItemCondition());
+        product.setSeller(seller);
+        return product;
+    }
+
+    private static void validate(ProductDTO row) {
+        if (row == null) {
+            throw new IllegalArgumentException("Row is empty");
+        }
+        if (row.getTitle() == null || row.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Title is required");
+        }
+        if (row.getPrice() == null || row.getPrice() < 0) {
+            throw new IllegalArgumentException("Price must be zero or more");
+        }
+        // Double.parseDouble accepts NaN and Infinity, which the database rejects for the whole batch
+        if (!Double.isFinite(row.getPrice())) {
+            throw new IllegalArgumentException("Price must be a finite number");
+        }
+        checkLength("Title", row.getTitle());
+        checkLength("Description", row.getDescription());
+        checkLength("Category", row.getCategory());
+        checkLength("Item condition", row.getItemCondition());
+    }
+
+    private static void checkLength(String field, String value) {
+        if (value != null && value.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException(field + " exceeds " + MAX_TEXT_LENGTH + " characters");
+        }
+    }
+
+    private static Map<String, Integer> csvColumns(String header) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = CsvLines.split(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("title") || !columns.containsKey("price")) {
+            throw new IllegalArgumentException("CSV header must name at least the title and price columns");
+        }
+        return columns;
+    }
+
+    private static ProductDTO csvRow(String line, Map<String, Integer> columns) {
+        List<String> fields = CsvLines.split(line);
+        ProductDTO row = new ProductDTO();
+        row.setTitle(field(fields, columns, "title"));
+        row.setDescription(field(fields, columns, "description"));
+        row.setCategory(field(fields, columns, "category"));
+        row.setItemCondition(field(fields, columns, "itemcondition"));
+        String price = field(fields, columns, "price");
+        if (price != null) {
+            try {
+                row.setPrice(Double.parseDouble(price));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Price is not a number: " + price);
+            }
+        }
+        return row;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static class PendingRow {
+        private final ProductDTO product;
+        private final ProductImportResultDTO result;
+
+        PendingRow(ProductDTO product, ProductImportResultDTO result) {
+            this.product = product;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductDTO;
+import com.example.demo.entity.Product;
+import com.example.demo.repository.ProductListing;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductMapper {
+
+    public ProductDTO toDTO(Product product, ImageVariant variant) {
+        return toDTO(product, product.getSeller().getEmail(), variant);
+    }
+
+    // For a product whose seller is only a reference, when the caller already knows the email
+    public ProductDTO toDTO(Product product, String sellerEmail, ImageVariant variant) {
+        return new ProductDTO(
+                product.getId(),
+                product.getTitle(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getCategory(),
+                product.getItemCondition(),
+                sellerEmail,
+                imageUrl(product.getId(), product.getImageHash(), variant, variantHash(product, variant))
+        );
+    }
+
+    public ProductDTO toDTO(ProductListing listing) {
+        return new ProductDTO(
+                listing.getId(),
+                listing.getTitle(),
+                listing.getDescription(),
+                listing.getPrice(),
+                listing.getCategory(),
+                listing.getItemCondition(),
+                listing.getSellerEmail(),
+                imageUrl(listing.getId(), listing.getImageHash(), ImageVariant.THUMBNAIL, listing.getThumbnailHash())
+        );
+    }
+
+    private static String variantHash(Product product, ImageVariant variant) {
+        switch (variant) {
+            case THUMBNAIL:
+                return product.getThumbnailHash();
+            case DETAIL:
+                return product.getDetailHash();
+            default:
+                return product.getFullHash();
+        }
+    }
+
+    // The hash in the query string makes the URL change whenever the served bytes do
+    static String imageUrl(Long productId, String imageHash, ImageVariant variant, String variantHash) {
+        if (imageHash == null) {
+            return null;
+        }
+        String version = variantHash != null ? variantHash : imageHash;
+        return "/api/products/" + productId + "/image?variant=" + variant.paramName() + "&v=" + version.substring(0, 16);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.service;
+
+/**
+ * Published when a seller changes a product's price; delivered to listeners once its transaction commits.
+ */
+public class ProductPriceChangedEvent {
+
+    private final Long productId;
+    private final Double oldPrice;
+    private final Double newPrice;
+
+    public ProductPriceChangedEvent(Long productId, Double oldPrice, Double newPrice) {
+        this.productId = productId;
+        this.oldPrice = oldPrice;
+        this.newPrice = newPrice;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Double getOldPrice() {
+        return oldPrice;
+    }
+
+    public Double getNewPrice() {
+        return newPrice;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Product;
+import com.example.demo.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class ProductPriceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductPriceService.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Changes the price of one of the seller's products and returns the previous price. Nothing is
+     * written when the price is unchanged; otherwise the change is published once it commits, for
+     * the facet index and the price-drop alerts.
+     */
+    @Transactional
+    public Double updatePrice(Long productId, String sellerEmail, Double price) {
+        logger.info("Updating price of product ID {} to {} for seller {}", productId, price, sellerEmail);
+        Product product = productRepository.findWithSellerById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        if (!product.getSeller().getEmail().equals(sellerEmail)) {
+            throw new RuntimeException("You are not authorized to update this product");
+        }
+        Double oldPrice = product.getPrice();
+        if (oldPrice.equals(price)) {
+            return oldPrice;
+        }
+        if (productRepository.updatePrice(productId, oldPrice, price) == 0) {
+            throw new IllegalStateException("The price was changed concurrently, please retry");
+        }
+        eventPublisher.publishEvent(new ProductPriceChangedEvent(productId, oldPrice, price));
+        logger.info("Price of product ID {} changed from {} to {}", productId, oldPrice, price);
+        return oldPrice;
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.demo.service;
+
+import com.example.demo.util.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product title, category and description, ranked with BM25.
+ * Documents get increasing ordinals, so every postings list stays sorted by ordinal and queries
+ * are a merge of the query terms' lists. Deleted documents are tombstoned and dropped from the
+ * postings lists once enough of them accumulate.
+ */
+public class ProductSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private long[] productIds = new long[1024];
+    private int[] lengths = new int[1024];
+    private int nextOrdinal;
+    private int liveCount;
+    private long totalLength;
+    private int tombstones;
+
+    /**
+     * Tokenizes a product into weighted term frequencies. Safe to call concurrently and without
+     * holding the index lock, which is what lets rebuilds analyze chunks in parallel.
+     */
+    public static Document analyze(long productId, String title, String description, String category) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = addTerms(frequencies, title, TITLE_WEIGHT)
+                + addTerms(frequencies, category, CATEGORY_WEIGHT)
+                + addTerms(frequencies, description, DESCRIPTION_WEIGHT);
+        String[] terms = new String[frequencies.size()];
+        int[] counts = new int[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            terms[i] = entry.getKey();
+            counts[i] = entry.getValue();
+            i++;
+        }
+        return new Document(productId, terms, counts, length);
+    }
+
+    private static int addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> tokens = TextNormalizer.tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    public void add(Document document) {
+        lock.writeLock().lock();
+        try {
+            addLocked(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAll(Collection<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            for (Document document : documents) {
+                addLocked(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Hit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) {
+                return List.of();
+            }
+            float averageLength = Math.max(1f, (float) totalLength / liveCount);
+            Postings[] lists = new Postings[terms.size()];
+            float[] idfs = new float[terms.size()];
+            int listCount = 0;
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list != null && list.size > 0) {
+                    int df = Math.min(list.size, liveCount);
+                    lists[listCount] = list;
+                    idfs[listCount] = (float) Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+                    listCount++;
+                }
+            }
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(a.score, b.score));
+            int[] positions = new int[listCount];
+            while (true) {
+                int doc = Integer.MAX_VALUE;
+                for (int i = 0; i < listCount; i++) {
+                    if (positions[i] < lists[i].size) {
+                        doc = Math.min(doc, lists[i].docs[positions[i]]);
+                    }
+                }
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+                float score = 0;
+                float norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                for (int i = 0; i < listCount; i++) {
+                    Postings list = lists[i];
+                    if (positions[i] < list.size && list.docs[positions[i]] == doc) {
+                        int tf = list.freqs[positions[i]];
+                        score += idfs[i] * tf * (K1 + 1) / (tf + norm);
+                        positions[i]++;
+                    }
+                }
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(new Hit(productIds[doc], score));
+                } else if (score > top.peek().score) {
+                    top.poll();
+                    top.add(new Hit(productIds[doc], score));
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort((a, b) -> Float.compare(b.score, a.score));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLocked(Document document) {
+        removeLocked(document.productId);
+        int ordinal = nextOrdinal++;
+        if (ordinal == productIds.length) {
+            productIds = Arrays.copyOf(productIds, ordinal * 2);
+            lengths = Arrays.copyOf(lengths, ordinal * 2);
+        }
+        productIds[ordinal] = document.productId;
+        lengths[ordinal] = document.length;
+        ordinals.put(document.productId, ordinal);
+        for (int i = 0; i < document.terms.length; i++) {
+            postings.computeIfAbsent(document.terms[i], term -> new Postings()).append(ordinal, document.frequencies[i]);
+        }
+        liveCount++;
+        totalLength += document.length;
+    }
+
+    private void removeLocked(long productId) {
+        Integer ordinal = ordinals.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        deleted.set(ordinal);
+        liveCount--;
+        totalLength -= lengths[ordinal];
+        tombstones++;
+    }
+
+    // Rewrites postings without deleted documents once they make up a quarter of the index
+    private void compactIfNeeded() {
+        if (tombstones < 1024 || tombstones < liveCount / 4) {
+            return;
+        }
+        postings.values().removeIf(list -> {
+            list.removeDeleted(deleted);
+            return list.size == 0;
+        });
+        tombstones = 0;
+    }
+
+    public static final class Document {
+        private final long productId;
+        private final String[] terms;
+        private final int[] frequencies;
+        private final int length;
+
+        private Document(long productId, String[] terms, int[] frequencies, int length) {
+            this.productId = productId;
+            this.terms = terms;
+            this.frequencies = frequencies;
+            this.length = length;
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+    }
+
+    public static final class Hit {
+        private final long productId;
+        private final float score;
+
+        Hit(long productId, float score) {
+            this.productId = productId;
+            this.score = score;
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void append(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        void removeDeleted(BitSet deleted) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!deleted.get(docs[i])) {
+                    docs[kept] = docs[i];
+                    freqs[kept] = freqs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+}
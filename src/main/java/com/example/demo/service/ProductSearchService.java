@@ -0,0 +1,104 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Product;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.ProductSearchDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the {@link ProductSearchIndex} in sync with the products table: a parallel rebuild at
+ * startup, then incremental updates as products are created and deleted.
+ */
+@Service
+public class ProductSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${app.search.rebuild.threads:4}")
+    private int rebuildThreads;
+
+    @Value("${app.search.rebuild.chunk-size:10000}")
+    private int chunkSize;
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    // Deletions seen while a rebuild is running, replayed afterwards in case a chunk re-added them
+    private final Set<Long> removedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread worker = new Thread(this::rebuild, "search-index-rebuild");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        Long minId = productRepository.findMinId();
+        Long maxId = productRepository.findMaxId();
+        if (minId == null) {
+            logger.info("Search index rebuild skipped: no products");
+            return;
+        }
+
+        rebuilding = true;
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                long fromId = from;
+                long toId = Math.min(maxId, from + chunkSize - 1);
+                chunks.add(CompletableFuture.runAsync(() -> indexChunk(fromId, toId), executor));
+            }
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdown();
+            rebuilding = false;
+            removedDuringRebuild.forEach(index::remove);
+            removedDuringRebuild.clear();
+        }
+        logger.info("Search index rebuilt with {} products in {} ms", index.size(), System.currentTimeMillis() - started);
+    }
+
+    private void indexChunk(long fromId, long toId) {
+        List<ProductSearchDocument> rows = productRepository.findSearchDocuments(fromId, toId);
+        List<ProductSearchIndex.Document> documents = rows.stream()
+                .map(row -> ProductSearchIndex.analyze(row.getId(), row.getTitle(), row.getDescription(), row.getCategory()))
+                .collect(Collectors.toList());
+        index.addAll(documents);
+    }
+
+    public void index(Product product) {
+        index.add(ProductSearchIndex.analyze(product.getId(), product.getTitle(), product.getDescription(), product.getCategory()));
+    }
+
+    public void remove(Long productId) {
+        if (rebuilding) {
+            removedDuringRebuild.add(productId);
+        }
+        index.remove(productId);
+    }
+
+    public List<ProductSearchIndex.Hit> search(String query, int limit) {
+        return index.search(query, limit);
+    }
+}
@@ -0,0 +1,513 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductDTO;
+import com.example.demo.entity.ProductPopularity;
+import com.example.demo.repository.ProductFacetRow;
+import com.example.demo.repository.ProductListing;
+import com.example.demo.repository.ProductPopularityRepository;
+import com.example.demo.repository.ProductPopularityRow;
+import com.example.demo.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Ranks products by a time-decayed popularity score for the trending rail, served from memory.
+ *
+ * Views, wishlist changes and reviews only bump striped {@link LongAdder} counters, so requests
+ * for the same product never contend. Every flush interval a single pass drains the counters,
+ * upserts the deltas of the touched products in JDBC batches, and folds the resulting scores into
+ * the top-K heap of each category. The upsert decays the stored score to now and adds the new
+ * points in the database, so instances flushing the same product add up instead of overwriting
+ * each other; the scores are read back in the same transaction.
+ *
+ * Scores halve every half-life. Rather than decaying every score on every pass, scores are kept
+ * relative to a landmark time and new points are scaled up by how far past it they arrive; a
+ * uniform decay never reorders products, so the heaps only change when a product gains or loses
+ * points. The landmark moves forward before the scale factor grows large, and products whose
+ * score has decayed to nothing are forgotten then.
+ */
+@Service
+public class ProductTrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductTrendingService.class);
+
+    // Ranking key across all categories
+    private static final String ALL = "";
+    private static final double MIN_SCORE = 0.01;
+    // The landmark moves once new points are scaled by 2^REBASE_HALF_LIVES
+    private static final int REBASE_HALF_LIVES = 7;
+    // Rows scored longer ago than this have decayed to nothing
+    private static final int LOAD_HALF_LIVES = 30;
+
+    // score is assigned before scored_at, so it is decayed over the time since the previous write
+    private static final String UPSERT = "INSERT INTO product_popularity " +
+            "(product_id, view_count, wishlist_count, review_count, score, scored_at) VALUES (?, ?, ?, ?, GREATEST(0, ?), ?) " +
+            "ON DUPLICATE KEY UPDATE view_count = view_count + ?, wishlist_count = wishlist_count + ?, " +
+            "review_count = review_count + ?, " +
+            "score = GREATEST(0, score * EXP(? * TIMESTAMPDIFF(MICROSECOND, scored_at, ?)) + ?), scored_at = ?";
+
+    private static final Comparator<Entry> BY_SCORE =
+            Comparator.comparingDouble((Entry entry) -> entry.score).thenComparingLong(entry -> entry.productId);
+
+    private final ProductPopularityRepository popularityRepository;
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final ProductFacetService productFacetService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double decayPerMs;
+    private final double viewWeight;
+    private final double wishlistWeight;
+    private final double reviewWeight;
+    private final int topK;
+    private final int batchSize;
+
+    private final ConcurrentHashMap<Long, Counters> pending = new ConcurrentHashMap<>();
+    // Everything below is only touched with the lock held
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, TopK> rankings = new HashMap<>();
+    private long landmark = System.currentTimeMillis();
+
+    // Ranked products per category, rebuilt by each pass and read without the lock
+    private volatile Map<String, List<ProductDTO>> snapshot = Map.of();
+
+    private final Timer flushTimer;
+
+    public ProductTrendingService(ProductPopularityRepository popularityRepository,
+                                  ProductRepository productRepository,
+                                  ProductMapper productMapper,
+                                  ProductFacetService productFacetService,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.trending.half-life-hours:24}") double halfLifeHours,
+                                  @Value("${app.trending.weight.view:1}") double viewWeight,
+                                  @Value("${app.trending.weight.wishlist:5}") double wishlistWeight,
+                                  @Value("${app.trending.weight.review:10}") double reviewWeight,
+                                  @Value("${app.trending.top-k:100}") int topK,
+                                  @Value("${app.trending.batch-size:500}") int batchSize) {
+        this.popularityRepository = popularityRepository;
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.productFacetService = productFacetService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.decayPerMs = Math.log(2) / (halfLifeHours * 3_600_000);
+        this.viewWeight = viewWeight;
+        this.wishlistWeight = wishlistWeight;
+        this.reviewWeight = reviewWeight;
+        this.topK = topK;
+        this.batchSize = batchSize;
+
+        this.flushTimer = meterRegistry.timer("trending.flush");
+        meterRegistry.gauge("trending.pending", pending, Map::size);
+    }
+
+    public int getMaxResults() {
+        return topK;
+    }
+
+    public void recordView(Long productId) {
+        counters(productId).views.increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWishlistChanged(WishlistChangedEvent event) {
+        // A cleared wishlist doesn't say which products it held; their points simply decay
+        if (event.isCleared()) {
+            return;
+        }
+        if (event.isAdded()) {
+            counters(event.getProductId()).wishlists.increment();
+        } else {
+            counters(event.getProductId()).wishlists.decrement();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewCreated(ReviewCreatedEvent event) {
+        counters(event.getProductId()).reviews.increment();
+    }
+
+    private Counters counters(Long productId) {
+        Counters counters = pending.get(productId);
+        return counters != null ? counters : pending.computeIfAbsent(productId, id -> new Counters());
+    }
+
+    /**
+     * The most popular products right now, best first, leaving out sold ones. Reads only memory.
+     */
+    public List<ProductDTO> getTrending(String category, int limit) {
+        List<ProductDTO> ranked = snapshot.getOrDefault(category == null ? ALL : category, List.of());
+        return ranked.stream()
+                .filter(product -> !productFacetService.isSold(product.getId()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Rebuilds the rankings from the scores last flushed, decayed to now.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            entries.clear();
+            rankings.clear();
+            landmark = started;
+            LocalDateTime since = toDateTime(started).minus(halfLives(LOAD_HALF_LIVES));
+            for (ProductPopularityRow row : popularityRepository.findScoredSince(since)) {
+                double score = row.getScore() * Math.exp(-decayPerMs * (started - toMillis(row.getScoredAt())));
+                if (score < MIN_SCORE) {
+                    continue;
+                }
+                Entry entry = new Entry(row.getProductId(), row.getCategory());
+                entry.score = score;
+                entries.put(entry.productId, entry);
+                for (TopK ranking : rankingsOf(entry)) {
+                    ranking.offer(entry);
+                }
+            }
+            publish();
+            logger.info("Trending rankings loaded in {} ms: {} products", System.currentTimeMillis() - started, entries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.flush-interval-ms:10000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush popularity counters: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Writes the counted events of every touched product and applies them to the rankings.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            Map<Long, Delta> deltas = drain();
+            if (deltas.isEmpty()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (now - landmark > halfLives(REBASE_HALF_LIVES).toMillis()) {
+                rebase(now);
+            }
+            Set<Long> unknown = new HashSet<>(deltas.keySet());
+            unknown.removeAll(entries.keySet());
+            Map<Long, String> categories = new HashMap<>();
+            if (!unknown.isEmpty()) {
+                for (ProductFacetRow row : productRepository.findFacetRowsByIdIn(unknown)) {
+                    categories.put(row.getId(), row.getCategory());
+                }
+            }
+            // Products deleted since their events were counted
+            unknown.removeAll(categories.keySet());
+            deltas.keySet().removeAll(unknown);
+
+            Map<Long, Double> scores;
+            try {
+                scores = flushTimer.record(() -> write(deltas, now));
+            } catch (RuntimeException e) {
+                // Nothing was written; count these events again on the next pass
+                deltas.forEach((productId, delta) -> delta.restore(counters(productId)));
+                throw e;
+            }
+
+            // Scores as of now, including points flushed by other instances
+            double growth = Math.exp(decayPerMs * (now - landmark));
+            for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                Long productId = score.getKey();
+                Entry entry = entries.computeIfAbsent(productId, id -> new Entry(id, categories.get(id)));
+                apply(entry, score.getValue() * growth);
+            }
+            rebuildStale();
+            publish();
+            logger.debug("Flushed popularity counters of {} products", deltas.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets a deleted product and its counters.
+     */
+    public void remove(Long productId) {
+        lock.lock();
+        try {
+            pending.remove(productId);
+            Entry entry = entries.remove(productId);
+            if (entry != null) {
+                for (TopK ranking : rankingsOf(entry)) {
+                    ranking.remove(entry);
+                }
+                rebuildStale();
+                publish();
+            }
+            popularityRepository.deleteById(productId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<Long, Delta> drain() {
+        Map<Long, Delta> deltas = new HashMap<>();
+        for (Map.Entry<Long, Counters> pendingEntry : pending.entrySet()) {
+            Counters counters = pendingEntry.getValue();
+            Delta delta = new Delta(counters.views.sumThenReset(), counters.wishlists.sumThenReset(),
+                    counters.reviews.sumThenReset());
+            if (delta.isEmpty()) {
+                // Idle for a whole interval; an event landing in between is the only one lost
+                pending.remove(pendingEntry.getKey(), counters);
+            } else {
+                deltas.put(pendingEntry.getKey(), delta);
+            }
+        }
+        return deltas;
+    }
+
+    // Returns each product's stored score decayed to now
+    private Map<Long, Double> write(Map<Long, Delta> deltas, long now) {
+        Timestamp scoredAt = Timestamp.from(Instant.ofEpochMilli(now));
+        double decayPerMicro = decayPerMs / 1000;
+        List<Map.Entry<Long, Delta>> rows = new ArrayList<>(deltas.entrySet());
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(UPSERT, rows, batchSize, (statement, row) -> {
+                Delta delta = row.getValue();
+                statement.setLong(1, row.getKey());
+                statement.setLong(2, delta.views);
+                statement.setLong(3, delta.wishlists);
+                statement.setLong(4, delta.reviews);
+                statement.setDouble(5, delta.points());
+                statement.setTimestamp(6, scoredAt);
+                statement.setLong(7, delta.views);
+                statement.setLong(8, delta.wishlists);
+                statement.setLong(9, delta.reviews);
+                statement.setDouble(10, -decayPerMicro);
+                statement.setTimestamp(11, scoredAt);
+                statement.setDouble(12, delta.points());
+                statement.setTimestamp(13, scoredAt);
+            });
+            // The rows stay locked by the upsert, so these are the scores just written
+            Map<Long, Double> scores = new HashMap<>();
+            for (ProductPopularity row : popularityRepository.findAllById(deltas.keySet())) {
+                scores.put(row.getProductId(), row.getScore() * Math.exp(-decayPerMs * (now - toMillis(row.getScoredAt()))));
+            }
+            return scores;
+        });
+    }
+
+    // Moves a product to its new landmark-relative score in each of its rankings
+    private void apply(Entry entry, double score) {
+        boolean decreased = score < entry.score;
+        List<TopK> entryRankings = rankingsOf(entry);
+        List<Boolean> ranked = new ArrayList<>();
+        // Heap order must not change under the queue, so take the entry out before rescoring it
+        for (TopK ranking : entryRankings) {
+            ranked.add(ranking.heap.remove(entry));
+        }
+        entry.score = score;
+        for (int i = 0; i < entryRankings.size(); i++) {
+            TopK ranking = entryRankings.get(i);
+            if (decreased && ranked.get(i)) {
+                // A product outside the heap may now beat it
+                ranking.stale = true;
+            } else if (!ranking.stale) {
+                ranking.offer(entry);
+            }
+        }
+    }
+
+    // Scales every score to the new landmark; order, and so the heaps, are unaffected
+    private void rebase(long now) {
+        double factor = Math.exp(-decayPerMs * (now - landmark));
+        Set<Entry> ranked = Collections.newSetFromMap(new IdentityHashMap<>());
+        rankings.values().forEach(ranking -> ranked.addAll(ranking.heap));
+        entries.values().removeIf(entry -> {
+            entry.score *= factor;
+            return entry.score < MIN_SCORE && !ranked.contains(entry);
+        });
+        landmark = now;
+    }
+
+    private void rebuildStale() {
+        for (Map.Entry<String, TopK> ranking : rankings.entrySet()) {
+            if (ranking.getValue().stale) {
+                ranking.getValue().rebuild(entries.values().stream()
+                        .filter(entry -> ranking.getKey().equals(ALL) || ranking.getKey().equals(entry.category)));
+            }
+        }
+    }
+
+    private void publish() {
+        Set<Long> ids = new HashSet<>();
+        rankings.values().forEach(ranking -> ranking.heap.forEach(entry -> ids.add(entry.productId)));
+        Map<Long, ProductDTO> products = ids.isEmpty() ? Map.of() : productRepository.findListingsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductListing::getId, productMapper::toDTO));
+        Map<String, List<ProductDTO>> next = new HashMap<>();
+        for (Map.Entry<String, TopK> ranking : rankings.entrySet()) {
+            List<ProductDTO> ranked = ranking.getValue().heap.stream()
+                    .sorted(BY_SCORE.reversed())
+                    .map(entry -> products.get(entry.productId))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            next.put(ranking.getKey(), ranked);
+        }
+        snapshot = next;
+    }
+
+    private List<TopK> rankingsOf(Entry entry) {
+        List<TopK> entryRankings = new ArrayList<>(2);
+        entryRankings.add(rankings.computeIfAbsent(ALL, key -> new TopK(topK)));
+        if (entry.category != null) {
+            entryRankings.add(rankings.computeIfAbsent(entry.category, key -> new TopK(topK)));
+        }
+        return entryRankings;
+    }
+
+    private Duration halfLives(int count) {
+        return Duration.ofMillis((long) (count * Math.log(2) / decayPerMs));
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Counters {
+
+        private final LongAdder views = new LongAdder();
+        private final LongAdder wishlists = new LongAdder();
+        private final LongAdder reviews = new LongAdder();
+    }
+
+    private final class Delta {
+
+        private final long views;
+        private final long wishlists;
+        private final long reviews;
+
+        Delta(long views, long wishlists, long reviews) {
+            this.views = views;
+            this.wishlists = wishlists;
+            this.reviews = reviews;
+        }
+
+        boolean isEmpty() {
+            return views == 0 && wishlists == 0 && reviews == 0;
+        }
+
+        double points() {
+            return views * viewWeight + wishlists * wishlistWeight + reviews * reviewWeight;
+        }
+
+        void restore(Counters counters) {
+            counters.views.add(views);
+            counters.wishlists.add(wishlists);
+            counters.reviews.add(reviews);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long productId;
+        private final String category;
+        // Relative to the landmark
+        private double score;
+
+        Entry(long productId, String category) {
+            this.productId = productId;
+            this.category = category;
+        }
+    }
+
+    /**
+     * The k best products of one ranking, in a min-heap so the weakest is the one to evict.
+     */
+    private static final class TopK {
+
+        private final int k;
+        private final PriorityQueue<Entry> heap;
+        // Set when a ranked product lost points or went away; the heap is rebuilt before publishing
+        private boolean stale;
+
+        TopK(int k) {
+            this.k = k;
+            this.heap = new PriorityQueue<>(k + 1, BY_SCORE);
+        }
+
+        void offer(Entry entry) {
+            // Wishlist removals can take a product back to nothing
+            if (entry.score <= 0) {
+                return;
+            }
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (BY_SCORE.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        void remove(Entry entry) {
+            if (heap.remove(entry)) {
+                stale = true;
+            }
+        }
+
+        void rebuild(Stream<Entry> candidates) {
+            heap.clear();
+            stale = false;
+            candidates.forEach(this::offer);
+        }
+    }
+}
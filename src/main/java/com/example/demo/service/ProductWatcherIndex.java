@@ -0,0 +1,167 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.WishlistPair;
+import com.example.demo.repository.WishlistRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reverse wishlist index: for each product, the ids of the users who wishlisted it, as a
+ * compressed bitmap. Price changes are matched against it instead of querying the wishlists table.
+ * Kept up to date from this node's wishlist change events, and reloaded from the table at startup
+ * and every refresh interval to pick up changes made through other nodes.
+ */
+@Service
+public class ProductWatcherIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductWatcherIndex.class);
+
+    private final WishlistRepository wishlistRepository;
+    private final int chunkSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Held for a whole reload, so that a scheduled and a startup reload never overlap
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private Map<Long, RoaringBitmap> watchers = new HashMap<>();
+    // Changes seen while a reload runs, replayed onto the reloaded index; null otherwise
+    private List<WishlistChangedEvent> changedDuringRebuild;
+
+    public ProductWatcherIndex(WishlistRepository wishlistRepository,
+                               @Value("${app.notifications.watchers.chunk-size:10000}") int chunkSize) {
+        this.wishlistRepository = wishlistRepository;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads the whole wishlists table into a new index and swaps it in. Changes applied while the
+     * table is read are replayed onto the new index, so none of them is lost by the swap.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.notifications.watchers.refresh-ms:600000}",
+            initialDelayString = "${app.notifications.watchers.refresh-ms:600000}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Map<Long, RoaringBitmap> loaded;
+            try {
+                loaded = load();
+            } catch (RuntimeException e) {
+                // The current index stays, still kept up to date by the events
+                stopRecording();
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild.forEach(event -> apply(loaded, event));
+                changedDuringRebuild = null;
+                watchers = loaded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Watcher index rebuilt in {} ms", System.currentTimeMillis() - started);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Map<Long, RoaringBitmap> load() {
+        Map<Long, RoaringBitmap> loaded = new HashMap<>();
+        Long minId = wishlistRepository.findMinId();
+        Long maxId = wishlistRepository.findMaxId();
+        if (minId == null) {
+            return loaded;
+        }
+        for (long from = minId; from <= maxId; from += chunkSize) {
+            for (WishlistPair pair : wishlistRepository.findPairs(from, Math.min(maxId, from + chunkSize - 1))) {
+                loaded.computeIfAbsent(pair.getProductId(), id -> new RoaringBitmap())
+                        .add(Math.toIntExact(pair.getUserId()));
+            }
+        }
+        return loaded;
+    }
+
+    private void stopRecording() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWishlistChanged(WishlistChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(watchers, event);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Map<Long, RoaringBitmap> watchers, WishlistChangedEvent event) {
+        int id = Math.toIntExact(event.getUserId());
+        if (event.isCleared()) {
+            watchers.values().removeIf(users -> {
+                users.remove(id);
+                return users.isEmpty();
+            });
+        } else if (event.isAdded()) {
+            watchers.computeIfAbsent(event.getProductId(), productId -> new RoaringBitmap()).add(id);
+        } else {
+            RoaringBitmap users = watchers.get(event.getProductId());
+            if (users != null) {
+                users.remove(id);
+                if (users.isEmpty()) {
+                    watchers.remove(event.getProductId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Ids of the users who have the product on their wishlist.
+     */
+    public int[] getWatchers(Long productId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap users = watchers.get(productId);
+            return users != null ? users.toArray() : new int[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            watchers.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
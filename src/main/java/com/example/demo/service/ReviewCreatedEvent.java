@@ -0,0 +1,35 @@
+package com.example.demo.service;
+
+/**
+ * Published when a review is saved; delivered to listeners once its transaction commits.
+ */
+public class ReviewCreatedEvent {
+
+    private final Long reviewId;
+    private final Long productId;
+    private final Long sellerId;
+    private final int rating;
+
+    public ReviewCreatedEvent(Long reviewId, Long productId, Long sellerId, int rating) {
+        this.reviewId = reviewId;
+        this.productId = productId;
+        this.sellerId = sellerId;
+        this.rating = rating;
+    }
+
+    public Long getReviewId() {
+        return reviewId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getSellerId() {
+        return sellerId;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+}
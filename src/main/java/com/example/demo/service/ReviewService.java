@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RatingSummaryDTO;
+import com.example.demo.dto.ReviewDTO;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.ProductRatingSummary;
+import com.example.demo.entity.Review;
+import com.example.demo.repository.EntityVersion;
+import com.example.demo.repository.ProductRatingSummaryRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.ReviewListing;
+import com.example.demo.repository.ReviewRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+public class ReviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewService.class);
+    private static final long[] EMPTY_HISTOGRAM = new long[5];
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductRatingSummaryRepository ratingSummaryRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SchemaMigrations schemaMigrations;
+
+    // Runs once per database, before the web server accepts reviews, so a summary created by a new
+    // review never hides older ones
+    @PostConstruct
+    public void backfillRatingSummaries() {
+        schemaMigrations.runOnce("backfill-rating-summaries", () -> {
+            int created = ratingSummaryRepository.backfillMissing(LocalDateTime.now());
+            logger.info("Created rating summaries for {} previously reviewed products", created);
+        });
+    }
+
+    /**
+     * Saves the review and folds its rating into the product's summary in the same transaction.
+     */
+    @Transactional
+    public ReviewDTO createReview(Long productId, String reviewerEmail, int rating, String comment) {
+        // The detail payload embeds the rating summary, so the product's version covers it
+        if (productRepository.touch(productId) == 0) {
+            logger.error("Product not found with ID: {}", productId);
+            throw new RuntimeException("Product not found");
+        }
+        Product product = productRepository.getReferenceById(productId);
+        Review savedReview = reviewRepository.save(new Review(product, reviewerEmail, rating, comment));
+        ratingSummaryRepository.addRating(productId, rating,
+                rating == 1 ? 1 : 0, rating == 2 ? 1 : 0, rating == 3 ? 1 : 0, rating == 4 ? 1 : 0, rating == 5 ? 1 : 0,
+                LocalDateTime.now());
+        Long sellerId = productRepository.findSellerIdById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        // Picked up by the seller reputation worker once this transaction commits
+        eventPublisher.publishEvent(new ReviewCreatedEvent(savedReview.getId(), productId, sellerId, rating));
+        logger.info("Review {} created for product ID: {}", savedReview.getId(), productId);
+        return new ReviewDTO(savedReview.getId(), productId, savedReview.getReviewerEmail(),
+                savedReview.getRating(), savedReview.getComment());
+    }
+
+    @Transactional(readOnly = true)
+    public List<ReviewDTO> getReviewPage(Long productId, Long afterId, int limit) {
+        return getReviewListings(productId, afterId, limit).stream()
+                .map(ReviewService::toReviewDTO)
+                .collect(Collectors.toList());
+    }
+
+    public List<ReviewListing> getReviewListings(Long productId, Long afterId, int limit) {
+        return reviewRepository.findPageByProductId(productId, afterId, PageRequest.of(0, limit));
+    }
+
+    public List<EntityVersion> getReviewPageVersions(Long productId, Long afterId, int limit) {
+        return reviewRepository.findPageVersionsByProductId(productId, afterId, PageRequest.of(0, limit));
+    }
+
+    public Optional<ProductRatingSummary> getSummary(Long productId) {
+        return ratingSummaryRepository.findById(productId);
+    }
+
+    public static ReviewDTO toReviewDTO(ReviewListing review) {
+        return new ReviewDTO(
+                review.getId(),
+                review.getProductId(),
+                review.getReviewerEmail(),
+                review.getRating(),
+                review.getComment()
+        );
+    }
+
+    public static RatingSummaryDTO toDTO(ProductRatingSummary summary) {
+        if (summary == null) {
+            return new RatingSummaryDTO(0, null, EMPTY_HISTOGRAM.clone());
+        }
+        return new RatingSummaryDTO(summary.getReviewCount(), summary.getAverage(), summary.getHistogram());
+    }
+}
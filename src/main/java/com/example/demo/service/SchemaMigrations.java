@@ -0,0 +1,128 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One-off data migrations, recorded in {@code schema_migrations} so each runs once per database
+ * rather than at every boot. A node claims a migration by inserting its row; other nodes starting
+ * at the same time wait for it to be applied, so none of them serves requests against unmigrated
+ * data, and a claim left behind by a node that died is taken over after
+ * {@code app.migrations.claim-timeout-minutes}. Migrations should still be idempotent, since a
+ * taken-over one may run twice.
+ *
+ * This bean is created before the entity manager factory, so the migrations it runs itself see
+ * the schema as it was before Hibernate's update and can prepare the data for it.
+ */
+@Component
+public class SchemaMigrations {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration claimTimeout;
+
+    public SchemaMigrations(JdbcTemplate jdbcTemplate,
+                            @Value("${app.migrations.claim-timeout-minutes:10}") long claimTimeoutMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.claimTimeout = Duration.ofMinutes(claimTimeoutMinutes);
+    }
+
+    // Plain DDL rather than an entity: the ledger is needed before Hibernate's schema update runs
+    @PostConstruct
+    public void migrateBeforeSchemaUpdate() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migrations (" +
+                "id VARCHAR(100) NOT NULL PRIMARY KEY, " +
+                "started_at DATETIME(6) NOT NULL, " +
+                "applied_at DATETIME(6) NULL)");
+
+        // Duplicates left by the former check-then-insert would keep uk_wishlists_user_product from being
+        // created; the oldest row of each pair is kept. A database without the table has none.
+        runOnce("dedupe-wishlists", () -> {
+            if (tableExists("wishlists")) {
+                int removed = jdbcTemplate.update("DELETE FROM wishlists WHERE id IN (SELECT id FROM (SELECT w.id " +
+                        "FROM wishlists w JOIN wishlists k ON k.user_id = w.user_id AND k.product_id = w.product_id " +
+                        "AND k.id < w.id) duplicates)");
+                logger.info("Removed {} duplicate wishlist entries", removed);
+            }
+        });
+    }
+
+    /**
+     * Runs the migration unless it was already applied, waiting first if another node is applying it.
+     *
+     * @return whether this call ran it
+     */
+    public boolean runOnce(String id, Runnable migration) {
+        boolean waiting = false;
+        while (!claim(id)) {
+            if (isApplied(id)) {
+                return false;
+            }
+            if (!waiting) {
+                logger.info("Waiting for migration {} to be applied by another node", id);
+                waiting = true;
+            }
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for migration " + id, e);
+            }
+        }
+        long started = System.currentTimeMillis();
+        try {
+            migration.run();
+        } catch (RuntimeException e) {
+            // Let the next boot, here or elsewhere, try again
+            jdbcTemplate.update("DELETE FROM schema_migrations WHERE id = ? AND applied_at IS NULL", id);
+            throw e;
+        }
+        jdbcTemplate.update("UPDATE schema_migrations SET applied_at = ? WHERE id = ?", LocalDateTime.now(), id);
+        logger.info("Applied migration {} in {} ms", id, System.currentTimeMillis() - started);
+        return true;
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+
+    private boolean isApplied(String id) {
+        List<Boolean> applied = jdbcTemplate.queryForList(
+                "SELECT applied_at IS NOT NULL FROM schema_migrations WHERE id = ?", Boolean.class, id);
+        return !applied.isEmpty() && applied.get(0);
+    }
+
+    private boolean claim(String id) {
+        if (isApplied(id)) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (jdbcTemplate.update("INSERT IGNORE INTO schema_migrations (id, started_at) VALUES (?, ?)", id, now) == 1) {
+            return true;
+        }
+        return jdbcTemplate.update("UPDATE schema_migrations SET started_at = ? " +
+                "WHERE id = ? AND applied_at IS NULL AND started_at < ?", now, id, now.minus(claimTimeout)) == 1;
+    }
+}
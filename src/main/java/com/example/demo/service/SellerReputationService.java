@@ -0,0 +1,416 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SellerReputationDTO;
+import com.example.demo.entity.Order.OrderStatus;
+import com.example.demo.entity.SellerReputation;
+import com.example.demo.repository.OrderEventRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.ReviewRepository;
+import com.example.demo.repository.SellerOrderTotals;
+import com.example.demo.repository.SellerRatingTotals;
+import com.example.demo.repository.SellerReputationRepository;
+import com.example.demo.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the {@code seller_reputations} rollups. Committed review and order events go onto a
+ * bounded in-process queue; a single worker drains it every flush interval and coalesces the
+ * events into one upsert per seller. Events that don't fit in the queue mark their seller for
+ * recomputation from the source tables, and a full rebuild over parallel seller id partitions
+ * repairs anything lost with the queue on a crash.
+ *
+ * A recompute stamps each rollup with the highest review and order event ids it read; queued
+ * events at or below them are dropped when flushed, since the recompute already counted them.
+ * Flushes lock the rollups they add to, so a recompute on any instance either waits for them or
+ * sees their watermarks. The rebuild runs under a {@link JobLeases} lease, on one instance at a time.
+ */
+@Service
+public class SellerReputationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SellerReputationService.class);
+    private static final String REBUILD_JOB = "seller-reputation-rebuild";
+
+    private final SellerReputationRepository reputationRepository;
+    private final ReviewRepository reviewRepository;
+    private final OrderEventRepository orderEventRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final ProductDetailCache productDetailCache;
+    private final JobLeases jobLeases;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<QueuedEvent> queue;
+    private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+    // Held while rollups are written, so the worker and a rebuild never interleave
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final long flushIntervalMs;
+    private final int partitionSize;
+    private final int rebuildThreads;
+    private final Duration rebuildLease;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final Counter overflowed;
+    private final Timer flushTimer;
+
+    public SellerReputationService(SellerReputationRepository reputationRepository,
+                                   ReviewRepository reviewRepository,
+                                   OrderEventRepository orderEventRepository,
+                                   UserRepository userRepository,
+                                   ProductRepository productRepository,
+                                   ProductDetailCache productDetailCache,
+                                   JobLeases jobLeases,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.reputation.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${app.reputation.flush-interval-ms:500}") long flushIntervalMs,
+                                   @Value("${app.reputation.rebuild.partition-size:1000}") int partitionSize,
+                                   @Value("${app.reputation.rebuild.threads:4}") int rebuildThreads,
+                                   @Value("${app.reputation.rebuild.lease-minutes:60}") long rebuildLeaseMinutes) {
+        this.reputationRepository = reputationRepository;
+        this.reviewRepository = reviewRepository;
+        this.orderEventRepository = orderEventRepository;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.productDetailCache = productDetailCache;
+        this.jobLeases = jobLeases;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushIntervalMs = flushIntervalMs;
+        this.partitionSize = partitionSize;
+        this.rebuildThreads = rebuildThreads;
+        this.rebuildLease = Duration.ofMinutes(rebuildLeaseMinutes);
+        this.worker = new Thread(this::runWorker, "seller-reputation");
+        this.worker.setDaemon(true);
+
+        this.overflowed = meterRegistry.counter("reputation.events.overflowed");
+        this.flushTimer = meterRegistry.timer("reputation.flush");
+        meterRegistry.gauge("reputation.queue.size", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(flushIntervalMs);
+        flush();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewCreated(ReviewCreatedEvent event) {
+        enqueue(new QueuedEvent(new Totals(event.getSellerId(), 1, event.getRating(), 0, 0), event.getReviewId(), 0));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getStatus() == OrderStatus.DELIVERED) {
+            enqueue(new QueuedEvent(new Totals(event.getSellerId(), 0, 0, 1, 0), 0, event.getOrderEventId()));
+        } else if (event.getStatus() == OrderStatus.CANCELLED) {
+            enqueue(new QueuedEvent(new Totals(event.getSellerId(), 0, 0, 0, 1), 0, event.getOrderEventId()));
+        }
+    }
+
+    private void enqueue(QueuedEvent event) {
+        if (!queue.offer(event)) {
+            stale.add(event.totals.sellerId);
+            overflowed.increment();
+        }
+    }
+
+    private void runWorker() {
+        while (running) {
+            try {
+                Thread.sleep(flushIntervalMs);
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Failed to update seller reputations: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Applies every queued event the rollups don't already count, writing each affected seller's
+     * rollup once.
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<QueuedEvent> events = new ArrayList<>();
+            queue.drainTo(events);
+            Set<Long> recompute = new HashSet<>(stale);
+            stale.removeAll(recompute);
+            Set<Long> applied = new HashSet<>();
+            for (QueuedEvent event : events) {
+                applied.add(event.totals.sellerId);
+            }
+            // Recomputed totals already include these sellers' queued events
+            applied.removeAll(recompute);
+            if (applied.isEmpty() && recompute.isEmpty()) {
+                return;
+            }
+
+            try {
+                flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    apply(events, applied, now);
+                    if (!recompute.isEmpty()) {
+                        long reviewMark = maxId(reviewRepository.findMaxId());
+                        long orderEventMark = maxId(orderEventRepository.findMaxId());
+                        for (Long sellerId : recompute) {
+                            recompute(sellerId, sellerId, reviewMark, orderEventMark, now);
+                        }
+                    }
+                }));
+            } catch (RuntimeException e) {
+                // Nothing was written; recompute these sellers next time instead of replaying the deltas
+                stale.addAll(applied);
+                stale.addAll(recompute);
+                throw e;
+            }
+
+            Set<Long> sellerIds = new HashSet<>(applied);
+            sellerIds.addAll(recompute);
+            // Product details embed the seller's reputation
+            for (Long sellerId : sellerIds) {
+                productRepository.findIdsBySellerId(sellerId).forEach(productDetailCache::invalidate);
+            }
+            logger.debug("Applied {} reputation events to {} sellers", events.size(), sellerIds.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Must run inside a transaction; adds the events above each locked rollup's watermarks
+    private void apply(List<QueuedEvent> events, Set<Long> sellerIds, LocalDateTime now) {
+        if (sellerIds.isEmpty()) {
+            return;
+        }
+        Map<Long, SellerReputation> rollups = new HashMap<>();
+        for (SellerReputation rollup : reputationRepository.lockBySellerIdIn(sellerIds)) {
+            rollups.put(rollup.getSellerId(), rollup);
+        }
+        if (rollups.size() < sellerIds.size()) {
+            // A rebuild may be creating the same rows; lock whichever row wins and read its watermarks
+            Set<Long> missing = new HashSet<>(sellerIds);
+            missing.removeAll(rollups.keySet());
+            for (Long sellerId : missing) {
+                reputationRepository.insertEmpty(sellerId, now);
+            }
+            for (SellerReputation rollup : reputationRepository.lockBySellerIdIn(missing)) {
+                rollups.put(rollup.getSellerId(), rollup);
+            }
+        }
+
+        Map<Long, Totals> bySeller = new HashMap<>();
+        for (QueuedEvent event : events) {
+            Long sellerId = event.totals.sellerId;
+            if (sellerIds.contains(sellerId) && !event.countedBy(rollups.get(sellerId))) {
+                bySeller.merge(sellerId, event.totals, Totals::add);
+            }
+        }
+        for (Totals totals : bySeller.values()) {
+            reputationRepository.addTotals(totals.sellerId, totals.reviews, totals.ratingSum,
+                    totals.completed, totals.cancelled, now);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (reputationRepository.count() == 0) {
+            rebuildAll();
+        }
+    }
+
+    /**
+     * Recomputes every rollup from the reviews and order events up to the ids current when it
+     * starts, one transaction per partition of seller ids, with partitions running in parallel.
+     * Rows are only written where totals changed. Skipped while another instance holds the lease.
+     */
+    @Scheduled(cron = "${app.reputation.rebuild-cron:0 30 3 * * *}")
+    public void rebuildAll() {
+        if (!jobLeases.tryAcquire(REBUILD_JOB, rebuildLease)) {
+            logger.info("Seller reputation rebuild skipped: running on another instance");
+            return;
+        }
+        writeLock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            // Queued events up to these ids are counted by the rebuild and dropped when flushed
+            long reviewMark = maxId(reviewRepository.findMaxId());
+            long orderEventMark = maxId(orderEventRepository.findMaxId());
+            Long minId = userRepository.findMinId();
+            Long maxId = userRepository.findMaxId();
+            if (minId == null) {
+                logger.info("Seller reputation rebuild skipped: no users");
+                return;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            AtomicInteger threadCount = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(rebuildThreads, runnable -> {
+                Thread thread = new Thread(runnable, "seller-reputation-rebuild-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<Integer>> partitions = new ArrayList<>();
+                for (long from = minId; from <= maxId; from += partitionSize) {
+                    long fromId = from;
+                    long toId = Math.min(maxId, from + partitionSize - 1);
+                    partitions.add(pool.submit(() -> transactionTemplate.execute(status ->
+                            recompute(fromId, toId, reviewMark, orderEventMark, now))));
+                }
+                int changed = 0;
+                for (Future<Integer> partition : partitions) {
+                    changed += partition.get();
+                }
+                if (changed > 0) {
+                    productDetailCache.invalidateAll();
+                }
+                logger.info("Seller reputations rebuilt in {} ms: {} partitions, {} sellers updated",
+                        System.currentTimeMillis() - started, partitions.size(), changed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Seller reputation rebuild interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Seller reputation rebuild failed: " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        } finally {
+            writeLock.unlock();
+            jobLeases.release(REBUILD_JOB);
+        }
+    }
+
+    // Must run inside a transaction; returns the number of rollups rewritten
+    private int recompute(long fromId, long toId, long reviewMark, long orderEventMark, LocalDateTime now) {
+        Map<Long, Totals> bySeller = new HashMap<>();
+        for (SellerRatingTotals row : reviewRepository.sumRatingsBySeller(fromId, toId, reviewMark)) {
+            bySeller.merge(row.getSellerId(),
+                    new Totals(row.getSellerId(), row.getReviewCount(), row.getRatingSum(), 0, 0), Totals::add);
+        }
+        for (SellerOrderTotals row : orderEventRepository.sumClosedOrdersBySeller(fromId, toId,
+                orderEventMark, OrderStatus.DELIVERED, OrderStatus.CANCELLED)) {
+            bySeller.merge(row.getSellerId(),
+                    new Totals(row.getSellerId(), 0, 0, row.getCompletedSales(), row.getCancelledOrders()), Totals::add);
+        }
+        for (SellerReputation current : reputationRepository.findBySellerIdBetween(fromId, toId)) {
+            Totals totals = bySeller.get(current.getSellerId());
+            if (totals == null) {
+                // Everything behind the rollup is gone, e.g. its products were deleted
+                bySeller.put(current.getSellerId(), new Totals(current.getSellerId(), 0, 0, 0, 0));
+            } else if (totals.matches(current)) {
+                bySeller.remove(current.getSellerId());
+            }
+        }
+        for (Totals totals : bySeller.values()) {
+            reputationRepository.replaceTotals(totals.sellerId, totals.reviews, totals.ratingSum,
+                    totals.completed, totals.cancelled, reviewMark, orderEventMark, now);
+        }
+        return bySeller.size();
+    }
+
+    private static long maxId(Long id) {
+        return id == null ? 0 : id;
+    }
+
+    public SellerReputationDTO getReputation(Long sellerId) {
+        return toDTO(reputationRepository.findById(sellerId).orElse(null));
+    }
+
+    public static SellerReputationDTO toDTO(SellerReputation reputation) {
+        if (reputation == null) {
+            return new SellerReputationDTO(null, 0, 0, null);
+        }
+        return new SellerReputationDTO(reputation.getAverageRating(), reputation.getReviewCount(),
+                reputation.getCompletedSales(), reputation.getCancellationRate());
+    }
+
+    // One review or order event, with the id of the row behind it; the other id is 0
+    private static final class QueuedEvent {
+
+        private final Totals totals;
+        private final long reviewId;
+        private final long orderEventId;
+
+        QueuedEvent(Totals totals, long reviewId, long orderEventId) {
+            this.totals = totals;
+            this.reviewId = reviewId;
+            this.orderEventId = orderEventId;
+        }
+
+        boolean countedBy(SellerReputation rollup) {
+            return reviewId > 0 ? reviewId <= rollup.getReviewWatermark() : orderEventId <= rollup.getOrderEventWatermark();
+        }
+    }
+
+    private static final class Totals {
+
+        private final Long sellerId;
+        private long reviews;
+        private long ratingSum;
+        private long completed;
+        private long cancelled;
+
+        Totals(Long sellerId, long reviews, long ratingSum, long completed, long cancelled) {
+            this.sellerId = sellerId;
+            this.reviews = reviews;
+            this.ratingSum = ratingSum;
+            this.completed = completed;
+            this.cancelled = cancelled;
+        }
+
+        Totals add(Totals other) {
+            reviews += other.reviews;
+            ratingSum += other.ratingSum;
+            completed += other.completed;
+            cancelled += other.cancelled;
+            return this;
+        }
+
+        boolean matches(SellerReputation reputation) {
+            return reviews == reputation.getReviewCount() && ratingSum == reputation.getRatingSum()
+                    && completed == reputation.getCompletedSales() && cancelled == reputation.getCancelledOrders();
+        }
+    }
+}
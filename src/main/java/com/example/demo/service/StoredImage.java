@@ -0,0 +1,23 @@
+package com.example.demo.service;
+
+/**
+ * An image accepted into the ImageStore: its content key and the type detected from its bytes.
+ */
+public class StoredImage {
+
+    private final String hash;
+    private final String contentType;
+
+    public StoredImage(String hash, String contentType) {
+        this.hash = hash;
+        this.contentType = contentType;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserRevocation;
+import com.example.demo.util.VerifiedToken;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The accounts whose tokens must no longer be accepted: disabled users, and users who revoked the
+ * tokens issued before some instant. Requests are checked against this in-memory map, so
+ * authenticating a request needs no query. The map is reloaded from the users table every
+ * {@code app.auth.denylist.refresh-ms}; revocations made on this node apply immediately.
+ */
+@Service
+public class TokenDenylist {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenDenylist.class);
+
+    // Cut-off for a disabled account: every token was issued before it
+    private static final Instant DISABLED = Instant.MAX;
+
+    private final UserRepository userRepository;
+    private final long tokenLifetimeMs;
+
+    private volatile Map<Long, Instant> cutoffs = Map.of();
+    // Revoked here but possibly not yet seen by a refresh
+    private final Map<Long, Instant> pending = new ConcurrentHashMap<>();
+
+    public TokenDenylist(UserRepository userRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.jwt.expiration-ms:18000000}") long tokenLifetimeMs) {
+        this.userRepository = userRepository;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+        Gauge.builder("auth.denylist.size", this, denylist -> denylist.cutoffs.size())
+                .description("Accounts whose tokens are currently rejected")
+                .register(meterRegistry);
+    }
+
+    public boolean isDenied(VerifiedToken token) {
+        Instant cutoff = cutoffs.get(token.getUserId());
+        if (cutoff == null) {
+            return false;
+        }
+        return token.getIssuedAt() == null || token.getIssuedAt().isBefore(cutoff);
+    }
+
+    /**
+     * Rejects the user's tokens issued before {@code validAfter}. Call once the new cut-off is committed.
+     */
+    public synchronized void revoke(Long userId, LocalDateTime validAfter) {
+        Instant cutoff = cutoff(validAfter);
+        pending.merge(userId, cutoff, TokenDenylist::later);
+        Map<Long, Instant> next = new HashMap<>(cutoffs);
+        next.merge(userId, cutoff, TokenDenylist::later);
+        cutoffs = Map.copyOf(next);
+    }
+
+    // Loaded before the server takes requests, so no request slips through an empty denylist
+    @PostConstruct
+    public void load() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.denylist.refresh-ms:30000}", initialDelayString = "${app.auth.denylist.refresh-ms:30000}")
+    public synchronized void refresh() {
+        LocalDateTime since = LocalDateTime.now().minusNanos(tokenLifetimeMs * 1_000_000);
+        Map<Long, Instant> next = new HashMap<>();
+        for (UserRevocation revocation : userRepository.findRevocations(since)) {
+            if (!Boolean.TRUE.equals(revocation.getEnabled())) {
+                next.put(revocation.getId(), DISABLED);
+            } else {
+                next.put(revocation.getId(), cutoff(revocation.getTokensValidAfter()));
+            }
+        }
+        // Keep local revocations the query didn't return yet; drop them once it has, or once every
+        // token they could reject has expired anyway
+        Instant expired = since.atZone(ZoneId.systemDefault()).toInstant();
+        pending.forEach((userId, cutoff) -> {
+            Instant loaded = next.get(userId);
+            if (cutoff.isBefore(expired) || (loaded != null && !loaded.isBefore(cutoff))) {
+                pending.remove(userId, cutoff);
+            } else {
+                next.merge(userId, cutoff, TokenDenylist::later);
+            }
+        });
+        cutoffs = Map.copyOf(next);
+        logger.debug("Token denylist refreshed: {} accounts", next.size());
+    }
+
+    // iat has second precision, so the cut-off is rounded down to match: a login in the same second
+    // as the revocation is accepted, and so is a token issued earlier in that second
+    private static Instant cutoff(LocalDateTime validAfter) {
+        return validAfter.atZone(ZoneId.systemDefault()).toInstant().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static Instant later(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
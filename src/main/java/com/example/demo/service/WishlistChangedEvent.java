@@ -0,0 +1,45 @@
+package com.example.demo.service;
+
+/**
+ * Published when a product is added to or removed from a wishlist, or the wishlist is cleared;
+ * delivered to listeners once its transaction commits.
+ */
+public class WishlistChangedEvent {
+
+    private final Long userId;
+    private final String email;
+    private final Long productId;
+    private final boolean added;
+
+    public WishlistChangedEvent(Long userId, String email, Long productId, boolean added) {
+        this.userId = userId;
+        this.email = email;
+        this.productId = productId;
+        this.added = added;
+    }
+
+    // Every product was removed
+    public static WishlistChangedEvent cleared(Long userId, String email) {
+        return new WishlistChangedEvent(userId, email, null, false);
+    }
+
+    public boolean isCleared() {
+        return productId == null;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public boolean isAdded() {
+        return added;
+    }
+}
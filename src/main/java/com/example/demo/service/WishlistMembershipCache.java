@@ -0,0 +1,150 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.WishlistRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The product ids on each user's wishlist as a sorted long array, keyed by email, so that marking
+ * the wishlisted items of a page is a binary search per item instead of a query. Entries are
+ * loaded with one id-only query, bounded by their size in bytes, and patched in place when a
+ * wishlist changes rather than reloaded. Changes made through another instance are not seen
+ * here, so every entry is reloaded once its TTL has passed since it was loaded.
+ */
+@Service
+public class WishlistMembershipCache {
+
+    // Array header, entry and key overhead charged to every user on top of eight bytes per id
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final WishlistRepository wishlistRepository;
+    private final Cache<String, Membership> cache;
+
+    public WishlistMembershipCache(WishlistRepository wishlistRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.cache.wishlist-membership.max-bytes:16777216}") long maxBytes,
+                                   @Value("${app.cache.wishlist-membership.ttl-minutes:5}") long ttlMinutes) {
+        this.wishlistRepository = wishlistRepository;
+        long ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+        // Patching an entry keeps its remaining time, so local changes don't keep a stale entry alive
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String email, Membership membership) -> ENTRY_OVERHEAD_BYTES + membership.size() * Long.BYTES)
+                .expireAfter(new Expiry<String, Membership>() {
+                    @Override
+                    public long expireAfterCreate(String email, Membership membership, long currentTime) {
+                        return ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String email, Membership membership, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String email, Membership membership, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "wishlistMembership");
+    }
+
+    public Membership get(String email) {
+        return cache.get(email, this::load);
+    }
+
+    /**
+     * Bit i is set when productIds[i] is on the user's wishlist.
+     */
+    public BitSet contains(String email, List<Long> productIds) {
+        Membership membership = get(email);
+        BitSet bits = new BitSet(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            Long productId = productIds.get(i);
+            if (productId != null && membership.contains(productId)) {
+                bits.set(i);
+            }
+        }
+        return bits;
+    }
+
+    // Applied after commit; a load running meanwhile finishes first, so the change is never lost under it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWishlistChanged(WishlistChangedEvent event) {
+        cache.asMap().computeIfPresent(event.getEmail(), (email, membership) -> {
+            if (event.isCleared()) {
+                return new Membership(new long[0]);
+            }
+            return event.isAdded() ? membership.with(event.getProductId()) : membership.without(event.getProductId());
+        });
+    }
+
+    public void invalidate(String email) {
+        cache.invalidate(email);
+    }
+
+    private Membership load(String email) {
+        long[] productIds = wishlistRepository.findProductIdsByUserEmail(email).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+        return new Membership(productIds);
+    }
+
+    /**
+     * Immutable sorted set of product ids; changes return a copy.
+     */
+    public static final class Membership {
+
+        private final long[] productIds;
+
+        Membership(long[] productIds) {
+            this.productIds = productIds;
+        }
+
+        public boolean contains(long productId) {
+            return Arrays.binarySearch(productIds, productId) >= 0;
+        }
+
+        public int size() {
+            return productIds.length;
+        }
+
+        Membership with(long productId) {
+            int index = Arrays.binarySearch(productIds, productId);
+            if (index >= 0) {
+                return this;
+            }
+            int insertAt = -index - 1;
+            long[] copy = new long[productIds.length + 1];
+            System.arraycopy(productIds, 0, copy, 0, insertAt);
+            copy[insertAt] = productId;
+            System.arraycopy(productIds, insertAt, copy, insertAt + 1, productIds.length - insertAt);
+            return new Membership(copy);
+        }
+
+        Membership without(long productId) {
+            int index = Arrays.binarySearch(productIds, productId);
+            if (index < 0) {
+                return this;
+            }
+            long[] copy = new long[productIds.length - 1];
+            System.arraycopy(productIds, 0, copy, 0, index);
+            System.arraycopy(productIds, index + 1, copy, index, productIds.length - index - 1);
+            return new Membership(copy);
+        }
+    }
+}
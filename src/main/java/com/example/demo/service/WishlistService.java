@@ -1,19 +1,25 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.WishlistBatchResultDTO;
 import com.example.demo.dto.WishlistDTO;
-import com.example.demo.entity.Product;
-import com.example.demo.entity.User;
-import com.example.demo.entity.Wishlist;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.VersionSummary;
+import com.example.demo.repository.WishlistListing;
 import com.example.demo.repository.WishlistRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,67 +36,109 @@ public class WishlistService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private WishlistMembershipCache membershipCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Adds the product with a single INSERT IGNORE resolving both the user and the product, so
+     * concurrent adds of the same pair can't create two rows. Only a failed insert pays for the
+     * queries telling its possible causes apart.
+     */
     @Transactional
-    public void addToWishlist(String email, Long productId) {
+    public void addToWishlist(Long userId, String email, Long productId) {
         logger.info("Adding product ID {} to wishlist for user {}", productId, email);
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> {
-                    logger.error("User not found with email: {}", email);
-                    return new RuntimeException("Authenticated user not found");
-                });
-
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> {
-                    logger.error("Product not found with ID: {}", productId);
-                    return new RuntimeException("Product not found");
-                });
-
-        if (wishlistRepository.existsByUser_IdAndProduct_Id(user.getId(), productId)) {
+        if (wishlistRepository.insertIgnoringDuplicates(email, List.of(productId), LocalDateTime.now()) == 0) {
+            if (!productRepository.existsById(productId)) {
+                logger.error("Product not found with ID: {}", productId);
+                throw new RuntimeException("Product not found");
+            }
+            if (userRepository.findByEmail(email).isEmpty()) {
+                logger.error("User not found with email: {}", email);
+                throw new RuntimeException("Authenticated user not found");
+            }
             logger.warn("Product ID {} is already in the wishlist for user {}", productId, email);
             throw new RuntimeException("Product is already in your wishlist");
         }
-
-        Wishlist wishlistItem = new Wishlist(user, product);
-        wishlistRepository.save(wishlistItem);
+        // Patches the cached membership once this transaction commits
+        eventPublisher.publishEvent(new WishlistChangedEvent(userId, email, productId, true));
         logger.info("Product ID {} added to wishlist for user {}", productId, email);
     }
 
+    /**
+     * Removes and then adds the given products in one transaction, with one statement each.
+     * Ids already in the requested state, and ids without a product, are skipped.
+     */
+    @Transactional
+    public WishlistBatchResultDTO updateWishlist(Long userId, String email, List<Long> addIds, List<Long> removeIds) {
+        logger.info("Updating wishlist for user {}: adding {}, removing {} products", email, addIds.size(), removeIds.size());
+        // Read first so that only real changes are published; popularity counts every event it gets
+        Set<Long> present = new HashSet<>(wishlistRepository.findProductIdsByUserEmail(email));
+        int removed = removeIds.isEmpty() ? 0 : wishlistRepository.deleteByUserEmailAndProductIdIn(email, removeIds);
+        int added = addIds.isEmpty() ? 0 : wishlistRepository.insertIgnoringDuplicates(email, addIds, LocalDateTime.now());
+        for (Long productId : new LinkedHashSet<>(removeIds)) {
+            if (present.remove(productId)) {
+                eventPublisher.publishEvent(new WishlistChangedEvent(userId, email, productId, false));
+            }
+        }
+        if (added > 0) {
+            // Read again rather than trusting addIds: ids without a product were skipped by the insert
+            Set<Long> stored = new HashSet<>(wishlistRepository.findProductIdsByUserEmail(email));
+            for (Long productId : new LinkedHashSet<>(addIds)) {
+                if (stored.contains(productId) && present.add(productId)) {
+                    eventPublisher.publishEvent(new WishlistChangedEvent(userId, email, productId, true));
+                }
+            }
+        }
+        return new WishlistBatchResultDTO(added, removed);
+    }
+
+    @Transactional
+    public int clearWishlist(Long userId, String email) {
+        logger.info("Clearing wishlist for user {}", email);
+        int removed = wishlistRepository.deleteByUserEmail(email);
+        eventPublisher.publishEvent(WishlistChangedEvent.cleared(userId, email));
+        return removed;
+    }
+
     @Transactional(readOnly = true)
     public List<WishlistDTO> getWishlist(String email) {
         logger.info("Fetching wishlist for user {}", email);
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> {
-                    logger.error("User not found with email: {}", email);
-                    return new RuntimeException("Authenticated user not found");
-                });
-
-        List<Wishlist> wishlistItems = wishlistRepository.findByUser_Id(user.getId());
+        List<WishlistListing> wishlistItems = wishlistRepository.findListingsByUserEmail(email);
         return wishlistItems.stream()
-                .map(wishlist -> new WishlistDTO(
-                        wishlist.getId(),
-                        wishlist.getProduct().getId(),
-                        wishlist.getProduct().getTitle(),
-                        wishlist.getProduct().getPrice(),
-                        wishlist.getProduct().getCategory()
+                .map(item -> new WishlistDTO(
+                        item.getId(),
+                        item.getProductId(),
+                        item.getProductTitle(),
+                        item.getProductPrice(),
+                        item.getProductCategory()
                 ))
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public VersionSummary getWishlistVersion(String email) {
+        return wishlistRepository.summarizeByUserEmail(email);
+    }
+
+    /**
+     * Bit i of the result is set when productIds[i] is on the user's wishlist; answered from the
+     * membership cache.
+     */
+    public BitSet getMembership(String email, List<Long> productIds) {
+        return membershipCache.contains(email, productIds);
+    }
+
     @Transactional
-    public void removeFromWishlist(String email, Long productId) {
+    public void removeFromWishlist(Long userId, String email, Long productId) {
         logger.info("Removing product ID {} from wishlist for user {}", productId, email);
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> {
-                    logger.error("User not found with email: {}", email);
-                    return new RuntimeException("Authenticated user not found");
-                });
-
-        if (!wishlistRepository.existsByUser_IdAndProduct_Id(user.getId(), productId)) {
+        if (wishlistRepository.deleteByUserEmailAndProductIdIn(email, List.of(productId)) == 0) {
             logger.warn("Product ID {} not found in wishlist for user {}", productId, email);
             throw new RuntimeException("Product not found in your wishlist");
         }
-
-        wishlistRepository.deleteByUser_IdAndProduct_Id(user.getId(), productId);
+        eventPublisher.publishEvent(new WishlistChangedEvent(userId, email, productId, false));
         logger.info("Product ID {} removed from wishlist for user {}", productId, email);
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.example.demo.util;
+
+import com.example.demo.repository.EntityVersion;
+import com.example.demo.repository.ProductDetailVersion;
+import com.example.demo.repository.VersionSummary;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * Strong ETags and Last-Modified timestamps derived from entity versions, so that conditional
+ * reads can be answered from a version query before the resource is loaded or serialized.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(String kind, EntityVersion row) {
+        return tag(kind, row.getId(), row.getVersion());
+    }
+
+    public static String of(String kind, ProductDetailVersion row) {
+        return tag(kind, row.getId(), row.getVersion(), row.getReputationVersion());
+    }
+
+    public static String of(String kind, VersionSummary summary) {
+        return tag(kind, summary.getCount(),
+                summary.getMaxId() != null ? summary.getMaxId() : 0,
+                summary.getVersionSum() != null ? summary.getVersionSum() : 0);
+    }
+
+    // A page of rows is tagged by a digest over the ids and versions in page order
+    public static String ofRows(String kind, List<? extends EntityVersion> rows) {
+        return ofRows(kind, rows, null);
+    }
+
+    // Same digest, also covering a per-user flag of each row such as wishlist membership
+    public static String ofRows(String kind, List<? extends EntityVersion> rows, LongPredicate flagged) {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES);
+        for (EntityVersion row : rows) {
+            buffer.clear();
+            buffer.putLong(row.getId()).putLong(row.getVersion());
+            digest.update(buffer.array());
+            if (flagged != null) {
+                digest.update(flagged.test(row.getId()) ? (byte) 1 : (byte) 0);
+            }
+        }
+        return tag(kind, HexFormat.of().formatHex(digest.digest(), 0, 8));
+    }
+
+    public static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    public static String tag(String kind, Object... parts) {
+        StringBuilder tag = new StringBuilder("\"").append(kind);
+        for (Object part : parts) {
+            tag.append('-').append(part);
+        }
+        return tag.append('"').toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
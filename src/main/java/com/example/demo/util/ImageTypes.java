@@ -0,0 +1,42 @@
+package com.example.demo.util;
+
+/**
+ * Identifies the supported image formats from their leading magic bytes.
+ */
+public final class ImageTypes {
+
+    public static final String JPEG = "image/jpeg";
+    public static final String PNG = "image/png";
+    public static final int HEADER_LENGTH = 8;
+
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private ImageTypes() {
+    }
+
+    /**
+     * Returns the MIME type for the given header bytes, or null if it is neither JPEG nor PNG.
+     */
+    public static String detect(byte[] header, int length) {
+        if (startsWith(header, length, PNG_MAGIC)) {
+            return PNG;
+        }
+        if (startsWith(header, length, JPEG_MAGIC)) {
+            return JPEG;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int length, byte[] magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,20 +1,39 @@
 package com.example.demo.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.security.Key;
 
+/**
+ * Issues and verifies the HS512 tokens of the API. The key and parser are built once; a verified
+ * token is parsed into a {@link VerifiedToken} a single time and then served from a bounded cache,
+ * keyed by the SHA-256 digest of the token, until the token expires. Only tokens whose signature
+ * checked out are cached, so a hit stands for a full verification. Tokens carry the user id
+ * ({@code uid}) and roles, which is all a request needs to be authenticated.
+ */
 @Component
 public class JwtUtil {
 
@@ -22,50 +41,89 @@ public class JwtUtil {
 
     // Fixed secret key (base64-encoded, 512 bits for HS512)
     private static final String SECRET = "2F423F4528482B4D6250655368566D597133743677397A24432646294A404E635266556A586E5A7234753778214125442A472D4B6150645367566B5970337336";
-    private static final long JWT_EXPIRATION_MS = 5 * 60 * 60 * 1000; // 5 hours
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(SECRET);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final long expirationMs;
+    private final Cache<String, VerifiedToken> verified;
 
-    public String extractUsername(String token) {
-        logger.info("Extracting username from token");
-        return extractClaim(token, Claims::getSubject);
-    }
+    public JwtUtil(MeterRegistry meterRegistry,
+                   @Value("${app.jwt.expiration-ms:18000000}") long expirationMs,
+                   @Value("${app.jwt.cache.max-size:100000}") long cacheMaxSize) {
+        this.signingKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET));
+        // Parsers are immutable and thread-safe
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.expirationMs = expirationMs;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), token.getExpiresAt()).toNanos());
+                    }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+                    @Override
+                    public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt");
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Checks the token's signature and expiry and returns its claims.
+     *
+     * @throws JwtException if the token is malformed, forged or expired
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verified.getIfPresent(digest);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            return cached;
+        }
+        VerifiedToken parsed = parse(token);
+        if (parsed.isExpired(Instant.now())) {
+            throw new ExpiredJwtException(null, null, "JWT expired at " + parsed.getExpiresAt());
+        }
+        verified.put(digest, parsed);
+        return parsed;
     }
 
-    private Claims extractAllClaims(String token) {
-        logger.info("Parsing JWT token");
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-        } catch (Exception e) {
-            logger.error("Error parsing JWT token: {}", e.getMessage(), e);
-            throw e;
+    private VerifiedToken parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            throw new JwtException("JWT has no subject or expiration");
         }
+        // Tokens issued before user ids were embedded have none; the filter looks it up by subject
+        Object userId = claims.get("uid");
+        Object roles = claims.get("roles");
+        List<String> roleNames = roles instanceof List<?>
+                ? ((List<?>) roles).stream().map(String::valueOf).collect(Collectors.toList())
+                : List.of();
+        return new VerifiedToken(userId instanceof Number ? ((Number) userId).longValue() : null, claims.getSubject(), roleNames,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant());
     }
 
-    private Boolean isTokenExpired(String token) {
-        Date expiration = extractExpiration(token);
-        boolean expired = expiration.before(new Date());
-        logger.info("Token expiration check: expired={}, expiration={}", expired, expiration);
-        return expired;
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
-    public String generateToken(String username, Collection<? extends GrantedAuthority> authorities) {
+    public String generateToken(Long userId, String username, Collection<? extends GrantedAuthority> authorities) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", userId);
         List<String> roles = authorities.stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
@@ -74,33 +132,13 @@ public class JwtUtil {
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
-        logger.info("Generating JWT token for subject: {}", subject);
+        logger.debug("Generating JWT token for subject: {}", subject);
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + JWT_EXPIRATION_MS))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
-
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        logger.info("Validating JWT token for user: {}", userDetails.getUsername());
-        try {
-            String username = extractUsername(token);
-            boolean usernameMatches = username.equals(userDetails.getUsername());
-            boolean isExpired = isTokenExpired(token);
-            boolean isValid = usernameMatches && !isExpired;
-            logger.info("Token validation - usernameMatches: {}, isExpired: {}, isValid: {}", usernameMatches, isExpired, isValid);
-            return isValid;
-        } catch (Exception e) {
-            logger.error("Token validation failed: {}", e.getMessage(), e);
-            return false;
-        }
-    }
-
-    public List<String> extractRoles(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("roles", List.class);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.example.demo.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits listing text into search terms so that the many ways our users spell the same word
+ * produce the same term: French accents, Arabic diacritics and letter variants, and Latin-script
+ * Darija (Arabizi) with its digit letters and competing transliterations.
+ */
+public final class TextNormalizer {
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "le", "la", "les", "de", "des", "du", "un", "une", "et", "en", "au", "aux", "pour", "avec",
+            "sur", "the", "and", "for", "with", "fi", "f", "dial", "dyal", "w");
+
+    private TextNormalizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = foldCharacters(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = normalizeToken(folded.substring(start, i));
+                if (token != null) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Lowercases, strips combining marks (Latin accents, Arabic harakat and hamza carriers) and unifies Arabic letter variants
+    private static String foldCharacters(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            switch (c) {
+                case '\u0640': // tatweel
+                    continue;
+                case '\u0671': // alef wasla
+                    c = '\u0627';
+                    break;
+                case '\u0629': // ta marbuta
+                    c = '\u0647';
+                    break;
+                case '\u0649': // alef maqsura
+                    c = '\u064A';
+                    break;
+                default:
+                    if (c >= '\u0660' && c <= '\u0669') { // Arabic-Indic digits
+                        c = (char) ('0' + (c - '\u0660'));
+                    }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static String normalizeToken(String token) {
+        if (STOPWORDS.contains(token)) {
+            return null;
+        }
+        if (isLatinWord(token)) {
+            token = foldLatin(looksLikeArabizi(token) ? replaceArabiziDigits(token) : token);
+        }
+        return token.length() > 1 ? token : null;
+    }
+
+    private static boolean isLatinWord(String token) {
+        boolean hasLetter = false;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                hasLetter = true;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return hasLetter;
+    }
+
+    // Model numbers such as "s21" or "a5" keep their digits; words like "3ayla" or "sba7" do not
+    private static boolean looksLikeArabizi(String token) {
+        int letters = 0;
+        boolean previousDigit = false;
+        for (int i = 0; i < token.length(); i++) {
+            boolean digit = Character.isDigit(token.charAt(i));
+            if (digit && previousDigit) {
+                return false;
+            }
+            if (!digit) {
+                letters++;
+            }
+            previousDigit = digit;
+        }
+        return letters >= 2;
+    }
+
+    // Digits that stand for Arabic letters in Arabizi: 3 = ain, 7 = haa, 9 = qaf, 5 = khaa, 8 = ghain, 2 = hamza
+    private static String replaceArabiziDigits(String token) {
+        StringBuilder sb = new StringBuilder(token.length() + 2);
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            switch (c) {
+                case '2':
+                    break;
+                case '3':
+                    sb.append('a');
+                    break;
+                case '5':
+                    sb.append("kh");
+                    break;
+                case '7':
+                    sb.append('h');
+                    break;
+                case '8':
+                    sb.append("gh");
+                    break;
+                case '9':
+                    sb.append('k');
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Collapses competing French/English transliterations ("zouine"/"zwin", "chemise"/"shemise") and light plurals
+    private static String foldLatin(String token) {
+        String t = token
+                .replace("ou", "u")
+                .replace("ch", "sh")
+                .replace("ph", "f")
+                .replace("ee", "i")
+                .replace('w', 'u')
+                .replace('q', 'k')
+                .replace('y', 'i');
+        StringBuilder sb = new StringBuilder(t.length());
+        for (int i = 0; i < t.length(); i++) {
+            char c = t.charAt(i);
+            if (sb.length() == 0 || sb.charAt(sb.length() - 1) != c || Character.isDigit(c)) {
+                sb.append(c);
+            }
+        }
+        int length = sb.length();
+        if (length > 3 && (sb.charAt(length - 1) == 's' || sb.charAt(length - 1) == 'x')) {
+            sb.setLength(--length);
+        }
+        if (length > 3 && sb.charAt(length - 1) == 'e') {
+            sb.setLength(length - 1);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.util;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The claims of a JWT whose signature has been checked, read once so that nothing downstream has
+ * to parse the token again.
+ */
+public final class VerifiedToken {
+
+    private final Long userId;
+    private final String subject;
+    private final List<String> roles;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+
+    public VerifiedToken(Long userId, String subject, List<String> roles, Instant issuedAt, Instant expiresAt) {
+        this.userId = userId;
+        this.subject = subject;
+        this.roles = roles != null ? List.copyOf(roles) : List.of();
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public VerifiedToken withUserId(Long userId) {
+        return new VerifiedToken(userId, subject, roles, issuedAt, expiresAt);
+    }
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+
+    // Null for tokens issued before the uid claim was added
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo;
+
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.AuthService;
+import com.example.demo.service.ProductFacetService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Users and products for integration tests. Names come from one counter, so tests sharing a
+ * context never collide on the unique username and email columns.
+ */
+@Component
+public class TestFixtures {
+
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private AuthService authService;
+
+    public String unique(String prefix) {
+        return prefix + "-" + counter.incrementAndGet();
+    }
+
+    // Saved as is, with the plain-text password "secret"
+    public User user(String prefix) {
+        return userRepository.save(newUser(prefix));
+    }
+
+    // Registered through AuthService, so that it can log in with the password "secret"
+    public User registeredUser(String prefix) {
+        return authService.register(newUser(prefix));
+    }
+
+    public Product product(User seller, String title, double price) {
+        return product(seller, title, price, null);
+    }
+
+    public Product product(User seller, String title, double price, String category) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setPrice(price);
+        product.setCategory(category);
+        product.setSeller(seller);
+        Product saved = productRepository.save(product);
+        productFacetService.index(saved);
+        return saved;
+    }
+
+    private User newUser(String prefix) {
+        String name = unique(prefix);
+        User user = new User();
+        user.setUsernameField(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("secret");
+        return user;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Order;
+import com.example.demo.entity.Order.OrderStatus;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+class OrderRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private User seller;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        seller = persistUser("seller", "seller@example.com");
+        User otherSeller = persistUser("other", "other@example.com");
+        User buyer = persistUser("buyer", "buyer@example.com");
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        for (int i = 0; i < 6; i++) {
+            Order order = new Order(persistProduct("Babouches " + i, seller), buyer);
+            order.setSellerId(seller.getId());
+            // Two orders share each timestamp so the id breaks ties
+            order.setOrderDate(start.plusMinutes(i / 2));
+            order.setStatus(i % 2 == 0 ? OrderStatus.PENDING : OrderStatus.SHIPPED);
+            entityManager.persist(order);
+        }
+        Order foreign = new Order(persistProduct("Tajine", otherSeller), buyer);
+        foreign.setSellerId(otherSeller.getId());
+        entityManager.persist(foreign);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void incomingOrdersAreKeysetPagedInASingleStatement() {
+        List<SellerOrderListing> first = orderRepository.findIncomingPage(
+                seller.getId(), null, null, null, PageRequest.of(0, 4));
+        SellerOrderListing last = first.get(3);
+        List<SellerOrderListing> second = orderRepository.findIncomingPage(
+                seller.getId(), null, last.getOrderDate(), last.getId(), PageRequest.of(0, 4));
+
+        assertThat(first).extracting(SellerOrderListing::getProductTitle)
+                .containsExactly("Babouches 5", "Babouches 4", "Babouches 3", "Babouches 2");
+        assertThat(second).extracting(SellerOrderListing::getProductTitle)
+                .containsExactly("Babouches 1", "Babouches 0");
+        assertThat(first).allSatisfy(order -> assertThat(order.getBuyerEmail()).isEqualTo("buyer@example.com"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void incomingOrdersFilterByStatus() {
+        List<SellerOrderListing> shipped = orderRepository.findIncomingPage(
+                seller.getId(), OrderStatus.SHIPPED, null, null, PageRequest.of(0, 10));
+
+        assertThat(shipped).extracting(SellerOrderListing::getProductTitle)
+                .containsExactly("Babouches 5", "Babouches 3", "Babouches 1");
+    }
+
+    private Product persistProduct(String title, User owner) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setPrice(150.0);
+        product.setSeller(owner);
+        return entityManager.persist(product);
+    }
+
+    private User persistUser(String username, String email) {
+        User user = new User();
+        user.setUsernameField(username);
+        user.setEmail(email);
+        user.setPassword("secret");
+        return entityManager.persist(user);
+    }
+}
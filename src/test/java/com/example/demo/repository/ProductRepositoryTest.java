@@ -0,0 +1,129 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.entity.Wishlist;
+import com.example.demo.util.EntityTags;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+class ProductRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User seller = persistUser("seller", "seller@example.com");
+        User buyer = persistUser("buyer", "buyer@example.com");
+        for (int i = 0; i < 5; i++) {
+            Product product = new Product();
+            product.setTitle("Djellaba " + i);
+            product.setPrice(100.0 + i);
+            product.setCategory("Vêtements");
+            product.setItemCondition("Good");
+            product.setSeller(seller);
+            entityManager.persist(product);
+            entityManager.persist(new Wishlist(buyer, product));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void catalogPageIsASingleStatement() {
+        List<ProductListing> page = productRepository.findCatalogPage(
+                "Vêtements", null, null, null, null, null, PageRequest.of(0, 10));
+
+        assertThat(page).hasSize(5);
+        assertThat(page).allSatisfy(listing -> assertThat(listing.getSellerEmail()).isEqualTo("seller@example.com"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void sellerListingsAreASingleStatement() {
+        List<ProductListing> listings = productRepository.findListingsBySellerEmail("seller@example.com");
+
+        assertThat(listings).hasSize(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void wishlistListingsAreASingleStatement() {
+        List<WishlistListing> listings = wishlistRepository.findListingsByUserEmail("buyer@example.com");
+
+        assertThat(listings).hasSize(5);
+        assertThat(listings).allSatisfy(listing -> assertThat(listing.getProductTitle()).startsWith("Djellaba"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void catalogPageVersionsChangeWhenImageVariantsLand() {
+        List<EntityVersion> before = productRepository.findCatalogPageVersions(
+                "Vêtements", null, null, null, null, null, PageRequest.of(0, 10));
+        List<ProductListing> page = productRepository.findCatalogPage(
+                "Vêtements", null, null, null, null, null, PageRequest.of(0, 10));
+        assertThat(before).extracting(EntityVersion::getId).containsExactlyElementsOf(
+                page.stream().map(ProductListing::getId).toList());
+        // A page served without If-None-Match is tagged from its own rows; revalidating it must agree
+        assertThat(EntityTags.ofRows("products", page)).isEqualTo(EntityTags.ofRows("products", before));
+
+        Long id = before.get(0).getId();
+        Product product = entityManager.find(Product.class, id);
+        product.setImageHash("a".repeat(64));
+        entityManager.flush();
+        productRepository.updateImageVariants(id, "a".repeat(64), "b".repeat(64), "c".repeat(64), "d".repeat(64));
+        entityManager.clear();
+
+        List<EntityVersion> after = productRepository.findCatalogPageVersions(
+                "Vêtements", null, null, null, null, null, PageRequest.of(0, 10));
+        assertThat(after.get(0).getVersion()).isEqualTo(before.get(0).getVersion() + 2);
+        assertThat(EntityTags.ofRows("products", after)).isNotEqualTo(EntityTags.ofRows("products", before));
+        assertThat(EntityTags.ofRows("products", after.subList(1, after.size())))
+                .isEqualTo(EntityTags.ofRows("products", before.subList(1, before.size())));
+    }
+
+    @Test
+    void wishlistVersionCoversEntriesAndProducts() {
+        VersionSummary summary = wishlistRepository.summarizeByUserEmail("buyer@example.com");
+
+        assertThat(summary.getCount()).isEqualTo(5);
+        assertThat(summary.getVersionSum()).isZero();
+        assertThat(wishlistRepository.summarizeByUserEmail("nobody@example.com").getCount()).isZero();
+    }
+
+    private User persistUser(String username, String email) {
+        User user = new User();
+        user.setUsernameField(username);
+        user.setEmail(email);
+        user.setPassword("secret");
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("h2")
+class IdempotencyServiceTest {
+
+    private static final String OWNER = "retry@example.com";
+    private static final String ENDPOINT = "POST /api/orders";
+    private static final int RETRIES = 16;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void concurrentRetriesRunTheRequestOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(RETRIES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IdempotencyService.StoredResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < RETRIES; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute(OWNER, ENDPOINT, key, "42", () -> {
+                        executions.incrementAndGet();
+                        sleep(200);
+                        return ResponseEntity.ok(Map.of("orderId", 7));
+                    });
+                }));
+            }
+            start.countDown();
+            List<IdempotencyService.StoredResponse> responses = new ArrayList<>();
+            for (Future<IdempotencyService.StoredResponse> future : futures) {
+                responses.add(future.get(30, TimeUnit.SECONDS));
+            }
+
+            assertThat(executions).hasValue(1);
+            assertThat(responses).filteredOn(response -> !response.isReplay()).hasSize(1);
+            assertThat(responses).allSatisfy(response -> {
+                assertThat(response.getStatusCode()).isEqualTo(200);
+                assertThat(new String(response.getBody())).isEqualTo("{\"orderId\":7}");
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void answersRetriesFromTheTableAfterARestart() {
+        String key = UUID.randomUUID().toString();
+        idempotencyService.execute(OWNER, ENDPOINT, key, "42", () -> ResponseEntity.status(409).body("Product is no longer available"));
+
+        // A fresh instance has an empty cache and must find the response in the table
+        IdempotencyService restarted = new IdempotencyService(repository, objectMapper, new SimpleMeterRegistry(),
+                24, 1 << 20, 60000, 1000);
+        IdempotencyService.StoredResponse replay = restarted.execute(OWNER, ENDPOINT, key, "42", () -> {
+            throw new AssertionError("retry must not run the request again");
+        });
+
+        assertThat(replay.isReplay()).isTrue();
+        assertThat(replay.getStatusCode()).isEqualTo(409);
+        assertThat(replay.getContentType()).startsWith("text/plain");
+        assertThat(new String(replay.getBody())).isEqualTo("Product is no longer available");
+        assertThatThrownBy(() -> restarted.execute(OWNER, ENDPOINT, key, "43", () -> ResponseEntity.ok("other")))
+                .hasMessage(IdempotencyService.KEY_REUSED);
+        // Keys are scoped to their owner and endpoint
+        assertThat(restarted.execute("other@example.com", ENDPOINT, key, "43", () -> ResponseEntity.ok("other")).isReplay())
+                .isFalse();
+    }
+
+    @Test
+    void failuresLeaveTheKeyForTheNextRetry() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+        idempotencyService.execute(OWNER, ENDPOINT, key, "42", () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.status(500).body("Error creating order: timeout");
+        });
+        IdempotencyService.StoredResponse retried = idempotencyService.execute(OWNER, ENDPOINT, key, "42", () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok("created");
+        });
+        assertThat(executions).hasValue(2);
+        assertThat(retried.getStatusCode()).isEqualTo(200);
+
+        // A claim held by another instance is reported rather than run a second time
+        String claimed = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        repository.claim(IdempotencyService.fingerprint(OWNER, ENDPOINT, claimed), "42", now, now.plusHours(1));
+        assertThatThrownBy(() -> idempotencyService.execute(OWNER, ENDPOINT, claimed, "42", () -> ResponseEntity.ok("twice")))
+                .hasMessage(IdempotencyService.IN_PROGRESS);
+        assertThatThrownBy(() -> idempotencyService.execute(OWNER, ENDPOINT, " ", "42", () -> ResponseEntity.ok("blank")))
+                .hasMessage(IdempotencyService.INVALID_KEY);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
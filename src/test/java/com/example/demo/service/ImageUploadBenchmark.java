@@ -0,0 +1,85 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageUploadBenchmark {
+
+    @TempDir
+    Path tempDir;
+
+    private ImageStore imageStore;
+    private ImageUploadService uploads;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageStore = new LocalImageStore(tempDir.resolve("images").toString());
+        uploads = new ImageUploadService(imageStore, tempDir.resolve("uploads").toString(), 10 * 1024 * 1024, 60, 2);
+    }
+
+    @Test
+    void benchmarkAllocationPerUploadAgainstBufferedPath() throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Path part = tempDir.resolve("part.bin");
+        Files.write(part, png(4 * 1024 * 1024));
+        String productJson = "{\"title\":\"Tapis berbère\",\"price\":1200.0,\"category\":\"Maison\",\"itemCondition\":\"Bon\"}";
+        ObjectReader productReader = new ObjectMapper().readerFor(ProductDTO.class);
+        int iterations = 50;
+
+        for (int i = 0; i < 5; i++) {
+            uploadBuffered(part, productJson);
+            uploadStreaming(part, productJson, productReader);
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            uploadBuffered(part, productJson);
+        }
+        long buffered = (threads.getThreadAllocatedBytes(threadId) - before) / iterations;
+        before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            uploadStreaming(part, productJson, productReader);
+        }
+        long streaming = (threads.getThreadAllocatedBytes(threadId) - before) / iterations;
+
+        System.out.printf("Image upload (4 MB): buffered path %d KB allocated per request, streaming path %d KB%n",
+                buffered / 1024, streaming / 1024);
+        assertThat(streaming).isLessThan(buffered);
+    }
+
+    // The old createProduct path: a fresh ObjectMapper and the whole part copied into a byte[]
+    private void uploadBuffered(Path part, String productJson) throws IOException {
+        new ObjectMapper().readValue(productJson, ProductDTO.class);
+        byte[] bytes = Files.readAllBytes(part);
+        imageStore.store(new ByteArrayInputStream(bytes));
+    }
+
+    private void uploadStreaming(Path part, String productJson, ObjectReader productReader) throws IOException {
+        productReader.readValue(productJson);
+        try (InputStream in = Files.newInputStream(part)) {
+            uploads.store(in);
+        }
+    }
+
+    private static byte[] png(int length) {
+        byte[] bytes = new byte[length];
+        new Random(7).nextBytes(bytes);
+        byte[] magic = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        System.arraycopy(magic, 0, bytes, 0, magic.length);
+        return bytes;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UploadStatusDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageUploadServiceTest {
+
+    private static final String OWNER = "seller@example.com";
+
+    @TempDir
+    Path tempDir;
+
+    private ImageStore imageStore;
+    private ImageUploadService uploads;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageStore = new LocalImageStore(tempDir.resolve("images").toString());
+        uploads = new ImageUploadService(imageStore, tempDir.resolve("uploads").toString(), 10 * 1024 * 1024, 60, 2);
+    }
+
+    @Test
+    void resumesChunkedUploadAndHashesWhileWriting() throws Exception {
+        byte[] png = png(300_000);
+        UploadStatusDTO started = uploads.start(OWNER, png.length);
+
+        UploadStatusDTO first = uploads.append(started.getId(), OWNER, 0, 99_999, png.length, slice(png, 0, 100_000));
+        assertThat(first.getOffset()).isEqualTo(100_000);
+        assertThat(first.isComplete()).isFalse();
+        assertThatThrownBy(() -> uploads.consume(started.getId(), OWNER)).isInstanceOf(IncompleteUploadException.class);
+
+        // A retried chunk at a stale offset is refused; the client resumes from the reported offset
+        assertThatThrownBy(() -> uploads.append(started.getId(), OWNER, 0, 99_999, png.length, slice(png, 0, 100_000)))
+                .isInstanceOf(IllegalStateException.class);
+        UploadStatusDTO resumed = uploads.status(started.getId(), OWNER);
+        UploadStatusDTO done = uploads.append(started.getId(), OWNER, resumed.getOffset(), png.length - 1, png.length,
+                slice(png, (int) resumed.getOffset(), png.length));
+        assertThat(done.isComplete()).isTrue();
+
+        StoredImage stored = uploads.consume(started.getId(), OWNER);
+        assertThat(stored.getContentType()).isEqualTo("image/png");
+        assertThat(stored.getHash()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(png)));
+        assertThat(imageStore.size(stored.getHash())).isEqualTo(png.length);
+    }
+
+    @Test
+    void retriesFinalisationAfterAFailedStoreAndCapsOpenUploads() throws Exception {
+        AtomicBoolean failNext = new AtomicBoolean(true);
+        ImageStore flakyStore = new LocalImageStore(tempDir.resolve("flaky").toString()) {
+            @Override
+            public void storeFile(String hash, Path file) throws IOException {
+                if (failNext.getAndSet(false)) {
+                    throw new IOException("disk full");
+                }
+                super.storeFile(hash, file);
+            }
+        };
+        ImageUploadService flaky = new ImageUploadService(flakyStore, tempDir.resolve("flaky-uploads").toString(),
+                10 * 1024 * 1024, 60, 2);
+        byte[] png = png(50_000);
+        UploadStatusDTO started = flaky.start(OWNER, png.length);
+
+        assertThatThrownBy(() -> flaky.append(started.getId(), OWNER, 0, png.length - 1, png.length, slice(png, 0, png.length)))
+                .hasMessage("disk full");
+        assertThat(flaky.status(started.getId(), OWNER).getOffset()).isEqualTo(png.length);
+
+        // Resending the last chunk only retries the move; the bytes are already in
+        UploadStatusDTO retried = flaky.append(started.getId(), OWNER, 0, png.length - 1, png.length, slice(png, 0, png.length));
+        assertThat(retried.isComplete()).isTrue();
+
+        flaky.start(OWNER, 10);
+        assertThatThrownBy(() -> flaky.start(OWNER, 10)).isInstanceOf(IllegalStateException.class);
+        assertThat(flaky.consume(started.getId(), OWNER).getHash()).isNotNull();
+        assertThat(flaky.start(OWNER, 10).getId()).isNotNull();
+        assertThat(flaky.start("someone-else@example.com", 10).getId()).isNotNull();
+    }
+
+    @Test
+    void rejectsContentThatIsNotAnImage() throws IOException {
+        byte[] text = "definitely not a picture".getBytes();
+        UploadStatusDTO started = uploads.start(OWNER, text.length);
+
+        assertThatThrownBy(() -> uploads.append(started.getId(), OWNER, 0, text.length - 1, text.length,
+                new ByteArrayInputStream(text)))
+                .hasMessage("Only JPEG and PNG images are allowed");
+        assertThatThrownBy(() -> uploads.status(started.getId(), OWNER)).hasMessage("Upload not found");
+        assertThatThrownBy(() -> uploads.store(new ByteArrayInputStream(text)))
+                .hasMessage("Only JPEG and PNG images are allowed");
+    }
+
+    private static byte[] png(int length) {
+        byte[] bytes = new byte[length];
+        new Random(7).nextBytes(bytes);
+        byte[] magic = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        System.arraycopy(magic, 0, bytes, 0, magic.length);
+        return bytes;
+    }
+
+    private static InputStream slice(byte[] bytes, int from, int to) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(bytes, from, to));
+    }
+}
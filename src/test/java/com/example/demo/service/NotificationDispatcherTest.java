@@ -0,0 +1,135 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.entity.Notification;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.notifications.dispatch-interval-ms=3600000",
+        "app.notifications.max-per-user=2"})
+@ActiveProfiles("h2")
+class NotificationDispatcherTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private ProductPriceService productPriceService;
+
+    @Autowired
+    private ProductWatcherIndex watcherIndex;
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void notifiesWatchersOncePerDispatchOfAPriceDrop() {
+        User seller = fixtures.user("seller");
+        String category = fixtures.unique("alerts");
+        Product product = fixtures.product(seller, "Lampe", 200.0, category);
+        List<User> watchers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User watcher = fixtures.user("watcher");
+            wishlistService.addToWishlist(watcher.getId(), watcher.getEmail(), product.getId());
+            watchers.add(watcher);
+        }
+        User bystander = fixtures.user("bystander");
+
+        productPriceService.updatePrice(product.getId(), seller.getEmail(), 150.0);
+        productPriceService.updatePrice(product.getId(), seller.getEmail(), 120.0);
+        // The price change itself writes no notifications
+        assertThat(notificationRepository.findByUserIdOrderById(watchers.get(0).getId())).isEmpty();
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getPrice()).isEqualTo(120.0);
+        assertThat(productFacetService.count(category, null, null, false).getPriceBuckets()).containsOnlyKeys("100-200");
+
+        // Both drops are coalesced into one notification per watcher
+        assertThat(notificationDispatcher.dispatch()).isEqualTo(3);
+        for (User watcher : watchers) {
+            List<Notification> notifications = notificationRepository.findByUserIdOrderById(watcher.getId());
+            assertThat(notifications).hasSize(1);
+            assertThat(notifications.get(0).getType()).isEqualTo(Notification.NotificationType.PRICE_DROP);
+            assertThat(notifications.get(0).getOldPrice()).isEqualTo(200.0);
+            assertThat(notifications.get(0).getNewPrice()).isEqualTo(120.0);
+        }
+        assertThat(notificationRepository.findByUserIdOrderById(bystander.getId())).isEmpty();
+
+        // A raise and a smaller cut in the same interval leave the price higher: no alert
+        productPriceService.updatePrice(product.getId(), seller.getEmail(), 180.0);
+        productPriceService.updatePrice(product.getId(), seller.getEmail(), 130.0);
+        assertThat(notificationDispatcher.dispatch()).isZero();
+
+        assertThatThrownBy(() -> productPriceService.updatePrice(product.getId(), bystander.getEmail(), 1.0))
+                .hasMessage("You are not authorized to update this product");
+    }
+
+    @Test
+    void capsTheNotificationsOfAUserToTheDeepestDrops() {
+        User seller = fixtures.user("seller");
+        String category = fixtures.unique("alerts");
+        Product slight = fixtures.product(seller, "Lampe", 100.0, category);
+        Product deep = fixtures.product(seller, "Lampe", 100.0, category);
+        Product deeper = fixtures.product(seller, "Lampe", 100.0, category);
+        User watcher = fixtures.user("watcher");
+        for (Product product : List.of(slight, deep, deeper)) {
+            wishlistService.addToWishlist(watcher.getId(), watcher.getEmail(), product.getId());
+        }
+
+        productPriceService.updatePrice(slight.getId(), seller.getEmail(), 95.0);
+        productPriceService.updatePrice(deep.getId(), seller.getEmail(), 60.0);
+        productPriceService.updatePrice(deeper.getId(), seller.getEmail(), 40.0);
+        notificationDispatcher.dispatch();
+
+        assertThat(notificationRepository.findByUserIdOrderById(watcher.getId()))
+                .extracting(Notification::getProductId)
+                .containsExactlyInAnyOrder(deep.getId(), deeper.getId());
+    }
+
+    @Test
+    void keepsTheWatcherIndexInStepWithWishlists() {
+        User seller = fixtures.user("seller");
+        Product product = fixtures.product(seller, "Lampe", 90.0, fixtures.unique("alerts"));
+        User stays = fixtures.user("watcher");
+        User leaves = fixtures.user("watcher");
+        User clears = fixtures.user("watcher");
+        for (User watcher : List.of(stays, leaves, clears)) {
+            wishlistService.addToWishlist(watcher.getId(), watcher.getEmail(), product.getId());
+        }
+        wishlistService.removeFromWishlist(leaves.getId(), leaves.getEmail(), product.getId());
+        wishlistService.clearWishlist(clears.getId(), clears.getEmail());
+
+        assertThat(watchers(product)).containsExactly(stays.getId());
+        // A rebuild from the table agrees with the events
+        watcherIndex.rebuild();
+        assertThat(watchers(product)).containsExactly(stays.getId());
+    }
+
+    private List<Long> watchers(Product product) {
+        return Arrays.stream(watcherIndex.getWatchers(product.getId())).mapToObj(Long::valueOf).collect(Collectors.toList());
+    }
+}
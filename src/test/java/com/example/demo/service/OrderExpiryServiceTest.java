@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.Order.OrderStatus;
+import com.example.demo.entity.OrderEvent;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.orders.expiry.pending-ttl-minutes=60",
+        "app.orders.expiry.batch-size=3"})
+@ActiveProfiles("h2")
+class OrderExpiryServiceTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private OrderExpiryService orderExpiryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void cancelsStalePendingOrdersInBatches() {
+        User seller = fixtures.user("seller");
+        User buyer = fixtures.user("buyer");
+        List<Order> stale = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            stale.add(order(seller, buyer, 2));
+        }
+        Order fresh = order(seller, buyer, 0);
+        Order confirmed = order(seller, buyer, 2);
+        orderService.updateStatus(confirmed, OrderStatus.CONFIRMED, buyer.getEmail());
+
+        // Seven orders in batches of three
+        assertThat(orderExpiryService.expireStaleOrders()).isEqualTo(7);
+
+        for (Order order : stale) {
+            assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus()).isEqualTo(OrderStatus.CANCELLED);
+            assertThat(productRepository.findById(order.getProduct().getId()).orElseThrow().isAvailable()).isTrue();
+            assertThat(productFacetService.isSold(order.getProduct().getId())).isFalse();
+            List<OrderEvent> history = orderService.getOrderHistory(order.getId());
+            assertThat(history).extracting(OrderEvent::getToStatus).containsExactly(OrderStatus.PENDING, OrderStatus.CANCELLED);
+            assertThat(history.get(1).getActor()).isEqualTo(OrderExpiryService.ACTOR);
+        }
+        assertThat(orderRepository.findById(fresh.getId()).orElseThrow().getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(orderRepository.findById(confirmed.getId()).orElseThrow().getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(orderExpiryService.expireStaleOrders()).isZero();
+    }
+
+    @Test
+    void concurrentRunsCancelEachOrderOnce() throws Exception {
+        User seller = fixtures.user("seller");
+        User buyer = fixtures.user("buyer");
+        List<Order> stale = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            stale.add(order(seller, buyer, 3));
+        }
+
+        int runs = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(runs);
+        CountDownLatch start = new CountDownLatch(1);
+        int total = 0;
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return orderExpiryService.expireStaleOrders();
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> future : futures) {
+                total += future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(total).isEqualTo(stale.size());
+        for (Order order : stale) {
+            assertThat(orderService.getOrderHistory(order.getId())).extracting(OrderEvent::getToStatus)
+                    .containsExactly(OrderStatus.PENDING, OrderStatus.CANCELLED);
+        }
+    }
+
+    // Places an order and moves its date the given number of hours into the past
+    private Order order(User seller, User buyer, int hoursAgo) {
+        Product saved = fixtures.product(seller, "Tajine", 120.0);
+        Order order = orderService.placeOrder(buyer.getId(), buyer.getEmail(), saved.getId());
+        productFacetService.markOrdered(saved.getId());
+        order.setOrderDate(LocalDateTime.now().minusHours(hoursAgo));
+        return orderRepository.save(order);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("h2")
+class OrderFlashSaleBenchmark {
+
+    private static final int BUYERS = 16;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    private User seller;
+    private final List<User> buyers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        seller = fixtures.user("flash-seller");
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(fixtures.user("flash-buyer-" + i));
+        }
+    }
+
+    @Test
+    void benchmarkFlashSale() throws Exception {
+        int rounds = 200;
+        long attempts = 0;
+        long elapsedNanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            Product product = fixtures.product(seller, "Djellaba vintage", 600.0);
+            long started = System.nanoTime();
+            Outcome outcome = rush(product.getId());
+            elapsedNanos += System.nanoTime() - started;
+            attempts += BUYERS;
+            assertThat(outcome.winners).isEqualTo(1);
+        }
+        System.out.printf("Flash sale: %d products x %d buyers, %.0f attempts/s, %.2f ms per product, 1 winner each%n",
+                rounds, BUYERS, attempts / (elapsedNanos / 1e9), elapsedNanos / 1e6 / rounds);
+    }
+
+    // Releases all buyers at once at one product, marking the winner in the facet index as the controller does
+    private Outcome rush(Long productId) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        Outcome outcome = new Outcome();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (User buyer : buyers) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.placeOrder(buyer.getId(), buyer.getEmail(), productId);
+                        productFacetService.markOrdered(productId);
+                        synchronized (outcome) {
+                            outcome.winners++;
+                        }
+                    } catch (RuntimeException e) {
+                        outcome.errors.merge(e.getMessage(), 1, Integer::sum);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return outcome;
+    }
+
+    private static class Outcome {
+        private int winners;
+        private final ConcurrentHashMap<String, Integer> errors = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.Order.OrderStatus;
+import com.example.demo.entity.OrderEvent;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.repository.OrderEventRepository;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("h2")
+class OrderServiceTest {
+
+    private static final int BUYERS = 16;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private OrderEventSequencer orderEventSequencer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User seller;
+    private final List<User> buyers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        seller = fixtures.user("flash-seller");
+        buyers.clear();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(fixtures.user("flash-buyer-" + i));
+        }
+    }
+
+    @Test
+    void exactlyOneConcurrentBuyerWins() throws Exception {
+        Product product = fixtures.product(seller, "Djellaba vintage", 600.0);
+
+        Outcome outcome = rush(product.getId());
+
+        assertThat(outcome.winners).isEqualTo(1);
+        assertThat(outcome.errors).containsOnlyKeys("Product is no longer available");
+        assertThat(orderRepository.findAll()).filteredOn(order -> order.getProduct().getId().equals(product.getId()))
+                .hasSize(1);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().isAvailable()).isFalse();
+    }
+
+    @Test
+    void cancellingGivesTheProductBack() {
+        Product product = fixtures.product(seller, "Djellaba vintage", 600.0);
+        Order order = orderService.placeOrder(buyers.get(0).getId(), buyers.get(0).getEmail(), product.getId());
+        assertThatThrownBy(() -> orderService.placeOrder(buyers.get(1).getId(), buyers.get(1).getEmail(), product.getId()))
+                .hasMessage("Product is no longer available");
+
+        orderService.updateStatus(orderRepository.findById(order.getId()).orElseThrow(), OrderStatus.CANCELLED,
+                buyers.get(0).getEmail());
+
+        assertThat(productRepository.findById(product.getId()).orElseThrow().isAvailable()).isTrue();
+        assertThat(orderService.placeOrder(buyers.get(1).getId(), buyers.get(1).getEmail(), product.getId()).getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThatThrownBy(() -> orderService.placeOrder(buyers.get(2).getId(), buyers.get(2).getEmail(), Long.MAX_VALUE))
+                .hasMessage("Product not found");
+    }
+
+    @Test
+    void staleSoldMarksDoNotRefuseAnAvailableProduct() {
+        Product product = fixtures.product(seller, "Djellaba vintage", 600.0);
+        // As left behind on this instance when the product was ordered and cancelled on another one
+        productFacetService.markOrdered(product.getId());
+
+        assertThat(orderService.placeOrder(buyers.get(0).getId(), buyers.get(0).getEmail(), product.getId()).getStatus()).isEqualTo(OrderStatus.PENDING);
+    }
+
+    @Test
+    void logsEveryValidStatusChange() {
+        Product product = fixtures.product(seller, "Djellaba vintage", 600.0);
+        User buyer = buyers.get(0);
+        Order order = orderService.placeOrder(buyer.getId(), buyer.getEmail(), product.getId());
+        orderService.updateStatus(order, OrderStatus.CONFIRMED, buyer.getEmail());
+        assertThatThrownBy(() -> orderService.updateStatus(order, OrderStatus.DELIVERED, buyer.getEmail()))
+                .isInstanceOf(IllegalArgumentException.class);
+        orderService.updateStatus(order, OrderStatus.SHIPPED, seller.getEmail());
+
+        // A stale copy of the order loses the compare-and-set instead of overwriting the status
+        Order stale = orderRepository.findById(order.getId()).orElseThrow();
+        stale.setStatus(OrderStatus.CONFIRMED);
+        assertThatThrownBy(() -> orderService.updateStatus(stale, OrderStatus.CANCELLED, buyer.getEmail()))
+                .isInstanceOf(IllegalStateException.class);
+
+        List<OrderEvent> history = orderService.getOrderHistory(order.getId());
+        assertThat(history).extracting(OrderEvent::getToStatus)
+                .containsExactly(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.SHIPPED);
+        assertThat(history.get(0).getFromStatus()).isNull();
+        assertThat(history.get(2).getActor()).isEqualTo(seller.getEmail());
+
+        // Both parties can tail the log from any sequence number
+        List<OrderEvent> sellerFeed = orderService.getEventsAfter(seller.getId(), history.get(0).getSequence(), 100);
+        assertThat(sellerFeed).extracting(OrderEvent::getId).containsExactly(history.get(1).getId(), history.get(2).getId());
+        assertThat(orderService.getEventsAfter(buyer.getId(), history.get(2).getSequence(), 100)).isEmpty();
+    }
+
+    @Test
+    void eventCommittingLateIsNumberedAfterTheCursor() throws Exception {
+        Product product = fixtures.product(seller, "Djellaba vintage", 600.0);
+        User buyer = buyers.get(0);
+        Order order = orderService.placeOrder(buyer.getId(), buyer.getEmail(), product.getId());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // The first event takes the lower id but commits last
+        ExecutorService slow = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> late = slow.submit(() -> transaction.execute(status -> {
+                Long id = orderEventRepository.save(new OrderEvent(order.getId(), buyer.getId(), seller.getId(),
+                        OrderStatus.PENDING, OrderStatus.CONFIRMED, buyer.getEmail())).getId();
+                orderEventRepository.flush();
+                inserted.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return id;
+            }));
+            assertThat(inserted.await(10, TimeUnit.SECONDS)).isTrue();
+            Long earlyId = transaction.execute(status -> orderEventRepository.save(new OrderEvent(order.getId(),
+                    buyer.getId(), seller.getId(), OrderStatus.CONFIRMED, OrderStatus.SHIPPED, seller.getEmail())).getId());
+            orderEventSequencer.sequence();
+
+            List<OrderEvent> page = orderService.getEventsAfter(buyer.getId(), 0, 100);
+            assertThat(page).extracting(OrderEvent::getId).endsWith(earlyId);
+            long cursor = page.get(page.size() - 1).getSequence();
+
+            release.countDown();
+            Long lateId = late.get(10, TimeUnit.SECONDS);
+            assertThat(lateId).isLessThan(earlyId);
+            orderEventSequencer.sequence();
+
+            assertThat(orderService.getEventsAfter(buyer.getId(), cursor, 100)).extracting(OrderEvent::getId)
+                    .containsExactly(lateId);
+        } finally {
+            release.countDown();
+            slow.shutdownNow();
+        }
+    }
+
+    // Releases all buyers at once at one product, marking the winner in the facet index as the controller does
+    private Outcome rush(Long productId) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        Outcome outcome = new Outcome();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (User buyer : buyers) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.placeOrder(buyer.getId(), buyer.getEmail(), productId);
+                        productFacetService.markOrdered(productId);
+                        synchronized (outcome) {
+                            outcome.winners++;
+                        }
+                    } catch (RuntimeException e) {
+                        outcome.errors.merge(e.getMessage(), 1, Integer::sum);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return outcome;
+    }
+
+    private static class Outcome {
+        private int winners;
+        private final ConcurrentHashMap<String, Integer> errors = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.dto.OrderEventDTO;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.Order.OrderStatus;
+import com.example.demo.entity.OrderEvent;
+import com.example.demo.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Heartbeats are pushed out so that each test decides when they are sent
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.orders.stream.heartbeat-ms=3600000",
+        "app.orders.stream.buffer-size=8"})
+@ActiveProfiles("h2")
+class OrderStreamHubTest {
+
+    private static final int IDLE_SUBSCRIBERS = 10_000;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private OrderStreamHub orderStreamHub;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void holdsTenThousandIdleSubscriptionsOnVirtualThreads() throws Exception {
+        User seller = fixtures.user("seller");
+        User buyer = fixtures.user("buyer");
+        int threadsBefore = Thread.activeCount();
+        int subscribersBefore = orderStreamHub.getSubscriberCount();
+
+        // Each client subscribes from its own virtual thread and keeps it parked while connected
+        List<RecordingEmitter> idle = new ArrayList<>();
+        List<Thread> clients = new ArrayList<>();
+        CountDownLatch disconnect = new CountDownLatch(1);
+        for (int i = 0; i < IDLE_SUBSCRIBERS; i++) {
+            RecordingEmitter emitter = new RecordingEmitter();
+            long userId = Long.MAX_VALUE - i;
+            idle.add(emitter);
+            clients.add(Thread.ofVirtual().name("stream-client-" + i).start(() -> {
+                orderStreamHub.attach(userId, null, emitter);
+                try {
+                    disconnect.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                emitter.fireCompletion();
+            }));
+        }
+        RecordingEmitter buyerStream = new RecordingEmitter();
+        RecordingEmitter sellerStream = new RecordingEmitter();
+        orderStreamHub.attach(buyer.getId(), null, buyerStream);
+        orderStreamHub.attach(seller.getId(), null, sellerStream);
+        await(() -> idle.stream().allMatch(emitter -> emitter.frames.size() == 1));
+
+        assertThat(orderStreamHub.getSubscriberCount() - subscribersBefore).isEqualTo(IDLE_SUBSCRIBERS + 2);
+        // Clients and writers are virtual; carrier threads are not counted here and no platform thread is added
+        assertThat(Thread.activeCount() - threadsBefore).isLessThanOrEqualTo(2);
+
+        Order order = orderService.placeOrder(buyer.getId(), buyer.getEmail(), fixtures.product(seller, "Babouches", 150.0).getId());
+        await(() -> buyerStream.frames.size() == 2 && sellerStream.frames.size() == 2);
+        // Pushed once numbered, with the sequence number as its id
+        OrderEvent created = orderService.getOrderHistory(order.getId()).get(0);
+        assertThat(buyerStream.frames.get(1)).contains("id:" + created.getSequence(), "event:order", "PENDING");
+        assertThat(sellerStream.frames.get(1)).isEqualTo(buyerStream.frames.get(1));
+
+        orderStreamHub.heartbeat();
+        await(() -> idle.stream().allMatch(emitter -> emitter.frames.size() == 2));
+        assertThat(idle.get(IDLE_SUBSCRIBERS / 2).frames).allMatch(frame -> !frame.contains("event:order"));
+        assertThat(idle.get(0).frames.get(1)).startsWith(":heartbeat");
+
+        disconnect.countDown();
+        for (Thread client : clients) {
+            client.join();
+        }
+        buyerStream.fireCompletion();
+        sellerStream.fireCompletion();
+        assertThat(orderStreamHub.getSubscriberCount()).isEqualTo(subscribersBefore);
+    }
+
+    @Test
+    void replaysEventsAfterLastEventId() throws Exception {
+        User seller = fixtures.user("seller");
+        User buyer = fixtures.user("buyer");
+        Order order = orderService.placeOrder(buyer.getId(), buyer.getEmail(), fixtures.product(seller, "Babouches", 150.0).getId());
+        orderService.updateStatus(order, OrderStatus.CONFIRMED, buyer.getEmail());
+        await(() -> orderService.getOrderHistory(order.getId()).stream().allMatch(event -> event.getSequence() != null));
+        List<OrderEvent> history = orderService.getOrderHistory(order.getId());
+
+        RecordingEmitter reconnected = new RecordingEmitter();
+        orderStreamHub.attach(seller.getId(), history.get(0).getSequence(), reconnected);
+        orderService.updateStatus(order, OrderStatus.SHIPPED, seller.getEmail());
+
+        await(() -> reconnected.frames.size() == 3);
+        assertThat(reconnected.frames.get(0)).startsWith(":connected").contains("retry:");
+        assertThat(reconnected.frames.get(1)).contains("id:" + history.get(1).getSequence(), "CONFIRMED");
+        assertThat(reconnected.frames.get(2)).contains("SHIPPED");
+        reconnected.fireCompletion();
+    }
+
+    @Test
+    void disconnectsSubscribersThatFallBehind() throws Exception {
+        CountDownLatch stuck = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(stuck);
+        int subscribersBefore = orderStreamHub.getSubscriberCount();
+        orderStreamHub.attach(Long.MIN_VALUE, null, slow);
+
+        // The writer blocks on the connected frame; the buffer then holds eight more before overflowing
+        for (int i = 0; i < 10; i++) {
+            orderStreamHub.heartbeat();
+        }
+
+        assertThat(slow.completed).isTrue();
+        assertThat(orderStreamHub.getSubscriberCount()).isEqualTo(subscribersBefore);
+        stuck.countDown();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    // Records each frame as text instead of writing to a response
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private final List<Runnable> completionCallbacks = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        RecordingEmitter() {
+            this(null);
+        }
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder frame = new StringBuilder();
+            builder.build().forEach(part -> frame.append(part.getData() instanceof OrderEventDTO
+                    ? ((OrderEventDTO) part.getData()).getToStatus()
+                    : part.getData()));
+            frames.add(frame.toString());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+
+        @Override
+        public synchronized void onCompletion(Runnable callback) {
+            completionCallbacks.add(callback);
+        }
+
+        // What the container does once the client disconnects
+        void fireCompletion() {
+            completionCallbacks.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.dto.ProductImportReportDTO;
+import com.example.demo.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("h2")
+class ProductImportBenchmark {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Test
+    void benchmarkImportThroughputAtOneHundredThousandRows() throws IOException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            ndjson.append("{\"title\":\"Article ").append(i).append("\",\"description\":\"Import de stock, lot ")
+                    .append(i / 1000).append("\",\"price\":").append(50 + i % 950)
+                    .append(",\"category\":\"Vêtements\",\"itemCondition\":\"Bon\"}\n");
+        }
+        byte[] input = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+
+        User seller = fixtures.user("importer");
+        long start = System.nanoTime();
+        ProductImportReportDTO report = productImportService.importProducts(
+                new ByteArrayInputStream(input), ProductImportService.Format.NDJSON, seller.getId());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("Product import: %d rows in %d ms (%.0f rows/s)%n",
+                report.getCreated(), millis, report.getCreated() * 1000.0 / millis);
+        assertThat(report.getCreated()).isEqualTo(100_000);
+    }
+}
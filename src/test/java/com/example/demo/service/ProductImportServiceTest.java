@@ -0,0 +1,94 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductImportReportDTO;
+import com.example.demo.dto.ProductImportResultDTO;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("h2")
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        seller = userRepository.findByEmail("importer@example.com").orElseGet(() -> {
+            User user = new User();
+            user.setUsernameField("importer");
+            user.setEmail("importer@example.com");
+            user.setPassword("secret");
+            return userRepository.save(user);
+        });
+    }
+
+    @Test
+    void reportsEveryRowAndInsertsValidOnesInBatches() throws IOException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 120; i++) {
+            ndjson.append("{\"title\":\"Caftan ").append(i).append("\",\"price\":").append(200 + i)
+                    .append(",\"category\":\"Vêtements\"}\n");
+        }
+        ndjson.append("{\"title\":\"No price\"}\n");
+        ndjson.append("{not json\n");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ProductImportReportDTO report = productImportService.importProducts(
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)),
+                ProductImportService.Format.NDJSON, seller.getId());
+
+        assertThat(report.getCreated()).isEqualTo(120);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getRows()).extracting(ProductImportResultDTO::getLine).startsWith(1, 2, 3).endsWith(121, 122);
+        assertThat(report.getRows().get(120).getError()).isEqualTo("Price must be zero or more");
+        assertThat(report.getRows().get(121).getError()).startsWith("Invalid JSON");
+        // 120 inserts travel in one JDBC batch; the rest are id-generator round trips
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+    }
+
+    @Test
+    void readsCsvWithQuotedFields() throws IOException {
+        String csv = "title,description,price,category,item_condition\n" +
+                "\"Babouches, cuir\",\"Taille \"\"42\"\"\",150,Chaussures,Neuf\n" +
+                "Sac,,abc,Sacs,Bon\n" +
+                "Tajine,,NaN,Maison,Neuf\n" +
+                "Tapis,,Infinity,Maison,Bon\n" +
+                "Ceinture,,80,Accessoires,Bon\n";
+
+        ProductImportReportDTO report = productImportService.importProducts(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                ProductImportService.Format.CSV, seller.getId());
+
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getRows().get(0).getLine()).isEqualTo(2);
+        assertThat(report.getRows().get(0).getProductId()).isNotNull();
+        assertThat(report.getRows().get(1).getError()).isEqualTo("Price is not a number: abc");
+        assertThat(report.getRows().get(2).getError()).isEqualTo("Price must be a finite number");
+        assertThat(report.getRows().get(3).getError()).isEqualTo("Price must be a finite number");
+        assertThat(report.getRows().get(4).getProductId()).isNotNull();
+    }
+}
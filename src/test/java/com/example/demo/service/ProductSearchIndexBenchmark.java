@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexBenchmark {
+
+    @Test
+    void benchmarkQueryLatencyAtOneMillionListings() {
+        String[] vocabulary = new String[5000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = "mot" + Integer.toString(i, 36) + "x";
+        }
+        String[] categories = {"Vêtements", "Chaussures", "Sacs", "Accessoires", "Électronique"};
+        Random random = new Random(42);
+        ProductSearchIndex index = new ProductSearchIndex();
+
+        long buildStart = System.nanoTime();
+        List<ProductSearchIndex.Document> batch = new ArrayList<>();
+        for (int id = 1; id <= 1_000_000; id++) {
+            batch.add(ProductSearchIndex.analyze(id, words(vocabulary, random, 4), words(vocabulary, random, 20),
+                    categories[random.nextInt(categories.length)]));
+            if (batch.size() == 10_000) {
+                index.addAll(batch);
+                batch.clear();
+            }
+        }
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        String[] queries = new String[200];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = words(vocabulary, random, 1 + random.nextInt(3));
+        }
+        for (int i = 0; i < 2_000; i++) {
+            index.search(queries[i % queries.length], 20);
+        }
+        long[] latencies = new long[10_000];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            index.search(queries[i % queries.length], 20);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("Search index: %d listings built in %d ms; query p50 %.3f ms, p99 %.3f ms%n",
+                index.size(), buildMillis, latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6);
+        assertThat(index.size()).isEqualTo(1_000_000);
+    }
+
+    private static String words(String[] vocabulary, Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTest {
+
+    @Test
+    void matchesAcrossSpellingsAndScripts() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.add(ProductSearchIndex.analyze(1, "Jellaba zouina", "Jellaba marocaine élégante", "Vêtements"));
+        index.add(ProductSearchIndex.analyze(2, "جَلاَّبَة مغربية", null, "ملابس"));
+        index.add(ProductSearchIndex.analyze(3, "Chaussures Adidas", "Taille 42", "Chaussures"));
+
+        assertThat(ids(index.search("jelaba zwina", 10))).containsExactly(1L);
+        assertThat(ids(index.search("ELEGANTE", 10))).containsExactly(1L);
+        assertThat(ids(index.search("جلابة", 10))).containsExactly(2L);
+        assertThat(ids(index.search("chaussure", 10))).containsExactly(3L);
+    }
+
+    @Test
+    void ranksTitleMatchesFirstAndDropsDeletedProducts() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.add(ProductSearchIndex.analyze(1, "Sac en cuir", "Couleur noire", "Sacs"));
+        index.add(ProductSearchIndex.analyze(2, "Sac à dos", "Sac noir en toile, parfait pour l'école", "Sacs"));
+        index.add(ProductSearchIndex.analyze(3, "Veste", "Veste noire", "Vêtements"));
+
+        assertThat(ids(index.search("sac cuir", 10))).startsWith(1L);
+
+        index.remove(1);
+        assertThat(ids(index.search("sac cuir", 10))).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    private static List<Long> ids(List<ProductSearchIndex.Hit> hits) {
+        return hits.stream().map(ProductSearchIndex.Hit::getProductId).toList();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.dto.ProductDTO;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.ProductPopularity;
+import com.example.demo.entity.User;
+import com.example.demo.repository.ProductPopularityRepository;
+import com.example.demo.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.trending.flush-interval-ms=3600000",
+        "app.trending.top-k=3", "app.trending.half-life-hours=24"})
+@ActiveProfiles("h2")
+class ProductTrendingServiceTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private ProductTrendingService trendingService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ProductPopularityRepository popularityRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void ranksWeightedEventsPerCategory() {
+        User seller = fixtures.user("seller");
+        String category = fixtures.unique("trending");
+        String other = fixtures.unique("trending");
+        Product viewed = fixtures.product(seller, "Pouf", 150.0, category);
+        Product wishlisted = fixtures.product(seller, "Pouf", 150.0, category);
+        Product reviewed = fixtures.product(seller, "Pouf", 150.0, category);
+        Product glanced = fixtures.product(seller, "Pouf", 150.0, category);
+        Product elsewhere = fixtures.product(seller, "Pouf", 150.0, other);
+
+        for (int i = 0; i < 3; i++) {
+            trendingService.recordView(viewed.getId());
+        }
+        trendingService.recordView(glanced.getId());
+        trendingService.recordView(elsewhere.getId());
+        trendingService.onWishlistChanged(new WishlistChangedEvent(seller.getId(), seller.getEmail(), wishlisted.getId(), true));
+        trendingService.onReviewCreated(new ReviewCreatedEvent(null, reviewed.getId(), seller.getId(), 5));
+        // Nothing is ranked until the counters are flushed
+        assertThat(trendingService.getTrending(category, 10)).isEmpty();
+        trendingService.flush();
+
+        // Only the top three of a category are kept
+        assertThat(ids(trendingService.getTrending(category, 10)))
+                .containsExactly(reviewed.getId(), wishlisted.getId(), viewed.getId());
+        assertThat(ids(trendingService.getTrending(other, 10))).containsExactly(elsewhere.getId());
+        ProductPopularity stored = popularityRepository.findById(viewed.getId()).orElseThrow();
+        assertThat(stored.getViewCount()).isEqualTo(3);
+        assertThat(stored.getScore()).isCloseTo(3.0, within(0.01));
+
+        // Losing points drops a product below one that was outside the heap
+        trendingService.onWishlistChanged(new WishlistChangedEvent(seller.getId(), seller.getEmail(), wishlisted.getId(), false));
+        trendingService.flush();
+        assertThat(ids(trendingService.getTrending(category, 10)))
+                .containsExactly(reviewed.getId(), viewed.getId(), glanced.getId());
+        assertThat(popularityRepository.findById(wishlisted.getId()).orElseThrow().getWishlistCount()).isZero();
+
+        // Sold and deleted products are left out
+        productFacetService.markOrdered(reviewed.getId());
+        trendingService.remove(glanced.getId());
+        assertThat(ids(trendingService.getTrending(category, 10))).containsExactly(viewed.getId());
+        assertThat(popularityRepository.existsById(glanced.getId())).isFalse();
+    }
+
+    @Test
+    void instancesFlushingTheSameProductAddUp() {
+        User seller = fixtures.user("seller");
+        String category = fixtures.unique("trending");
+        Product shared = fixtures.product(seller, "Pouf", 150.0, category);
+        Product local = fixtures.product(seller, "Pouf", 150.0, category);
+        ProductTrendingService otherInstance = new ProductTrendingService(popularityRepository, productRepository,
+                productMapper, productFacetService, jdbcTemplate, transactionManager, new SimpleMeterRegistry(),
+                24, 1, 5, 10, 3, 500);
+
+        // Two views here and three on the other instance beat four views here alone
+        trendingService.recordView(shared.getId());
+        trendingService.recordView(shared.getId());
+        for (int i = 0; i < 4; i++) {
+            trendingService.recordView(local.getId());
+        }
+        trendingService.flush();
+        for (int i = 0; i < 3; i++) {
+            otherInstance.recordView(shared.getId());
+        }
+        otherInstance.flush();
+
+        assertThat(popularityRepository.findById(shared.getId()).orElseThrow().getScore()).isCloseTo(5.0, within(0.01));
+        assertThat(ids(otherInstance.getTrending(category, 10))).containsExactly(shared.getId());
+        trendingService.load();
+        assertThat(ids(trendingService.getTrending(category, 10))).containsExactly(shared.getId(), local.getId());
+    }
+
+    @Test
+    void decaysStoredScoresWhenLoading() {
+        User seller = fixtures.user("seller");
+        String category = fixtures.unique("trending");
+        Product earlier = fixtures.product(seller, "Pouf", 150.0, category);
+        Product recent = fixtures.product(seller, "Pouf", 150.0, category);
+        Product forgotten = fixtures.product(seller, "Pouf", 150.0, category);
+        LocalDateTime now = LocalDateTime.now();
+        // Three half-lives leave 12.5 of 100 points, below the 20 scored just now
+        popularity(earlier, 100, now.minusHours(72));
+        popularity(recent, 20, now);
+        popularity(forgotten, 1_000_000, now.minusDays(60));
+
+        trendingService.load();
+
+        assertThat(ids(trendingService.getTrending(category, 10))).containsExactly(recent.getId(), earlier.getId());
+    }
+
+    private void popularity(Product product, double score, LocalDateTime scoredAt) {
+        ProductPopularity popularity = new ProductPopularity();
+        popularity.setProductId(product.getId());
+        popularity.setScore(score);
+        popularity.setScoredAt(scoredAt);
+        popularityRepository.save(popularity);
+    }
+
+    private static List<Long> ids(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).collect(Collectors.toList());
+    }
+}
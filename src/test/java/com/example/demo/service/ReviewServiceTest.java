@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RatingSummaryDTO;
+import com.example.demo.dto.ReviewDTO;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.ProductRatingSummary;
+import com.example.demo.entity.User;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("h2")
+class ReviewServiceTest {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        User seller = userRepository.findByEmail("reviews@example.com").orElseGet(() -> {
+            User user = new User();
+            user.setUsernameField("reviews");
+            user.setEmail("reviews@example.com");
+            user.setPassword("secret");
+            return userRepository.save(user);
+        });
+        Product newProduct = new Product();
+        newProduct.setTitle("Tapis berbère");
+        newProduct.setPrice(900.0);
+        newProduct.setSeller(seller);
+        product = productRepository.save(newProduct);
+    }
+
+    @Test
+    void foldsEveryReviewIntoTheSummary() {
+        for (int rating : new int[] {5, 4, 5, 1}) {
+            reviewService.createReview(product.getId(), "buyer@example.com", rating, "ok");
+        }
+
+        ProductRatingSummary summary = reviewService.getSummary(product.getId()).orElseThrow();
+        assertThat(summary.getReviewCount()).isEqualTo(4);
+        RatingSummaryDTO dto = ReviewService.toDTO(summary);
+        assertThat(dto.getAverage()).isEqualTo(3.75);
+        assertThat(dto.getHistogram()).containsExactly(1, 0, 0, 1, 2);
+        // Each review moves the product's version, which tags the detail payload embedding the summary
+        assertThat(productRepository.findVersionById(product.getId()).orElseThrow().getVersion())
+                .isEqualTo(product.getVersion() + 4);
+    }
+
+    @Test
+    void pagesReviewsNewestFirst() {
+        for (int i = 1; i <= 5; i++) {
+            reviewService.createReview(product.getId(), "buyer" + i + "@example.com", 3, "review " + i);
+        }
+
+        List<ReviewDTO> first = reviewService.getReviewPage(product.getId(), null, 2);
+        assertThat(first).extracting(ReviewDTO::getComment).containsExactly("review 5", "review 4");
+        List<ReviewDTO> second = reviewService.getReviewPage(product.getId(), first.get(1).getId(), 10);
+        assertThat(second).extracting(ReviewDTO::getComment).containsExactly("review 3", "review 2", "review 1");
+    }
+
+    @Test
+    void rejectsReviewsOfMissingProducts() {
+        assertThatThrownBy(() -> reviewService.createReview(Long.MAX_VALUE, "buyer@example.com", 4, "?"))
+                .hasMessage("Product not found");
+        assertThat(ReviewService.toDTO(null).getCount()).isZero();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("h2")
+class SchemaMigrationsTest {
+
+    @Autowired
+    private SchemaMigrations schemaMigrations;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void runsEachMigrationOnceAcrossConcurrentNodes() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return schemaMigrations.runOnce("test-concurrent", () -> {
+                        runs.incrementAndGet();
+                        sleep(200);
+                    });
+                }));
+            }
+            start.countDown();
+            int ran = 0;
+            for (Future<Boolean> future : futures) {
+                ran += future.get() ? 1 : 0;
+            }
+            assertThat(ran).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(runs).hasValue(1);
+        assertThat(schemaMigrations.runOnce("test-concurrent", runs::incrementAndGet)).isFalse();
+        // Every migration the application ships has been applied at startup
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM schema_migrations WHERE applied_at IS NULL", Integer.class)).isZero();
+    }
+
+    @Test
+    void failedMigrationIsRetriedOnTheNextRun() {
+        assertThatThrownBy(() -> schemaMigrations.runOnce("test-failing", () -> {
+            throw new IllegalStateException("boom");
+        })).hasMessage("boom");
+
+        assertThat(schemaMigrations.runOnce("test-failing", () -> { })).isTrue();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
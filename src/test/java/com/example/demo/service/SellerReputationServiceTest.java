@@ -0,0 +1,158 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.dto.SellerReputationDTO;
+import com.example.demo.entity.JobLease;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.Order.OrderStatus;
+import com.example.demo.entity.OrderEvent;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.repository.JobLeaseRepository;
+import com.example.demo.repository.OrderEventRepository;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.SellerReputationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The background flush is pushed out so that each test decides when queued events are applied
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.reputation.flush-interval-ms=3600000"})
+@ActiveProfiles("h2")
+class SellerReputationServiceTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private SellerReputationService sellerReputationService;
+
+    @Autowired
+    private SellerReputationRepository reputationRepository;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private User seller;
+    private User buyer;
+
+    @BeforeEach
+    void setUp() {
+        seller = fixtures.user("seller");
+        buyer = fixtures.user("buyer");
+    }
+
+    @Test
+    void coalescesReviewAndOrderEventsPerSeller() {
+        Product first = fixtures.product(seller, "Théière", 250.0);
+        Product second = fixtures.product(seller, "Pouf", 250.0);
+        reviewService.createReview(first.getId(), buyer.getEmail(), 5, "parfait");
+        reviewService.createReview(second.getId(), buyer.getEmail(), 3, "correct");
+        closeOrder(first, OrderStatus.DELIVERED);
+        closeOrder(second, OrderStatus.CANCELLED);
+
+        sellerReputationService.flush();
+
+        SellerReputationDTO reputation = sellerReputationService.getReputation(seller.getId());
+        assertThat(reputation.getAverageRating()).isEqualTo(4.0);
+        assertThat(reputation.getReviewCount()).isEqualTo(2);
+        assertThat(reputation.getCompletedSales()).isEqualTo(1);
+        assertThat(reputation.getCancellationRate()).isEqualTo(0.5);
+        // Four events, one upsert
+        assertThat(reputationRepository.findById(seller.getId()).orElseThrow().getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void rebuildRestoresRollupsFromSourceTables() {
+        Product product = fixtures.product(seller, "Lanterne", 250.0);
+        reviewService.createReview(product.getId(), buyer.getEmail(), 4, "jolie");
+        closeOrder(product, OrderStatus.DELIVERED);
+        sellerReputationService.flush();
+        reputationRepository.deleteById(seller.getId());
+
+        sellerReputationService.rebuildAll();
+
+        SellerReputationDTO reputation = sellerReputationService.getReputation(seller.getId());
+        assertThat(reputation.getReviewCount()).isEqualTo(1);
+        assertThat(reputation.getAverageRating()).isEqualTo(4.0);
+        assertThat(reputation.getCompletedSales()).isEqualTo(1);
+        assertThat(reputation.getCancellationRate()).isEqualTo(0.0);
+        long version = reputationRepository.findById(seller.getId()).orElseThrow().getVersion();
+
+        // Unchanged totals are not rewritten
+        sellerReputationService.rebuildAll();
+        assertThat(reputationRepository.findById(seller.getId()).orElseThrow().getVersion()).isEqualTo(version);
+    }
+
+    @Test
+    void queuedEventsCountedByARebuildAreNotAppliedAgain() {
+        Product product = fixtures.product(seller, "Tapis", 250.0);
+        reviewService.createReview(product.getId(), buyer.getEmail(), 2, "usé");
+        closeOrder(product, OrderStatus.CANCELLED);
+
+        // The rebuild reads the review and the cancellation while their events are still queued
+        sellerReputationService.rebuildAll();
+        sellerReputationService.flush();
+
+        SellerReputationDTO reputation = sellerReputationService.getReputation(seller.getId());
+        assertThat(reputation.getReviewCount()).isEqualTo(1);
+        assertThat(reputation.getAverageRating()).isEqualTo(2.0);
+        assertThat(reputation.getCancellationRate()).isEqualTo(1.0);
+
+        // Later events are still applied
+        reviewService.createReview(product.getId(), buyer.getEmail(), 4, "nettoyé");
+        sellerReputationService.flush();
+        assertThat(sellerReputationService.getReputation(seller.getId()).getReviewCount()).isEqualTo(2);
+    }
+
+    @Test
+    void rebuildIsSkippedWhileAnotherInstanceHoldsTheLease() {
+        Product product = fixtures.product(seller, "Vase", 250.0);
+        reviewService.createReview(product.getId(), buyer.getEmail(), 5, "superbe");
+        sellerReputationService.flush();
+        reputationRepository.deleteById(seller.getId());
+
+        JobLease lease = new JobLease();
+        lease.setName("seller-reputation-rebuild");
+        lease.setOwner("another-instance");
+        lease.setExpiresAt(LocalDateTime.now().plusHours(1));
+        jobLeaseRepository.save(lease);
+        try {
+            sellerReputationService.rebuildAll();
+            assertThat(reputationRepository.findById(seller.getId())).isEmpty();
+        } finally {
+            jobLeaseRepository.deleteById("seller-reputation-rebuild");
+        }
+
+        sellerReputationService.rebuildAll();
+        assertThat(sellerReputationService.getReputation(seller.getId()).getReviewCount()).isEqualTo(1);
+    }
+
+    private void closeOrder(Product product, OrderStatus status) {
+        Order order = new Order(product, buyer);
+        order.setStatus(status);
+        Order saved = orderRepository.save(order);
+        OrderEvent event = orderEventRepository.save(new OrderEvent(saved.getId(), buyer.getId(), seller.getId(),
+                OrderStatus.PENDING, status, buyer.getEmail()));
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(saved.getId(), event.getId(), seller.getId(), status));
+    }
+}
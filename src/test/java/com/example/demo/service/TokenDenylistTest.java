@@ -0,0 +1,153 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.config.JwtAuthenticationDetails;
+import com.example.demo.config.JwtAuthenticationFilter;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.util.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.security.Key;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "spring.jpa.properties.hibernate.generate_statistics=true"})
+@ActiveProfiles("h2")
+class TokenDenylistTest {
+
+    private static final String SECRET = "2F423F4528482B4D6250655368566D597133743677397A24432646294A404E635266556A586E5A7234753778214125442A472D4B6150645367566B5970337336";
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesFromTokenClaimsWithoutQueries() throws Exception {
+        User user = fixtures.registeredUser("claims");
+        String token = authService.login(user.getEmail(), "secret");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Authentication authentication = authenticate(token);
+
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getPrincipal()).isEqualTo(user.getEmail());
+        assertThat(((JwtAuthenticationDetails) authentication.getDetails()).getUserId()).isEqualTo(user.getId());
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+        assertThat(statistics.isStatisticsEnabled()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void rejectsRevokedTokensAndDisabledAccounts() throws Exception {
+        User revoking = fixtures.registeredUser("revoking");
+        String before = authService.login(revoking.getEmail(), "secret");
+        // iat has second precision; a token from the revocation's own second stays valid
+        Thread.sleep(1100);
+        authService.revokeTokens(revoking.getEmail());
+        assertThat(authenticate(before)).isNull();
+
+        // Logging in again right away works, although iat and the cut-off fall in the same second
+        String after = authService.login(revoking.getEmail(), "secret");
+        assertThat(authenticate(after)).isNotNull();
+
+        User disabled = fixtures.registeredUser("disabled");
+        String token = authService.login(disabled.getEmail(), "secret");
+        disabled.setEnabled(false);
+        userRepository.save(disabled);
+        assertThat(authenticate(token)).isNotNull();
+
+        tokenDenylist.refresh();
+        assertThat(authenticate(token)).isNull();
+        assertThatThrownBy(() -> authService.login(disabled.getEmail(), "secret")).isInstanceOf(DisabledException.class);
+
+        // A refresh that reads the committed revocation keeps rejecting the old token
+        assertThat(authenticate(before)).isNull();
+    }
+
+    @Test
+    void forgetsLocalRevocationsOnceTheirTokensHaveExpired() {
+        User user = fixtures.registeredUser("expired");
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(30);
+        VerifiedToken token = new VerifiedToken(user.getId(), user.getEmail(), List.of("ROLE_USER"),
+                longAgo.minusHours(1).atZone(ZoneId.systemDefault()).toInstant(), Instant.now());
+        // Never committed, so no refresh will ever read it back
+        tokenDenylist.revoke(user.getId(), longAgo);
+        assertThat(tokenDenylist.isDenied(token)).isTrue();
+
+        tokenDenylist.refresh();
+        assertThat(tokenDenylist.isDenied(token)).isFalse();
+    }
+
+    @Test
+    void looksUpTheUserIdOfTokensIssuedWithoutOne() throws Exception {
+        User user = fixtures.registeredUser("legacy");
+        Key key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET));
+        String legacy = Jwts.builder()
+                .claim("roles", List.of("ROLE_USER"))
+                .setSubject(user.getEmail())
+                .setIssuedAt(new Date(System.currentTimeMillis() - 60_000))
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(key, SignatureAlgorithm.HS512)
+                .compact();
+
+        Authentication authentication = authenticate(legacy);
+        assertThat(authentication).isNotNull();
+        assertThat(((JwtAuthenticationDetails) authentication.getDetails()).getUserId()).isEqualTo(user.getId());
+
+        authService.revokeTokens(user.getEmail());
+        assertThat(authenticate(legacy)).isNull();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wishlist");
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
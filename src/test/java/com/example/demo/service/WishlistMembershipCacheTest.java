@@ -0,0 +1,73 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.entity.User;
+import com.example.demo.repository.WishlistRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("h2")
+class WishlistMembershipCacheTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private WishlistMembershipCache membershipCache;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    @Test
+    void answersBulkLookupsFromThePatchedSet() {
+        User seller = fixtures.user("seller");
+        User shopper = fixtures.user("shopper");
+        List<Long> page = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            page.add(fixtures.product(seller, "Coussin", 80.0).getId());
+        }
+        wishlistService.addToWishlist(shopper.getId(), shopper.getEmail(), page.get(1));
+        wishlistService.addToWishlist(shopper.getId(), shopper.getEmail(), page.get(3));
+
+        BitSet bits = wishlistService.getMembership(shopper.getEmail(), page);
+        assertThat(bits.stream().toArray()).containsExactly(1, 3);
+        assertThat(wishlistService.getMembership(seller.getEmail(), page).isEmpty()).isTrue();
+
+        // Adds and removes patch the loaded set instead of dropping it
+        wishlistService.addToWishlist(shopper.getId(), shopper.getEmail(), page.get(4));
+        wishlistService.removeFromWishlist(shopper.getId(), shopper.getEmail(), page.get(1));
+        assertThat(wishlistService.getMembership(shopper.getEmail(), page).stream().toArray()).containsExactly(3, 4);
+
+        // Rows deleted behind the cache's back stay visible until the entry is reloaded
+        wishlistRepository.deleteAll(wishlistRepository.findByUser_Id(shopper.getId()));
+        assertThat(membershipCache.get(shopper.getEmail()).size()).isEqualTo(2);
+        membershipCache.invalidate(shopper.getEmail());
+        assertThat(membershipCache.get(shopper.getEmail()).size()).isZero();
+    }
+
+    @Test
+    void keepsIdsSortedThroughChanges() {
+        WishlistMembershipCache.Membership membership = new WishlistMembershipCache.Membership(new long[0]);
+        for (long id : new long[] {42, 7, 99, 7, 13}) {
+            membership = membership.with(id);
+        }
+        membership = membership.without(99).without(1000);
+
+        assertThat(membership.size()).isEqualTo(3);
+        assertThat(Arrays.stream(new long[] {7, 13, 42, 99}).filter(membership::contains).toArray())
+                .containsExactly(7, 13, 42);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.service;
+
+import com.example.demo.TestFixtures;
+import com.example.demo.dto.WishlistBatchResultDTO;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.repository.WishlistRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("h2")
+@RecordApplicationEvents
+class WishlistServiceTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void concurrentAddsOfTheSamePairInsertOneRow() throws Exception {
+        User seller = fixtures.user("seller");
+        User shopper = fixtures.user("shopper");
+        Long productId = fixtures.product(seller, "Babouches", 45.0).getId();
+
+        int clicks = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(clicks);
+        CountDownLatch start = new CountDownLatch(1);
+        int added = 0;
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < clicks; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        wishlistService.addToWishlist(shopper.getId(), shopper.getEmail(), productId);
+                        return true;
+                    } catch (RuntimeException e) {
+                        assertThat(e).hasMessage("Product is already in your wishlist");
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                if (future.get(30, TimeUnit.SECONDS)) {
+                    added++;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(added).isEqualTo(1);
+        assertThat(wishlistRepository.findByUser_Id(shopper.getId())).hasSize(1);
+        assertThatThrownBy(() -> wishlistService.addToWishlist(shopper.getId(), shopper.getEmail(), Long.MAX_VALUE))
+                .hasMessage("Product not found");
+        assertThatThrownBy(() -> wishlistService.removeFromWishlist(seller.getId(), seller.getEmail(), productId))
+                .hasMessage("Product not found in your wishlist");
+    }
+
+    @Test
+    void appliesBatchesAndClearsInOneStatementEach() {
+        User seller = fixtures.user("seller");
+        User shopper = fixtures.user("shopper");
+        List<Long> page = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            page.add(fixtures.product(seller, "Babouches", 45.0).getId());
+        }
+        wishlistService.addToWishlist(shopper.getId(), shopper.getEmail(), page.get(0));
+        // Warms the membership cache so the batch has to patch it
+        assertThat(wishlistService.getMembership(shopper.getEmail(), page).stream().toArray()).containsExactly(0);
+
+        // Already-present and unknown ids are skipped rather than failing the batch
+        WishlistBatchResultDTO result = wishlistService.updateWishlist(shopper.getId(), shopper.getEmail(),
+                List.of(page.get(0), page.get(1), page.get(2), Long.MAX_VALUE), List.of(page.get(0), page.get(3)));
+        assertThat(result.getRemoved()).isEqualTo(1);
+        assertThat(result.getAdded()).isEqualTo(3);
+        assertThat(wishlistService.getMembership(shopper.getEmail(), page).stream().toArray()).containsExactly(0, 1, 2);
+
+        assertThat(wishlistService.clearWishlist(shopper.getId(), shopper.getEmail())).isEqualTo(3);
+        assertThat(wishlistRepository.findByUser_Id(shopper.getId())).isEmpty();
+        assertThat(wishlistService.getMembership(shopper.getEmail(), page).isEmpty()).isTrue();
+    }
+
+    @Test
+    void publishesAddsOnlyForProductsThatExist() {
+        User seller = fixtures.user("seller");
+        User shopper = fixtures.user("shopper");
+        Product product = fixtures.product(seller, "Babouches", 45.0);
+
+        WishlistBatchResultDTO result = wishlistService.updateWishlist(shopper.getId(), shopper.getEmail(),
+                List.of(product.getId(), Long.MAX_VALUE), List.of());
+
+        assertThat(result.getAdded()).isEqualTo(1);
+        assertThat(events.stream(WishlistChangedEvent.class))
+                .extracting(WishlistChangedEvent::getProductId, WishlistChangedEvent::isAdded)
+                .containsExactly(tuple(product.getId(), true));
+    }
+}
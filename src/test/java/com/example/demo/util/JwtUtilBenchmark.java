@@ -0,0 +1,72 @@
+package com.example.demo.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilBenchmark {
+
+    private static final String SECRET = "2F423F4528482B4D6250655368566D597133743677397A24432646294A404E635266556A586E5A7234753778214125442A472D4B6150645367566B5970337336";
+
+    @Test
+    void benchmarkPerRequestVerificationCost() {
+        JwtUtil jwtUtil = new JwtUtil(new SimpleMeterRegistry(), 3_600_000, 100_000);
+        String[] tokens = new String[1_000];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = jwtUtil.generateToken((long) i, "user" + i + "@example.com", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        }
+        int requests = 50_000;
+
+        // Before: the key and parser were rebuilt per call and the token was parsed three times
+        double legacy = measure(requests, i -> {
+            String token = tokens[i % tokens.length];
+            String subject = legacyClaims(token).getSubject();
+            boolean valid = subject.equals(legacyClaims(token).getSubject())
+                    && legacyClaims(token).getExpiration().after(new Date());
+            return valid ? 1 : 0;
+        });
+        double cached = measure(requests, i -> jwtUtil.verify(tokens[i % tokens.length]).getRoles().size());
+
+        // Every token is new to the cache, so each request pays for one full parse
+        String[] distinct = new String[requests + requests / 4];
+        for (int i = 0; i < distinct.length; i++) {
+            distinct[i] = jwtUtil.generateToken((long) i, "buyer" + i + "@example.com", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        }
+        double uncached = measure(requests, i -> jwtUtil.verify(distinct[i]).getRoles().size());
+
+        System.out.printf("JWT auth per request: legacy %.2f \u00b5s, single parse %.2f \u00b5s, cached %.2f \u00b5s%n",
+                legacy, uncached, cached);
+        assertThat(cached).isLessThan(legacy);
+    }
+
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    private static double measure(int requests, IntUnaryOperator request) {
+        long sink = 0;
+        int warmup = requests / 4;
+        for (int i = 0; i < warmup; i++) {
+            sink += request.applyAsInt(i);
+        }
+        long start = System.nanoTime();
+        for (int i = warmup; i < warmup + requests; i++) {
+            sink += request.applyAsInt(i);
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / requests;
+        assertThat(sink).isPositive();
+        return micros;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.util;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    @Test
+    void verifiesOnceAndServesTheCachedClaims() {
+        JwtUtil jwtUtil = new JwtUtil(new SimpleMeterRegistry(), 60_000, 100);
+        String token = jwtUtil.generateToken(1L, "amina@example.com", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        VerifiedToken verified = jwtUtil.verify(token);
+
+        assertThat(verified.getUserId()).isEqualTo(1L);
+        assertThat(verified.getSubject()).isEqualTo("amina@example.com");
+        assertThat(verified.getRoles()).containsExactly("ROLE_USER");
+        assertThat(jwtUtil.verify(token)).isSameAs(verified);
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        JwtUtil jwtUtil = new JwtUtil(new SimpleMeterRegistry(), 60_000, 100);
+        String token = jwtUtil.generateToken(1L, "amina@example.com", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        jwtUtil.verify(token);
+
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"uid\":2,\"sub\":\"admin@example.com\",\"exp\":4102444800}".getBytes()) + "." + parts[2];
+        assertThatThrownBy(() -> jwtUtil.verify(forged)).isInstanceOf(JwtException.class);
+
+        JwtUtil expiring = new JwtUtil(new SimpleMeterRegistry(), -1_000, 100);
+        String expired = expiring.generateToken(1L, "amina@example.com", List.of());
+        assertThatThrownBy(() -> expiring.verify(expired)).isInstanceOf(JwtException.class);
+    }
+}